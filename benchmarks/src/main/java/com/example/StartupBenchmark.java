@@ -0,0 +1,88 @@
+package com.example;
+
+import com.example.api.BenchmarkFixtures;
+import com.example.api.ElpriserAPI.Prisklass;
+import com.example.api.PriceArchive;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hela tiden för en {@link Main}-körning i en ny JVM, från start till avslut, med varm
+ * disk-cache så att inget nätverk används. Jämför vanlig start med AppCDS-arkivet från
+ * {@code mvn -Pappcds package}, med och utan C2.
+ * <p>
+ * Körs från projektroten; jar-fil och arkiv kan anges med {@code -Dstartup.jar} och
+ * {@code -Dstartup.archive}. Barnprocessen startas med samma JDK som benchmarken.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 20)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StartupBenchmark {
+
+    static final LocalDate DAY = LocalDate.of(2025, 1, 15);
+
+    @Param({"default", "appcds", "appcds-c1"})
+    public String launch;
+
+    List<String> command;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        Path jar = Path.of(System.getProperty("startup.jar", "target/JavaTemplate-1.0-SNAPSHOT.jar"));
+        Path archive = Path.of(System.getProperty("startup.archive", "target/elpriser.jsa"));
+        if (!Files.exists(jar) || (!launch.equals("default") && !Files.exists(archive))) {
+            throw new IllegalStateException("Bygg först med mvn -Pappcds package i projektroten");
+        }
+
+        PriceArchive priser = new PriceArchive();
+        priser.addAll(Prisklass.SE3, BenchmarkFixtures.day(DAY, Prisklass.SE3, 96, 7));
+        priser.addAll(Prisklass.SE3, BenchmarkFixtures.day(DAY.plusDays(1), Prisklass.SE3, 96, 8));
+        Path cache = Files.createTempDirectory("elpriser-startup");
+        priser.writeDiskCache(cache);
+
+        command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        if (!launch.equals("default")) {
+            command.add("-XX:SharedArchiveFile=" + archive);
+        }
+        if (launch.equals("appcds-c1")) {
+            command.add("-XX:TieredStopAtLevel=1");
+        }
+        command.addAll(List.of("-Delpriser.cache.dir=" + cache, "-cp", jar.toString(), "com.example.Main",
+                "--zone", "SE3", "--date", DAY.toString(), "--charging", "4h"));
+    }
+
+    @Benchmark
+    public int cachedRun() throws IOException, InterruptedException {
+        Process process = new ProcessBuilder(command)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+        int exit = process.waitFor();
+        if (exit != 0) {
+            throw new IllegalStateException("Main avslutades med " + exit);
+        }
+        return exit;
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.analysis;
+
+import com.example.api.BenchmarkFixtures;
+import com.example.api.ElpriserAPI;
+import com.example.api.ElpriserAPI.Prisklass;
+import com.example.api.PriceSeries;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Statistik, prisordning och laddfönster över en dag-plus-morgondag (som i CLI:t) och
+ * över flera år för alla prisklasser.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AnalysisBenchmark {
+
+    /** Antal dagar: 2 motsvarar idag + imorgon, 1095 tre års historik. */
+    @Param({"2", "1095"})
+    int days;
+
+    @Param({"24", "96"})
+    int rowsPerDay;
+
+    Map<Prisklass, PriceSeries> zones;
+    PriceSeries se3;
+    PriceOrder se3Order;
+
+    @Setup
+    public void setup() {
+        zones = BenchmarkFixtures.allZones(LocalDate.of(2022, 1, 1), days, rowsPerDay, 11);
+        se3 = zones.get(Prisklass.SE3);
+        se3Order = PriceOrder.of(se3);
+    }
+
+    @Benchmark
+    public PriceStatistics statisticsAllZones() {
+        PriceStatistics total = new PriceStatistics();
+        for (PriceSeries serie : zones.values()) {
+            total.addAll(serie);
+        }
+        return total;
+    }
+
+    @Benchmark
+    public GroupedStatistics statisticsPerHour() {
+        return GroupedStatistics.of(se3, GroupedStatistics.Grouping.HOUR, ElpriserAPI.STOCKHOLM);
+    }
+
+    @Benchmark
+    public PriceOrder sortByPrice() {
+        return PriceOrder.of(se3);
+    }
+
+    @Benchmark
+    public Optional<ChargingWindow> cheapestWindow4h() {
+        return ChargingOptimizer.cheapestWindow(se3, Duration.ofHours(4));
+    }
+
+    @Benchmark
+    public int[] cheapestSlots8h() {
+        return ChargingOptimizer.cheapestSlots(se3, ChargingOptimizer.slotsFor(se3, Duration.ofHours(8)),
+                ChargingOptimizer.UNBOUNDED_START, ChargingOptimizer.UNBOUNDED_DEADLINE);
+    }
+
+    @Benchmark
+    public int[] cheapestSlots8hFromOrder() {
+        return ChargingOptimizer.cheapestSlots(se3Order, ChargingOptimizer.slotsFor(se3, Duration.ofHours(8)));
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.analysis;
+
+import com.example.api.DateRange;
+import com.example.api.ElpriserAPI;
+import com.example.api.ElpriserAPI.Prisklass;
+import com.example.api.PriceSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Historisk kostnad för tre profiler i alla fyra prisklasser med syntetiska kvartspriser,
+ * så att inget nätverk eller disk används. Varje körning hämtar priserna via API:et och
+ * räknar zon och månad parallellt på common pool.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CostSimulationBenchmark {
+
+    static final LocalDate LAST_DAY = LocalDate.of(2024, 12, 31);
+
+    @Param({"1", "5"})
+    int years;
+
+    ElpriserAPI api;
+    DateRange range;
+    List<ConsumptionProfile> profiles;
+
+    @Setup
+    public void setup() {
+        api = ElpriserAPI.builder().source(PriceSource.synthetic(42, Duration.ofMinutes(15))).build();
+        range = new DateRange(LAST_DAY.minusYears(years).plusDays(1), LAST_DAY);
+        double[] villa = new double[96];
+        for (int i = 0; i < villa.length; i++) {
+            villa[i] = i >= 28 && i < 88 ? 0.4 : 0.15; // Mer dagtid, 07–22
+        }
+        profiles = List.of(
+                ConsumptionProfile.flat("lägenhet", 6),
+                ConsumptionProfile.of("villa", villa).withCharging(30, 11, 18, 7),
+                ConsumptionProfile.flat("elvärme", 40).withCharging(12.5, 3.7, 22, 6));
+    }
+
+    @TearDown
+    public void tearDown() {
+        api.close();
+    }
+
+    @Benchmark
+    public List<CostSimulation.Result> allZones() {
+        return CostSimulation.run(api, range, EnumSet.allOf(Prisklass.class), profiles);
+    }
+}
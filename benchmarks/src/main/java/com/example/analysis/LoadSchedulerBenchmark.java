@@ -0,0 +1,73 @@
+package com.example.analysis;
+
+import com.example.api.BenchmarkFixtures;
+import com.example.api.ElpriserAPI.Prisklass;
+import com.example.api.PriceSeries;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lastplanering över idag och imorgon med kvartspriser: ett hushåll med elbil, bastu,
+ * värmepump och diskmaskin under en 25 A-säkring, och många sådana hushåll parallellt på
+ * common pool. Hushållen fördelas över de fyra prisklasserna.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LoadSchedulerBenchmark {
+
+    static final LocalDate DAY = LocalDate.of(2025, 1, 15);
+    static final double POWER_CAP_KW = 17.25; // 25 A, tre faser
+
+    @Param({"1000", "10000"})
+    int households;
+
+    List<LoadScheduler.Household> batch;
+    LoadScheduler.Household single;
+
+    @Setup
+    public void setup() {
+        Prisklass[] zones = Prisklass.values();
+        batch = new ArrayList<>(households);
+        for (int h = 0; h < households; h++) {
+            PriceSeries serie = BenchmarkFixtures.series(DAY, 2, zones[h % zones.length], 96, h % 50);
+            long midnatt = serie.startEpochSecond(0);
+            List<LoadJob> jobb = List.of(
+                    LoadJob.of("elbil", 7 + h % 5, Duration.ofHours(3 + h % 4))
+                            .between(midnatt + 18 * 3600, midnatt + 31 * 3600).asInterruptible(),
+                    LoadJob.of("bastu", 9, Duration.ofHours(2)).between(midnatt + 16 * 3600, midnatt + 23 * 3600),
+                    LoadJob.of("värmepump", 3, Duration.ofHours(5)),
+                    LoadJob.of("disk", 2, Duration.ofMinutes(90)));
+            batch.add(new LoadScheduler.Household(serie, jobb, POWER_CAP_KW));
+        }
+        single = batch.get(0);
+    }
+
+    @Benchmark
+    public LoadSchedule scheduleOneHousehold() {
+        return LoadScheduler.schedule(single.prices(), single.jobs(), single.powerCapKw());
+    }
+
+    @Benchmark
+    public List<LoadSchedule> scheduleAllParallel() {
+        return LoadScheduler.scheduleAll(batch);
+    }
+}
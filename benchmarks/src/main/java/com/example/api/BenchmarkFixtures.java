@@ -0,0 +1,81 @@
+package com.example.api;
+
+import com.example.api.ElpriserAPI.Elpris;
+import com.example.api.ElpriserAPI.Prisklass;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Deterministisk testdata för benchmarks: dagar i API:ts JSON-format och fleråriga
+ * serier för alla prisklasser. Priserna följer en typisk dygnskurva med brus, och
+ * norra zoner är billigare än södra.
+ */
+public final class BenchmarkFixtures {
+
+    private static final DateTimeFormatter ISO = DateTimeFormatter.ISO_OFFSET_DATE_TIME;
+
+    private BenchmarkFixtures() {}
+
+    /** En dags priser med {@code rowsPerDay} rader (24 eller 96). */
+    public static List<Elpris> day(LocalDate datum, Prisklass prisklass, int rowsPerDay, long seed) {
+        Random random = new Random(seed ^ datum.toEpochDay() * 31 ^ prisklass.ordinal());
+        int minutes = 24 * 60 / rowsPerDay;
+        ZonedDateTime start = datum.atStartOfDay(ElpriserAPI.STOCKHOLM);
+        ZonedDateTime end = datum.plusDays(1).atStartOfDay(ElpriserAPI.STOCKHOLM);
+        double zoneFactor = 0.4 + 0.3 * prisklass.ordinal();
+        List<Elpris> priser = new ArrayList<>(rowsPerDay + 4);
+        for (ZonedDateTime t = start; t.isBefore(end); t = t.plusMinutes(minutes)) {
+            double hour = t.getHour() + t.getMinute() / 60.0;
+            double curve = 0.6 + 0.35 * Math.sin((hour - 6) / 24 * 2 * Math.PI) + 0.25 * Math.sin((hour - 15) / 12 * 2 * Math.PI);
+            double sek = Math.round(zoneFactor * curve * (1 + 0.3 * random.nextGaussian()) * 100_000) / 100_000.0;
+            double exr = 11.2;
+            priser.add(new Elpris(sek, Math.round(sek / exr * 100_000) / 100_000.0, exr, t, t.plusMinutes(minutes)));
+        }
+        return priser;
+    }
+
+    /** En dag som JSON, byte för byte som API:t skulle svara. */
+    public static byte[] dayJson(LocalDate datum, Prisklass prisklass, int rowsPerDay, long seed) {
+        return toJson(day(datum, prisklass, rowsPerDay, seed)).getBytes(StandardCharsets.UTF_8);
+    }
+
+    public static String toJson(List<Elpris> priser) {
+        StringBuilder sb = new StringBuilder(priser.size() * 140).append('[');
+        for (int i = 0; i < priser.size(); i++) {
+            Elpris p = priser.get(i);
+            if (i > 0) sb.append(',');
+            sb.append(String.format(Locale.ROOT,
+                    "{\"SEK_per_kWh\":%.5f,\"EUR_per_kWh\":%.5f,\"EXR\":%.6f,\"time_start\":\"%s\",\"time_end\":\"%s\"}",
+                    p.sekPerKWh(), p.eurPerKWh(), p.exr(),
+                    ISO.format(p.timeStart().toOffsetDateTime()), ISO.format(p.timeEnd().toOffsetDateTime())));
+        }
+        return sb.append(']').toString();
+    }
+
+    /** En sammanhängande serie över {@code days} dagar för en prisklass. */
+    public static PriceSeries series(LocalDate from, int days, Prisklass prisklass, int rowsPerDay, long seed) {
+        List<Elpris> priser = new ArrayList<>(days * rowsPerDay);
+        for (int d = 0; d < days; d++) {
+            priser.addAll(day(from.plusDays(d), prisklass, rowsPerDay, seed));
+        }
+        return PriceSeries.of(priser);
+    }
+
+    /** Serier för alla prisklasser. */
+    public static Map<Prisklass, PriceSeries> allZones(LocalDate from, int days, int rowsPerDay, long seed) {
+        Map<Prisklass, PriceSeries> serier = new EnumMap<>(Prisklass.class);
+        for (Prisklass prisklass : Prisklass.values()) {
+            serier.put(prisklass, series(from, days, prisklass, rowsPerDay, seed));
+        }
+        return serier;
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.api;
+
+import com.example.api.ElpriserAPI.Elpris;
+import com.example.api.ElpriserAPI.Prisklass;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Vägen genom {@link ElpriserAPI#getPriser(LocalDate, Prisklass)}: träff i minnes-cachen
+ * över två års nycklar för alla zoner, och miss som går via mock-kroken (tolkning av
+ * en 96-raders dag) utan nätverk.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CacheBenchmark {
+
+    static final LocalDate FROM = LocalDate.of(2023, 1, 1);
+    static final int DAYS = 730;
+    static final Prisklass[] ZONES = Prisklass.values();
+
+    ElpriserAPI cached;
+    ElpriserAPI uncached;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        String json = BenchmarkFixtures.toJson(BenchmarkFixtures.day(FROM, Prisklass.SE3, 96, 7));
+        ElpriserAPI.setMockResponse(json);
+        cached = ElpriserAPI.builder()
+                .diskCacheDir(Files.createTempDirectory("elpriser-bench"))
+                .maxCachedDays(DAYS * ZONES.length)
+                .build();
+        for (int d = 0; d < DAYS; d++) {
+            for (Prisklass zone : ZONES) {
+                cached.getPriser(FROM.plusDays(d), zone);
+            }
+        }
+        uncached = ElpriserAPI.builder()
+                .caching(false)
+                .diskCacheDir(Files.createTempDirectory("elpriser-bench"))
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        ElpriserAPI.clearMockResponse();
+        cached.close();
+        uncached.close();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public List<Elpris> cacheHit() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return cached.getPriser(FROM.plusDays(random.nextInt(DAYS)), ZONES[random.nextInt(ZONES.length)]);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public List<Elpris> cacheHitContended() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return cached.getPriser(FROM.plusDays(random.nextInt(DAYS)), ZONES[random.nextInt(ZONES.length)]);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public List<Elpris> cacheMissViaMock() {
+        return uncached.getPriser(FROM, Prisklass.SE3);
+    }
+}
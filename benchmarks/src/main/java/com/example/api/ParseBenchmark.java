@@ -0,0 +1,53 @@
+package com.example.api;
+
+import com.example.api.ElpriserAPI.Elpris;
+import com.example.api.ElpriserAPI.Prisklass;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tolkning av en dags JSON-svar med 24 (timpriser) eller 96 (kvartspriser) rader.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParseBenchmark {
+
+    @Param({"24", "96"})
+    int rowsPerDay;
+
+    byte[] json;
+    String jsonString;
+
+    @Setup
+    public void setup() {
+        json = BenchmarkFixtures.dayJson(LocalDate.of(2025, 9, 4), Prisklass.SE3, rowsPerDay, 42);
+        jsonString = new String(json, java.nio.charset.StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public List<Elpris> parseBytes() {
+        return ElprisJsonParser.parse(json);
+    }
+
+    @Benchmark
+    public List<Elpris> parseString() {
+        return ElprisJsonParser.parse(jsonString);
+    }
+}
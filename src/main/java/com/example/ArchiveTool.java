@@ -0,0 +1,129 @@
+package com.example;
+
+import com.example.api.DateRange;
+import com.example.api.ElprisParseException;
+import com.example.api.ElpriserAPI;
+import com.example.api.ElpriserAPI.Prisklass;
+import com.example.api.PriceArchive;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Kommandoradsverktyg för att bygga och exportera prisarkiv, se {@link PriceArchive}.
+ * <pre>
+ *   java com.example.ArchiveTool --json &lt;katalog&gt; --out priser.elpa
+ *   java com.example.ArchiveTool --zone all --from 2023-01-01 --to 2025-12-31 --out priser.elpa
+ *   java com.example.ArchiveTool --in priser.elpa --csv priser.csv
+ *   java com.example.ArchiveTool --json &lt;katalog&gt; --cache ~/.elpriser_cache
+ * </pre>
+ * Källorna kan kombineras; allt som läses in skrivs till {@code --out}, {@code --csv}
+ * och/eller {@code --cache}.
+ */
+public class ArchiveTool {
+
+    public static void main(String[] args) {
+        Path in = null, json = null, out = null, csv = null, cache = null;
+        Set<Prisklass> zoner = EnumSet.noneOf(Prisklass.class);
+        LocalDate från = null, till = null;
+
+        if (args.length == 0) {
+            printUsage();
+            return;
+        }
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.equals("--help")) {
+                printUsage();
+                return;
+            }
+            if (i + 1 >= args.length) {
+                System.out.println("Värde saknas för " + arg);
+                return;
+            }
+            String val = args[++i];
+            try {
+                switch (arg) {
+                    case "--in" -> in = Path.of(val);
+                    case "--json" -> json = Path.of(val);
+                    case "--out" -> out = Path.of(val);
+                    case "--csv" -> csv = Path.of(val);
+                    case "--cache" -> cache = Path.of(val);
+                    case "--from" -> från = LocalDate.parse(val);
+                    case "--to" -> till = LocalDate.parse(val);
+                    case "--zone" -> {
+                        if (val.equalsIgnoreCase("all")) {
+                            zoner.addAll(EnumSet.allOf(Prisklass.class));
+                        } else {
+                            for (String zon : val.split(",")) zoner.add(Prisklass.valueOf(zon.trim().toUpperCase()));
+                        }
+                    }
+                    default -> {
+                        System.out.println("Okänt argument: " + arg);
+                        return;
+                    }
+                }
+            } catch (Exception e) {
+                System.out.println("Ogiltigt värde för " + arg + ": " + val);
+                return;
+            }
+        }
+        if (out == null && csv == null && cache == null) {
+            System.out.println("--out, --csv eller --cache krävs");
+            return;
+        }
+
+        long start = System.nanoTime();
+        try {
+            PriceArchive arkiv = in != null ? PriceArchive.read(in) : new PriceArchive();
+            if (json != null) {
+                int filer = arkiv.addJsonFiles(json);
+                System.out.println("Läste " + filer + " JSON-filer från " + json);
+            }
+            if (!zoner.isEmpty() || från != null || till != null) {
+                if (zoner.isEmpty() || från == null) {
+                    System.out.println("Hämtning kräver --zone och --from");
+                    return;
+                }
+                try (ElpriserAPI api = new ElpriserAPI()) {
+                    arkiv.addFromApi(api, new DateRange(från, till != null ? till : från), zoner);
+                }
+            }
+            if (out != null) {
+                Files.createDirectories(out.toAbsolutePath().getParent());
+                arkiv.write(out);
+            }
+            if (csv != null) {
+                Files.createDirectories(csv.toAbsolutePath().getParent());
+                arkiv.writeCsv(csv);
+            }
+            if (cache != null) {
+                int dagar = arkiv.writeDiskCache(cache);
+                System.out.println("Sparade " + dagar + " dagar i disk-cachen " + cache);
+            }
+            for (Prisklass zon : arkiv.zones()) {
+                System.out.printf("%s: %d rader\n", zon, arkiv.size(zon));
+            }
+            System.out.printf("Klart på %d ms\n", (System.nanoTime() - start) / 1_000_000);
+        } catch (IOException | ElprisParseException | IllegalArgumentException e) {
+            System.out.println("Fel: " + e.getMessage());
+        }
+    }
+
+    private static void printUsage() {
+        System.out.println("Usage: java com.example.ArchiveTool [källor] [mål]");
+        System.out.println("Källor:");
+        System.out.println("  --in        Befintligt arkiv (.elpa)");
+        System.out.println("  --json      Katalog med sparade API-svar, t.ex. 2025/10-05_SE3.json");
+        System.out.println("  --zone      Hämta från API:t: SE1,SE3 eller all (kräver --from)");
+        System.out.println("  --from, --to Datumintervall YYYY-MM-DD för hämtning");
+        System.out.println("Mål:");
+        System.out.println("  --out       Skriv binärt arkiv");
+        System.out.println("  --csv       Skriv CSV");
+        System.out.println("  --cache     Spara dagarna i en disk-cache-katalog, för körning utan nätverk");
+    }
+}
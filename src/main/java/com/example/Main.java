@@ -4,25 +4,52 @@ package com.example;
 import com.example.api.ElpriserAPI;
 import com.example.api.ElpriserAPI.Elpris;
 import com.example.api.ElpriserAPI.Prisklass;
+import com.example.api.DateRange;
+import com.example.api.PrefetchScheduler;
+import com.example.api.PriceSeries;
+import com.example.api.SlotTimes;
+import com.example.analysis.ChargingOptimizer;
+import com.example.analysis.ChargingWindow;
+import com.example.analysis.GroupedStatistics;
+import com.example.analysis.GroupedStatistics.Grouping;
+import com.example.analysis.PriceOrder;
+import com.example.analysis.PriceStatistics;
+import com.example.analysis.ZoneComparison;
+import com.example.server.PriceServer;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
 
 // Importerar standardbibliotek för tid, datum och listor
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
-import java.time.LocalDateTime;
-import java.time.LocalTime;
-import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 public class Main {
 
-    public static void main(String[] args) {
-        // Skapar en API-klient som kan hämta elpriser från ElpriserAPI
-        ElpriserAPI api = new ElpriserAPI();
+    // Standardport för --serve
+    private static final int DEFAULT_PORT = 8080;
+    // Efter kl. 13 svensk tid visas bara kommande perioder för idag
+    private static final int PUBLICERING_SEKUND = 13 * 3600;
 
+    public static void main(String[] args) {
         // Variabler för att spara inställningar från användaren
-        Prisklass prisklass = null;        // Elområde (t.ex. SE1, SE2, SE3, SE4)
-        LocalDate datum = LocalDate.now(); // Standard: dagens datum
+        Set<Prisklass> zoner = EnumSet.noneOf(Prisklass.class); // Alla valda elområden
+        LocalDate datum = LocalDate.now(ElpriserAPI.STOCKHOLM); // Standard: dagens datum i svensk tid
+        LocalDate från = null;             // Första dagen i ett intervall (--from)
+        LocalDate till = null;             // Sista dagen i ett intervall (--to)
         boolean sortera = false;           // Ska priser sorteras?
         int laddtimmar = 0;                // Hur många timmar man vill ladda bilen
+        boolean serve = false;             // Kör som lokal HTTP-tjänst i stället för en fråga
+        int port = DEFAULT_PORT;           // Port för --serve
+        PriceRenderer.Format format = PriceRenderer.Format.TABLE; // Tabell, CSV eller JSON
 
         // Om användaren inte skriver några argument → visa hjälptext
         if (args.length == 0) {
@@ -33,13 +60,20 @@ public class Main {
         // Läser in argument som användaren skriver i terminalen
         for (int i = 0; i < args.length; i++) {
             if (args[i].equals("--zone")) {
-                // Exempel: --zone SE3 (vilket elområde)
+                // Exempel: --zone SE3 (vilket elområde), --zone SE1,SE3 eller --zone all
                 if (i + 1 < args.length) {
-                    try {
-                        prisklass = Prisklass.valueOf(args[++i].toUpperCase());
-                    } catch (Exception e) {
-                        System.out.println("Ogiltig zon: " + args[i]);
-                        return;
+                    String val = args[++i];
+                    if (val.equalsIgnoreCase("all")) {
+                        zoner.addAll(EnumSet.allOf(Prisklass.class));
+                    } else {
+                        for (String zon : val.split(",")) {
+                            try {
+                                zoner.add(Prisklass.valueOf(zon.trim().toUpperCase()));
+                            } catch (Exception e) {
+                                System.out.println("Ogiltig zon: " + zon);
+                                return;
+                            }
+                        }
                     }
                 } else {
                     System.out.println("--zone är obligatoriskt");
@@ -55,6 +89,18 @@ public class Main {
                         return;
                     }
                 }
+            } else if (args[i].equals("--from") || args[i].equals("--to")) {
+                // Exempel: --from 2025-10-01 --to 2025-10-07 (intervall, båda dagarna ingår)
+                if (i + 1 < args.length) {
+                    boolean start = args[i].equals("--from");
+                    try {
+                        LocalDate dag = LocalDate.parse(args[++i]);
+                        if (start) från = dag; else till = dag;
+                    } catch (Exception e) {
+                        System.out.println("Ogiltigt datumformat (YYYY-MM-DD krävs)");
+                        return;
+                    }
+                }
             } else if (args[i].equals("--sort") || args[i].equals("--sorted")) {
                 sortera = true; // Sortera priser om användaren vill
             } else if (args[i].equals("--hours") || args[i].equals("--charging")) {
@@ -69,6 +115,28 @@ public class Main {
                         return;
                     }
                 }
+            } else if (args[i].equals("--serve")) {
+                serve = true;
+            } else if (args[i].equals("--port")) {
+                // Exempel: --port 8080 (används med --serve)
+                if (i + 1 < args.length) {
+                    try {
+                        port = Integer.parseInt(args[++i]);
+                    } catch (NumberFormatException e) {
+                        System.out.println("Ogiltigt värde för --port: " + args[i]);
+                        return;
+                    }
+                }
+            } else if (args[i].equals("--format")) {
+                // Exempel: --format json (table, csv eller json)
+                if (i + 1 < args.length) {
+                    try {
+                        format = PriceRenderer.Format.parse(args[++i]);
+                    } catch (IllegalArgumentException e) {
+                        System.out.println("Ogiltigt värde för --format: " + args[i]);
+                        return;
+                    }
+                }
             } else if (args[i].equals("--help")) {
                 // Om användaren ber om hjälp → visa instruktioner
                 printUsage();
@@ -76,130 +144,201 @@ public class Main {
             }
         }
 
+        // Skapar en API-klient som kan hämta elpriser från ElpriserAPI; nätverksdelen
+        // byggs först om något inte finns i cachen
+        ElpriserAPI api = new ElpriserAPI();
+
+        // Serverläge: en varm klient svarar på frågor tills processen avslutas
+        if (serve) {
+            serve(api, port);
+            return;
+        }
+        try (api) {
+            query(api, zoner, datum, från, till, sortera, laddtimmar, format);
+        }
+    }
+
+    /** Svarar på en fråga från kommandoraden och skriver ut resultatet. */
+    private static void query(ElpriserAPI api, Set<Prisklass> zoner, LocalDate datum, LocalDate från, LocalDate till,
+                              boolean sortera, int laddtimmar, PriceRenderer.Format format) {
         // Om användaren glömt välja elområde → avbryt
-        if (prisklass == null) {
+        if (zoner.isEmpty()) {
             System.out.println("--zone är obligatoriskt");
             return;
         }
 
-        // Hämta priser för både idag och imorgon
-        List<Elpris> priser = new ArrayList<>(api.getPriser(datum, prisklass));
-        priser.addAll(api.getPriser(datum.plusDays(1), prisklass));
-
-        LocalDateTime nu = LocalDateTime.now();
-
-        // Ta bort gamla timmar (t.ex. om klockan är 14:00 → visa bara framtida timmar)
-        if (datum.equals(LocalDate.now()) && nu.toLocalTime().isAfter(LocalTime.of(13, 0))) {
-            List<Elpris> framtid = new ArrayList<>();
-            for (Elpris p : priser) {
-                if (!p.timeStart().toLocalDateTime().isBefore(nu)) {
-                    framtid.add(p);
-                }
+        // Flera zoner eller ett datumintervall: jämför zonerna över hela intervallet
+        if (zoner.size() > 1 || från != null || till != null) {
+            LocalDate första = från != null ? från : datum;
+            LocalDate sista = till != null ? till : första;
+            if (sista.isBefore(första)) {
+                System.out.println("--to får inte ligga före --from");
+                return;
             }
-            priser = framtid;
+            if (format != PriceRenderer.Format.TABLE) {
+                System.out.println("--format " + format.name().toLowerCase() + " stöds bara för en zon och en dag");
+                return;
+            }
+            if (sortera) {
+                System.out.println("--sorted stöds bara för en zon och en dag");
+                return;
+            }
+            if (laddtimmar > 0) {
+                System.out.println("--charging stöds bara för en zon och en dag");
+                return;
+            }
+            compareZones(api, zoner, new DateRange(första, sista));
+            return;
+        }
+        Prisklass prisklass = zoner.iterator().next(); // Elområde (t.ex. SE1, SE2, SE3, SE4)
+
+        // Hämta priser för både idag och imorgon: svar från cachen läses direkt och
+        // bara det som saknas hämtas, parallellt
+        var idag = cachedOrAsync(api, datum, prisklass);
+        var imorgon = cachedOrAsync(api, datum.plusDays(1), prisklass);
+        List<Elpris> priser = new ArrayList<>(idag.join());
+        priser.addAll(imorgon.join());
+
+        // Bygg tidsserien en gång; filtrering, utskrift och laddning räknar alla i
+        // epoch-sekunder, och lokal tid tas bara fram för utskrift
+        PriceSeries serie = PriceSeries.of(priser);
+        SlotTimes lokal = new SlotTimes(ElpriserAPI.STOCKHOLM);
+        long nu = Instant.now().getEpochSecond();
+
+        // Ta bort gamla perioder (t.ex. om klockan är 14:00 i Sverige → visa bara framtida)
+        if (datum.equals(lokal.date(nu)) && lokal.secondOfDay(nu) > PUBLICERING_SEKUND) {
+            serie = serie.slice(serie.ceilingIndex(nu), serie.size());
         }
 
         // Om inga priser hittades → avbryt
-        if (priser.isEmpty()) {
+        if (serie.isEmpty()) {
             System.out.println("Inga priser hittades för " + prisklass + " " + datum);
             return;
         }
 
-        // Kopiera priserna till en lista vi kan sortera
-        List<Elpris> priserFörVisning = new ArrayList<>(priser);
-
-        // Sortera listan antingen på pris eller tid
-        if (sortera) {
-            // Sortera på pris (lägsta först, om lika → tid)
-            for (int i = 0; i < priserFörVisning.size(); i++) {
-                for (int j = i + 1; j < priserFörVisning.size(); j++) {
-                    if (priserFörVisning.get(i).sekPerKWh() < priserFörVisning.get(j).sekPerKWh()) {
-                        Elpris temp = priserFörVisning.get(i);
-                        priserFörVisning.set(i, priserFörVisning.get(j));
-                        priserFörVisning.set(j, temp);
-                    } else if (priserFörVisning.get(i).sekPerKWh() == priserFörVisning.get(j).sekPerKWh()) {
-                        if (priserFörVisning.get(i).timeStart().isAfter(priserFörVisning.get(j).timeStart())) {
-                            Elpris temp = priserFörVisning.get(i);
-                            priserFörVisning.set(i, priserFörVisning.get(j));
-                            priserFörVisning.set(j, temp);
-                        }
-                    }
-                }
-            }
-        } else {
-            // Sortera på tid (tidigast först)
-            for (int i = 0; i < priserFörVisning.size(); i++) {
-                for (int j = i + 1; j < priserFörVisning.size(); j++) {
-                    if (priserFörVisning.get(i).timeStart().isAfter(priserFörVisning.get(j).timeStart())) {
-                        Elpris temp = priserFörVisning.get(i);
-                        priserFörVisning.set(i, priserFörVisning.get(j));
-                        priserFörVisning.set(j, temp);
-                    }
-                }
-            }
-        }
+        // Prisordningen delas av utskrift och laddning
+        PriceOrder ordning = PriceOrder.of(serie);
+        PriceRenderer ut = new PriceRenderer(format, stdout());
 
-        // Skriv ut priserna
-        System.out.printf("Elpriser för %s %s (%d timmar):\n", prisklass, datum, priserFörVisning.size());
-        for (Elpris pris : priserFörVisning) {
-            System.out.printf("%s %s öre\n",
-                    formatHourRange(pris.timeStart().toLocalDateTime(), pris.timeEnd().toLocalDateTime()),
-                    formatOere(pris.sekPerKWh()));
+        // Skriv ut priserna, antingen på pris (dyrast först, om lika → tid) eller tid
+        ut.beginPrices(prisklass, datum, serie.size());
+        for (int rank = 0; rank < serie.size(); rank++) {
+            ut.price(serie, sortera ? ordning.descending(rank) : rank);
         }
+        ut.endPrices();
+
+        // Räkna ut statistik i ett pass: medel per faktisk timme (så att kvartspriser
+        // räknas ihop per timme, men idag och imorgon hålls isär), min, max och totalt medel
+        GroupedStatistics perTimme = GroupedStatistics.of(serie, Grouping.HOUR, ElpriserAPI.STOCKHOLM);
+        long billigasteTimme = perTimme.cheapestGroup();
+        long dyrasteTimme = perTimme.mostExpensiveGroup();
 
-        // Räkna ut statistik: min, max, medel
-        Map<Integer, List<Elpris>> priserPerTimme = new HashMap<>();
-        for (Elpris p : priser) {
-            int timme = p.timeStart().toLocalDateTime().getHour();
-            priserPerTimme.putIfAbsent(timme, new ArrayList<>());
-            priserPerTimme.get(timme).add(p);
+        // Skriv ut statistik
+        ut.statistics(perTimme.groups().get(billigasteTimme).mean(), billigasteTimme,
+                perTimme.groups().get(dyrasteTimme).mean(), dyrasteTimme, perTimme.total().mean());
+
+        // Ge tips om laddning om användaren angav timmar (--hours)
+        if (laddtimmar > 0) {
+            Optional<ChargingWindow> fönster = ChargingOptimizer.cheapestWindow(serie, Duration.ofHours(laddtimmar));
+            if (fönster.isPresent()) {
+                ut.chargingWindow(laddtimmar, serie, fönster.get());
+            }
         }
+        ut.end();
+        flush(ut);
+    }
 
-        double min = 999999;
-        double max = -1;
-        double total = 0;
-        int count = 0;
-        int minHour = 0, maxHour = 0;
+    /**
+     * Hämtar alla zoner och dagar parallellt och skriver statistik per zon, skillnader
+     * mellan zonerna och billigaste zon per timme, räknat i ett pass över all data.
+     */
+    private static void compareZones(ElpriserAPI api, Set<Prisklass> zoner, DateRange intervall) {
+        Map<Prisklass, List<Elpris>> priser = api.getPriser(intervall, zoner);
+        Map<Prisklass, PriceSeries> serier = new EnumMap<>(Prisklass.class);
+        priser.forEach((zon, lista) -> serier.put(zon, PriceSeries.of(lista)));
+        if (serier.values().stream().allMatch(PriceSeries::isEmpty)) {
+            System.out.println("Inga priser hittades för " + joinZones(zoner) + " " + formatRange(intervall));
+            return;
+        }
+        ZoneComparison jämförelse = ZoneComparison.of(serier);
+        PriceRenderer ut = new PriceRenderer(PriceRenderer.Format.TABLE, stdout());
+
+        ut.text("Elpriser för ").text(joinZones(zoner)).text(" ").text(formatRange(intervall)).text(":").newline();
+        for (Prisklass zon : jämförelse.zones()) {
+            PriceStatistics stats = jämförelse.zone(zon);
+            if (stats.isEmpty()) {
+                ut.text(zon.name()).text(": inga priser").newline();
+                continue;
+            }
+            ut.text(zon.name())
+                    .text(": lägsta ").oere(stats.min()).text(" öre (").dateTime(stats.minEpochSecond())
+                    .text("), högsta ").oere(stats.max()).text(" öre (").dateTime(stats.maxEpochSecond())
+                    .text("), medel ").oere(stats.mean()).text(" öre").newline();
+        }
 
-        for (Map.Entry<Integer, List<Elpris>> entry : priserPerTimme.entrySet()) {
-            double summa = 0;
-            for (Elpris p : entry.getValue()) {
-                summa += p.sekPerKWh();
+        if (zoner.size() > 1) {
+            ut.newline().text("Skillnad mellan zoner (medel, lägsta – högsta):").newline();
+            List<Prisklass> lista = new ArrayList<>(jämförelse.zones());
+            for (int a = 0; a < lista.size(); a++) {
+                for (int b = a + 1; b < lista.size(); b++) {
+                    PriceStatistics par = jämförelse.spread(lista.get(a), lista.get(b));
+                    if (par.isEmpty()) continue;
+                    ut.text(lista.get(b).name()).text(" − ").text(lista.get(a).name())
+                            .text(": ").oere(par.mean()).text(" öre (").oere(par.min())
+                            .text(" – ").oere(par.max()).text(")").newline();
+                }
             }
-            double medel = summa / entry.getValue().size();
-            if (medel < min) {
-                min = medel;
-                minHour = entry.getKey();
+            PriceStatistics spridning = jämförelse.spread();
+            if (spridning.isEmpty()) {
+                // Zonerna har inget intervall där alla har ett pris
+                ut.text("Största skillnad: ingen gemensam tid").newline();
+            } else {
+                ut.text("Största skillnad: ").oere(spridning.max()).text(" öre (")
+                        .dateTime(spridning.maxEpochSecond()).text(")").newline();
             }
-            if (medel > max) {
-                max = medel;
-                maxHour = entry.getKey();
+
+            if (!jämförelse.cheapestPerSlot().isEmpty()) {
+                ut.newline().text("Billigaste zon ").text(slotWording(jämförelse.cheapestPerSlot())).text(":").newline();
+                for (ZoneComparison.CheapestSlot slot : jämförelse.cheapestPerSlot()) {
+                    ut.dateTimeRange(slot.startEpochSecond(), slot.endEpochSecond()).text(" ")
+                            .text(slot.zone().name()).text(" ").oere(slot.sekPerKWh()).text(" öre").newline();
+                }
+                for (Prisklass zon : jämförelse.zones()) {
+                    ut.text(zon.name()).text(" billigast ").number(jämförelse.cheapestCount(zon))
+                            .text(" av ").number(jämförelse.cheapestPerSlot().size()).newline();
+                }
             }
-            total += summa;
-            count += entry.getValue().size();
         }
+        flush(ut);
+    }
 
-        double avg = (count > 0) ? total / count : 0;
-        min *= 100; max *= 100; avg *= 100;
+    // "per timme" eller "per kvart" när alla intervall är lika långa, annars "per intervall"
+    private static String slotWording(List<ZoneComparison.CheapestSlot> slots) {
+        long längd = slots.isEmpty() ? 0 : slots.get(0).endEpochSecond() - slots.get(0).startEpochSecond();
+        for (ZoneComparison.CheapestSlot slot : slots) {
+            if (slot.endEpochSecond() - slot.startEpochSecond() != längd) {
+                return "per intervall";
+            }
+        }
+        return längd == 3600 ? "per timme" : längd == 900 ? "per kvart" : "per intervall";
+    }
 
-        // Skriv ut statistik
-        System.out.printf("Lägsta pris: %s öre (%02d-%02d)\n", formatOereValue(min), minHour, (minHour + 1) % 24);
-        System.out.printf("Högsta pris: %s öre (%02d-%02d)\n", formatOereValue(max), maxHour, (maxHour + 1) % 24);
-        System.out.printf("Medelpris: %s öre\n", formatOereValue(avg));
+    // En körning som svarar från disk-cachen startar inga trådar och laddar inget nätverk
+    private static CompletableFuture<List<Elpris>> cachedOrAsync(ElpriserAPI api, LocalDate datum, Prisklass prisklass) {
+        List<Elpris> cachade = api.getCachedPriser(datum, prisklass);
+        return cachade != null ? CompletableFuture.completedFuture(cachade) : api.getPriserAsync(datum, prisklass);
+    }
 
-        // Ge tips om laddning om användaren angav timmar (--hours)
-        if (laddtimmar > 0 && laddtimmar <= priser.size()) {
-            System.out.printf("\nPåbörja laddning under de %d billigaste timmarna:\n", laddtimmar);
-            List<Elpris> laddtider = findOptimalChargingBlock(priser, laddtimmar);
-            for (Elpris pris : laddtider) {
-                System.out.printf("kl %s %s öre\n",
-                        formatClock(pris.timeStart().toLocalDateTime()),
-                        formatOere(pris.sekPerKWh()));
-            }
-            double snitt = 0;
-            for (Elpris p : laddtider) snitt += p.sekPerKWh();
-            snitt = (snitt / laddtider.size()) * 100;
-            System.out.printf("Medelpris för fönster: %s öre\n", formatOereValue(snitt));
+    // Utdata skrivs i ett svep genom en buffrad writer i System.outs teckenkodning
+    private static Writer stdout() {
+        return new BufferedWriter(new OutputStreamWriter(System.out, System.out.charset()), 1 << 16);
+    }
+
+    private static void flush(PriceRenderer ut) {
+        try {
+            ut.flush();
+        } catch (IOException e) {
+            System.err.println("Kunde inte skriva utdata: " + e.getMessage());
         }
     }
 
@@ -207,71 +346,49 @@ public class Main {
     private static void printUsage() {
         System.out.println("Usage: java Main --zone <SE1|SE2|SE3|SE4> [options]");
         System.out.println("Options:");
-        System.out.println("  --zone      Elområde");
+        System.out.println("  --zone      Elområde, t.ex. SE3, eller flera att jämföra: SE1,SE3 eller all");
         System.out.println("  --date      Datum i format YYYY-MM-DD (default: idag)");
+        System.out.println("  --from, --to Datumintervall YYYY-MM-DD, båda dagarna ingår");
         System.out.println("  --sort, --sorted   Sortera priser stigande");
         System.out.println("  --hours, --charging Antal timmar att ladda");
+        System.out.println("  --format    Utdataformat: table, csv eller json (default: table)");
+        System.out.println("  --serve     Kör som lokal HTTP-tjänst (/prices, /stats, /charging, /health)");
+        System.out.println("  --port      Port för --serve (default: " + DEFAULT_PORT + ")");
         System.out.println("  --help      Visa denna hjälptext");
     }
 
-    // Hjälpmetoder för att formatera utskrift
-    private static String formatHourRange(LocalDateTime start, LocalDateTime end) {
-        return String.format("%02d-%02d", start.getHour(), end.getHour() % 24);
-    }
-
-    private static String formatClock(LocalDateTime time) {
-        return time.format(DateTimeFormatter.ofPattern("HH:mm"));
+    /**
+     * Startar en lokal HTTP-tjänst och en förhämtning av morgondagens priser. Servertråden
+     * håller processen vid liv; Ctrl-C stänger dem och klienten.
+     */
+    private static void serve(ElpriserAPI api, int port) {
+        Clock clock = Clock.system(ElpriserAPI.STOCKHOLM);
+        PriceServer server;
+        try {
+            server = new PriceServer(api, new InetSocketAddress(InetAddress.getLoopbackAddress(), port), clock);
+        } catch (IOException e) {
+            System.out.println("Kunde inte starta servern på port " + port + ": " + e.getMessage());
+            return;
+        }
+        PrefetchScheduler förhämtning = new PrefetchScheduler(api, clock);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            förhämtning.close();
+            server.close();
+            api.close();
+        }));
+        förhämtning.start();
+        server.start();
+        System.out.printf("Lyssnar på http://%s:%d\n", server.address().getHostString(), server.address().getPort());
     }
 
-    private static String formatOere(double sekPerKWh) {
-        return formatOereValue(sekPerKWh * 100);
+    // Hjälpmetoder för att formatera utskrift
+    private static String formatRange(DateRange intervall) {
+        return intervall.days() == 1 ? intervall.from().toString() : intervall.from() + "–" + intervall.to();
     }
 
-    private static String formatOereValue(double value) {
-        return String.format(Locale.forLanguageTag("sv-SE"), "%.2f", value).replace('.', ',');
-    }
-
-    // Metod för att hitta billigaste sammanhängande timmar att ladda
-    private static List<Elpris> findOptimalChargingBlock(List<Elpris> priser, int hours) {
-        if (priser.size() < hours) return Collections.emptyList();
-
-        // Sortera priser i tidsordning
-        List<Elpris> sorted = new ArrayList<>(priser);
-        for (int i = 0; i < sorted.size(); i++) {
-            for (int j = i + 1; j < sorted.size(); j++) {
-                if (sorted.get(i).timeStart().isAfter(sorted.get(j).timeStart())) {
-                    Elpris temp = sorted.get(i);
-                    sorted.set(i, sorted.get(j));
-                    sorted.set(j, temp);
-                }
-            }
-        }
-
-        // Kopiera listan två gånger (för att hantera övergång från en dag till nästa)
-        List<Elpris> circular = new ArrayList<>(sorted);
-        circular.addAll(sorted);
-
-        // Leta efter den billigaste följden av "hours" antal timmar
-        double minSum = Double.MAX_VALUE;
-        int bestStartIndex = 0;
-
-        for (int i = 0; i < sorted.size(); i++) {
-            double sum = 0;
-            for (int j = 0; j < hours; j++) {
-                sum += circular.get(i + j).sekPerKWh();
-            }
-            if (sum < minSum) {
-                minSum = sum;
-                bestStartIndex = i;
-            }
-        }
-        // Returnera det billigaste blocket
-        return circular.subList(bestStartIndex, bestStartIndex + hours);
+    private static String joinZones(Set<Prisklass> zoner) {
+        StringJoiner joiner = new StringJoiner(", ");
+        zoner.forEach(zon -> joiner.add(zon.name()));
+        return joiner.toString();
     }
 }
-
-
-
-
-
-
@@ -0,0 +1,244 @@
+package com.example;
+
+import com.example.analysis.ChargingWindow;
+import com.example.api.Decimals;
+import com.example.api.ElpriserAPI;
+import com.example.api.ElpriserAPI.Prisklass;
+import com.example.api.PriceSeries;
+import com.example.api.SlotTimes;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDate;
+import java.util.Locale;
+
+/**
+ * Skriver {@link Main}s utdata som tabell, CSV eller JSON.
+ * <p>
+ * All text byggs i en återanvänd {@link StringBuilder} och skrivs till en {@link Writer}
+ * en gång, i {@link #flush()}. Ören och klockslag skrivs med egna rutiner i stället för
+ * {@code String.format} och {@code DateTimeFormatter}, så en rad skapar inga objekt;
+ * lokal tid räknas fram av en {@link SlotTimes} och decimaltal av {@link Decimals}, samma
+ * rutin som arkivets CSV använder. Tabellen är densamma som Main alltid har skrivit ut. CSV
+ * innehåller bara prisraderna; statistik och laddfönster finns i tabellen och i JSON.
+ * <p>
+ * Metoderna för tabell ({@link #text}, {@link #oere} osv.) returnerar {@code this} så att en
+ * rad kan byggas i ett uttryck. Inte trådsäker.
+ */
+final class PriceRenderer {
+
+    /** Utdataformat, valt med {@code --format}. */
+    enum Format {
+        TABLE, CSV, JSON;
+
+        /** Tolkar {@code table}, {@code csv} eller {@code json}. */
+        static Format parse(String namn) {
+            return valueOf(namn.trim().toUpperCase(Locale.ROOT));
+        }
+    }
+
+    private static final Locale SVENSKA = Locale.forLanguageTag("sv-SE");
+
+    private final Format format;
+    private final Writer out;
+    private final SlotTimes lokal = new SlotTimes(ElpriserAPI.STOCKHOLM);
+    private final StringBuilder buf = new StringBuilder(8192);
+    private Prisklass zon;
+    private boolean förstaPris;
+
+    PriceRenderer(Format format, Writer out) {
+        this.format = format;
+        this.out = out;
+    }
+
+    Format format() {
+        return format;
+    }
+
+    // --- Sektioner för en zon ---
+
+    /** Början på prislistan för en zon och ett datum. */
+    void beginPrices(Prisklass zon, LocalDate datum, int antal) {
+        this.zon = zon;
+        förstaPris = true;
+        switch (format) {
+            case TABLE -> text("Elpriser för ").text(zon.name()).text(" ").text(datum.toString())
+                    .text(" (").number(antal).text(" timmar):").newline();
+            case CSV -> text("zone,start,end,sek_per_kwh,eur_per_kwh,exr").newline();
+            case JSON -> text("{\"zone\":\"").text(zon.name()).text("\",\"date\":\"").text(datum.toString())
+                    .text("\",\"prices\":[");
+        }
+    }
+
+    /** En rad i prislistan. */
+    void price(PriceSeries serie, int i) {
+        long start = serie.startEpochSecond(i);
+        long end = serie.endEpochSecond(i);
+        switch (format) {
+            case TABLE -> slotRange(start, end).text(" ").oere(serie.sekPerKWh(i)).text(" öre").newline();
+            case CSV -> {
+                text(zon.name()).text(",");
+                lokal.appendIsoDateTime(buf, start).append(',');
+                lokal.appendIsoDateTime(buf, end).append(',');
+                decimal(serie.sekPerKWh(i)).text(",").decimal(serie.eurPerKWh(i)).text(",").decimal(serie.exr(i));
+                newline();
+            }
+            case JSON -> {
+                if (!förstaPris) buf.append(',');
+                buf.append("{\"start\":\"");
+                lokal.appendIsoDateTime(buf, start).append("\",\"end\":\"");
+                lokal.appendIsoDateTime(buf, end).append("\",\"sekPerKWh\":");
+                decimal(serie.sekPerKWh(i)).text(",\"eurPerKWh\":").decimal(serie.eurPerKWh(i))
+                        .text(",\"exr\":").decimal(serie.exr(i)).text("}");
+            }
+        }
+        förstaPris = false;
+    }
+
+    /** Slutet på prislistan. */
+    void endPrices() {
+        if (format == Format.JSON) {
+            buf.append(']');
+        }
+    }
+
+    /**
+     * Lägsta och högsta timme samt medelpris, i SEK per kWh. Timmarna anges som epoch-timmar.
+     */
+    void statistics(double minSek, long minEpochHour, double maxSek, long maxEpochHour, double meanSek) {
+        switch (format) {
+            case TABLE -> {
+                text("Lägsta pris: ").oere(minSek).text(" öre (").hourRange(minEpochHour).text(")").newline();
+                text("Högsta pris: ").oere(maxSek).text(" öre (").hourRange(maxEpochHour).text(")").newline();
+                text("Medelpris: ").oere(meanSek).text(" öre").newline();
+            }
+            case CSV -> { }
+            case JSON -> {
+                buf.append(",\"lowest\":");
+                jsonHour(minEpochHour, minSek);
+                buf.append(",\"highest\":");
+                jsonHour(maxEpochHour, maxSek);
+                text(",\"meanSekPerKWh\":").decimal(meanSek);
+            }
+        }
+    }
+
+    /** Billigaste laddfönstret för {@code timmar} timmar. */
+    void chargingWindow(int timmar, PriceSeries serie, ChargingWindow fönster) {
+        switch (format) {
+            case TABLE -> {
+                newline().text("Påbörja laddning under de ").number(timmar).text(" billigaste timmarna:").newline();
+                for (int i = fönster.from(); i < fönster.to(); i++) {
+                    text("kl ").clock(serie.startEpochSecond(i)).text(" ").oere(serie.sekPerKWh(i)).text(" öre").newline();
+                }
+                text("Medelpris för fönster: ").oere(fönster.meanSek()).text(" öre").newline();
+            }
+            case CSV -> { }
+            case JSON -> {
+                buf.append(",\"charging\":{\"hours\":").append(timmar).append(",\"start\":\"");
+                lokal.appendIsoDateTime(buf, serie.startEpochSecond(fönster.from())).append("\",\"end\":\"");
+                lokal.appendIsoDateTime(buf, serie.endEpochSecond(fönster.to() - 1)).append("\",\"meanSekPerKWh\":");
+                decimal(fönster.meanSek()).text(",\"totalSek\":").decimal(fönster.totalSek()).text("}");
+            }
+        }
+    }
+
+    /** Avslutar utdata för en zon. */
+    void end() {
+        if (format == Format.JSON) {
+            buf.append('}');
+            newline();
+        }
+    }
+
+    private void jsonHour(long epochHour, double sek) {
+        buf.append("{\"start\":\"");
+        lokal.appendIsoDateTime(buf, epochHour * 3600).append("\",\"end\":\"");
+        lokal.appendIsoDateTime(buf, (epochHour + 1) * 3600).append("\",\"sekPerKWh\":");
+        decimal(sek).text("}");
+    }
+
+    // --- Byggstenar för tabellen ---
+
+    PriceRenderer text(String text) {
+        buf.append(text);
+        return this;
+    }
+
+    PriceRenderer number(long value) {
+        buf.append(value);
+        return this;
+    }
+
+    PriceRenderer newline() {
+        buf.append('\n');
+        return this;
+    }
+
+    /**
+     * Ett pris i SEK per kWh som ören med två decimaler och decimalkomma, t.ex. "56,25".
+     * Ger samma text som {@code String.format(sv-SE, "%.2f", öre)}.
+     */
+    PriceRenderer oere(double sekPerKWh) {
+        Decimals.appendFixed(buf, sekPerKWh * 100, 2, SVENSKA, ',');
+        return this;
+    }
+
+    /** Ett tal i CSV och JSON, se {@link Decimals#appendDecimal}. */
+    PriceRenderer decimal(double value) {
+        Decimals.appendDecimal(buf, value);
+        return this;
+    }
+
+    /** T.ex. "13:15". */
+    PriceRenderer clock(long epochSecond) {
+        lokal.appendClock(buf, epochSecond);
+        return this;
+    }
+
+    /** T.ex. "2025-10-01 13:00". */
+    PriceRenderer dateTime(long epochSecond) {
+        lokal.appendDate(buf, epochSecond).append(' ');
+        lokal.appendClock(buf, epochSecond);
+        return this;
+    }
+
+    /** T.ex. "2025-10-01 13:00-14:00", med verkligt klockslag för slutet. */
+    PriceRenderer dateTimeRange(long startEpochSecond, long endEpochSecond) {
+        dateTime(startEpochSecond).buf.append('-');
+        lokal.appendClock(buf, endEpochSecond);
+        return this;
+    }
+
+    /**
+     * "13-14" för en hel timme, annars t.ex. "13:15-13:30" för kvartspriser. Slutet räknas
+     * som start plus periodens längd, så sommartidsdygn får de vanliga etiketterna:
+     * 01-02 följt av 03-04 på våren och två perioder 02-03 på hösten.
+     */
+    PriceRenderer slotRange(long startEpochSecond, long endEpochSecond) {
+        int start = lokal.secondOfDay(startEpochSecond);
+        int slut = (int) ((start + endEpochSecond - startEpochSecond) % 86_400);
+        if (start % 3600 == 0 && endEpochSecond - startEpochSecond == 3600) {
+            return twoDigits(start / 3600).text("-").twoDigits(slut / 3600);
+        }
+        return twoDigits(start / 3600).text(":").twoDigits(start / 60 % 60).text("-")
+                .twoDigits(slut / 3600).text(":").twoDigits(slut / 60 % 60);
+    }
+
+    /** T.ex. "13-14" för en epoch-timme. */
+    PriceRenderer hourRange(long epochHour) {
+        return slotRange(epochHour * 3600, (epochHour + 1) * 3600);
+    }
+
+    private PriceRenderer twoDigits(int value) {
+        buf.append((char) ('0' + value / 10)).append((char) ('0' + value % 10));
+        return this;
+    }
+
+    /** Skriver allt som byggts upp och tömmer bufferten. */
+    void flush() throws IOException {
+        out.append(buf);
+        out.flush();
+        buf.setLength(0);
+    }
+}
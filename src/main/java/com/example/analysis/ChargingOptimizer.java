@@ -0,0 +1,196 @@
+package com.example.analysis;
+
+import com.example.api.PriceSeries;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.function.IntPredicate;
+
+/**
+ * Hittar billiga tider att ladda i en tidsordnad {@link PriceSeries}.
+ * <p>
+ * Fönster räknas i seriens egen upplösning, så två timmar blir 2 rader med timpriser och
+ * 8 rader med kvartspriser. Ett sammanhängande fönster får aldrig gå över en lucka i
+ * serien, och kan begränsas till att börja tidigast vid en viss tid och vara klart
+ * senast vid en deadline. Vid lika pris vinner alltid det tidigaste alternativet.
+ */
+public final class ChargingOptimizer {
+
+    /** Ingen begränsning av tidigaste start eller deadline. */
+    public static final long UNBOUNDED_START = Long.MIN_VALUE;
+    public static final long UNBOUNDED_DEADLINE = Long.MAX_VALUE;
+
+    // Tolerans så att avrundningsfel i glidande summor inte slår ut tidigaste-vinner
+    private static final double EPSILON = 1e-9;
+
+    // Alla rader får användas
+    static final IntPredicate ALLA = i -> true;
+
+    private ChargingOptimizer() {}
+
+    /**
+     * Antal rader som behövs för att täcka en laddtid, avrundat uppåt.
+     */
+    public static int slotsFor(PriceSeries serie, Duration laddtid) {
+        long interval = serie.intervalSeconds();
+        return (int) ((laddtid.toSeconds() + interval - 1) / interval);
+    }
+
+    /**
+     * Billigaste sammanhängande fönster utan begränsningar i tid.
+     */
+    public static Optional<ChargingWindow> cheapestWindow(PriceSeries serie, Duration laddtid) {
+        return cheapestWindow(serie, laddtid, UNBOUNDED_START, UNBOUNDED_DEADLINE);
+    }
+
+    /**
+     * Hittar det billigaste sammanhängande fönstret med en glidande summa i O(n).
+     *
+     * @param serie Priser i tidsordning.
+     * @param laddtid Hur länge laddningen pågår.
+     * @param tidigastStart Fönstret får inte börja före denna tid (epoch-sekunder).
+     * @param deadline Fönstret måste vara klart senast denna tid (epoch-sekunder).
+     * @return Det billigaste fönstret, eller tomt om inget fönster ryms.
+     */
+    public static Optional<ChargingWindow> cheapestWindow(PriceSeries serie, Duration laddtid,
+                                                          long tidigastStart, long deadline) {
+        int k = slotsFor(serie, laddtid);
+        if (k <= 0) {
+            throw new IllegalArgumentException("Laddtiden måste vara positiv: " + laddtid);
+        }
+        return cheapestWindow(serie, k, serie.ceilingIndex(tidigastStart), deadlineIndex(serie, deadline), ALLA);
+    }
+
+    /**
+     * Billigaste fönster om {@code k} rader inom {@code [from, to)} där alla rader är
+     * {@code ledig}; en upptagen rad bryter fönstret som en lucka i serien.
+     */
+    static Optional<ChargingWindow> cheapestWindow(PriceSeries serie, int k, int from, int to, IntPredicate ledig) {
+        long interval = serie.intervalSeconds();
+
+        double bestSum = Double.POSITIVE_INFINITY;
+        int bestStart = -1;
+        double sum = 0;
+        int runStart = from; // början på nuvarande lucklösa sträcka
+        for (int i = from; i < to; i++) {
+            if (!ledig.test(i)) {
+                runStart = i + 1;
+                sum = 0;
+                continue;
+            }
+            if (i > runStart && serie.startEpochSecond(i) != serie.startEpochSecond(i - 1) + interval) {
+                // Lucka i serien: börja om fönstret här
+                runStart = i;
+                sum = 0;
+            }
+            sum += serie.sekPerKWh(i);
+            if (i - runStart >= k) {
+                sum -= serie.sekPerKWh(i - k);
+            }
+            if (i - runStart + 1 >= k && sum < bestSum - EPSILON) {
+                bestSum = sum;
+                bestStart = i - k + 1;
+            }
+        }
+        if (bestStart < 0) {
+            return Optional.empty();
+        }
+        // Räkna om summan exakt för det valda fönstret
+        return Optional.of(new ChargingWindow(bestStart, bestStart + k, serie.sumSek(bestStart, bestStart + k)));
+    }
+
+    /**
+     * Väljer de {@code antal} billigaste raderna, oavsett om de ligger intill varandra.
+     * Använder en begränsad max-heap, O(n log k), i stället för att sortera hela serien.
+     *
+     * @return Radernas index i tidsordning; färre än {@code antal} om serien är för kort.
+     */
+    public static int[] cheapestSlots(PriceSeries serie, int antal, long tidigastStart, long deadline) {
+        if (antal <= 0) {
+            return new int[0];
+        }
+        return cheapestSlots(serie, antal, serie.ceilingIndex(tidigastStart), deadlineIndex(serie, deadline), ALLA);
+    }
+
+    /**
+     * De {@code antal} billigaste raderna inom {@code [from, to)} bland dem som är {@code ledig}.
+     */
+    static int[] cheapestSlots(PriceSeries serie, int antal, int from, int to, IntPredicate ledig) {
+        // Max-heap på (pris, index): roten är den dyraste (och vid lika pris senaste) av de valda
+        int[] heap = new int[Math.min(antal, Math.max(0, to - from))];
+        int size = 0;
+        for (int i = from; i < to; i++) {
+            if (!ledig.test(i)) {
+                continue;
+            }
+            if (size < heap.length) {
+                heap[size] = i;
+                siftUp(serie, heap, size++);
+            } else if (size > 0 && worse(serie, heap[0], i)) {
+                heap[0] = i;
+                siftDown(serie, heap, 0, size);
+            }
+        }
+        int[] valda = Arrays.copyOf(heap, size);
+        Arrays.sort(valda);
+        return valda;
+    }
+
+    /**
+     * Väljer de {@code antal} billigaste raderna ur en redan byggd {@link PriceOrder},
+     * utan tidsbegränsningar. Kostar bara O(k log k) när ordningen redan finns.
+     *
+     * @return Radernas index i tidsordning; färre än {@code antal} om serien är för kort.
+     */
+    public static int[] cheapestSlots(PriceOrder ordning, int antal) {
+        int[] valda = new int[Math.max(0, Math.min(antal, ordning.size()))];
+        for (int i = 0; i < valda.length; i++) {
+            valda[i] = ordning.ascending(i);
+        }
+        Arrays.sort(valda);
+        return valda;
+    }
+
+    /** Första index vars rad inte hinner bli klar före deadline. */
+    static int deadlineIndex(PriceSeries serie, long deadline) {
+        if (deadline == UNBOUNDED_DEADLINE) {
+            return serie.size();
+        }
+        return serie.ceilingIndex(deadline - serie.intervalSeconds() + 1);
+    }
+
+    // Sant om rad a är "sämre" (dyrare, eller lika dyr men senare) än rad b
+    private static boolean worse(PriceSeries serie, int a, int b) {
+        double pa = serie.sekPerKWh(a);
+        double pb = serie.sekPerKWh(b);
+        return pa > pb || (pa == pb && a > b);
+    }
+
+    private static void siftUp(PriceSeries serie, int[] heap, int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!worse(serie, heap[i], heap[parent])) break;
+            swap(heap, i, parent);
+            i = parent;
+        }
+    }
+
+    private static void siftDown(PriceSeries serie, int[] heap, int i, int size) {
+        while (true) {
+            int left = 2 * i + 1;
+            if (left >= size) break;
+            int right = left + 1;
+            int worst = right < size && worse(serie, heap[right], heap[left]) ? right : left;
+            if (!worse(serie, heap[worst], heap[i])) break;
+            swap(heap, i, worst);
+            i = worst;
+        }
+    }
+
+    private static void swap(int[] a, int i, int j) {
+        int t = a[i];
+        a[i] = a[j];
+        a[j] = t;
+    }
+}
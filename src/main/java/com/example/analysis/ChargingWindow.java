@@ -0,0 +1,23 @@
+package com.example.analysis;
+
+import com.example.api.PriceSeries;
+
+/**
+ * Ett sammanhängande laddfönster i en {@link PriceSeries}: raderna {@code [from, to)}.
+ *
+ * @param from Index för fönstrets första rad.
+ * @param to Index direkt efter fönstrets sista rad.
+ * @param totalSek Summan av radernas SEK-priser per kWh.
+ */
+public record ChargingWindow(int from, int to, double totalSek) {
+
+    /** Antal rader i fönstret. */
+    public int size() {
+        return to - from;
+    }
+
+    /** Medelpriset i SEK per kWh över fönstret. */
+    public double meanSek() {
+        return totalSek / size();
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.analysis;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * En förbrukningsprofil för {@link CostSimulation}: en fast last som upprepas varje dygn,
+ * och eventuellt en elbil som laddas varje natt.
+ * <p>
+ * Den fasta lasten anges per lika lång del av dygnet i lokal tid, t.ex. 24 timvärden eller
+ * 96 kvartsvärden, och fördelas på prisseriens egen upplösning: en timme delas lika på
+ * fyra kvartspriser och fyra kvartar summeras till ett timpris.
+ *
+ * @param name Namn, bara för utskrift.
+ * @param kWhPerSlot Förbrukning i kWh per del av dygnet; längden måste dela ett dygn jämnt.
+ *                   Arrayen kopieras in och ut, och två profiler jämförs på innehållet.
+ * @param chargeKWhPerDay Energi som elbilen laddar varje dygn, eller 0 utan elbil.
+ * @param chargerKw Laddeffekten i kW.
+ * @param plugInHour Lokal timme (0–23) då bilen kopplas in.
+ * @param plugOutHour Lokal timme (0–23) då laddningen senast ska vara klar; ligger den inte
+ *                    efter {@code plugInHour} är det nästa dag.
+ */
+public record ConsumptionProfile(String name, double[] kWhPerSlot, double chargeKWhPerDay, double chargerKw,
+                                 int plugInHour, int plugOutHour) {
+
+    private static final int SEKUNDER_PER_DYGN = 86_400;
+
+    public ConsumptionProfile {
+        Objects.requireNonNull(name, "name");
+        Objects.requireNonNull(kWhPerSlot, "kWhPerSlot");
+        if (kWhPerSlot.length == 0 || SEKUNDER_PER_DYGN % kWhPerSlot.length != 0) {
+            throw new IllegalArgumentException("Profilen måste dela ett dygn jämnt: " + kWhPerSlot.length + " värden");
+        }
+        kWhPerSlot = kWhPerSlot.clone();
+        for (double kWh : kWhPerSlot) {
+            if (!(kWh >= 0) || Double.isInfinite(kWh)) {
+                throw new IllegalArgumentException("Förbrukningen får inte vara negativ: " + kWh);
+            }
+        }
+        if (!(chargeKWhPerDay >= 0) || Double.isInfinite(chargeKWhPerDay)) {
+            throw new IllegalArgumentException("Laddenergin får inte vara negativ: " + chargeKWhPerDay);
+        }
+        if (chargeKWhPerDay > 0 && (!(chargerKw > 0) || Double.isInfinite(chargerKw))) {
+            throw new IllegalArgumentException("Laddeffekten måste vara positiv: " + chargerKw);
+        }
+        if (plugInHour < 0 || plugInHour > 23 || plugOutHour < 0 || plugOutHour > 23) {
+            throw new IllegalArgumentException("Timmarna måste ligga i 0–23: " + plugInHour + ", " + plugOutHour);
+        }
+    }
+
+    /** En kopia av förbrukningen per del av dygnet. */
+    @Override
+    public double[] kWhPerSlot() {
+        return kWhPerSlot.clone();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof ConsumptionProfile p
+                && name.equals(p.name)
+                && Arrays.equals(kWhPerSlot, p.kWhPerSlot)
+                && Double.compare(chargeKWhPerDay, p.chargeKWhPerDay) == 0
+                && Double.compare(chargerKw, p.chargerKw) == 0
+                && plugInHour == p.plugInHour
+                && plugOutHour == p.plugOutHour;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(name, Arrays.hashCode(kWhPerSlot), chargeKWhPerDay, chargerKw, plugInHour, plugOutHour);
+    }
+
+    @Override
+    public String toString() {
+        return "ConsumptionProfile[name=" + name + ", kWhPerSlot=" + Arrays.toString(kWhPerSlot)
+                + ", chargeKWhPerDay=" + chargeKWhPerDay + ", chargerKw=" + chargerKw
+                + ", plugInHour=" + plugInHour + ", plugOutHour=" + plugOutHour + "]";
+    }
+
+    /** En profil utan elbil. */
+    public static ConsumptionProfile of(String name, double[] kWhPerSlot) {
+        return new ConsumptionProfile(name, kWhPerSlot, 0, 0, 0, 0);
+    }
+
+    /** En profil utan elbil, med samma förbrukning varje timme. */
+    public static ConsumptionProfile flat(String name, double kWhPerDay) {
+        double[] timmar = new double[24];
+        Arrays.fill(timmar, kWhPerDay / 24);
+        return of(name, timmar);
+    }
+
+    /** Samma fasta last, plus en elbil som laddar {@code kWh} per natt med {@code kw}. */
+    public ConsumptionProfile withCharging(double kWh, double kw, int plugInHour, int plugOutHour) {
+        return new ConsumptionProfile(name, kWhPerSlot, kWh, kw, plugInHour, plugOutHour);
+    }
+
+    /** Sant om profilen har en elbil. */
+    public boolean charges() {
+        return chargeKWhPerDay > 0;
+    }
+
+    /** Den fasta lastens förbrukning per dygn i kWh. */
+    public double kWhPerDay() {
+        double summa = 0;
+        for (double kWh : kWhPerSlot) {
+            summa += kWh;
+        }
+        return summa;
+    }
+
+    /**
+     * Den fasta lastens förbrukning i kWh under {@code längd} sekunder från
+     * {@code sekundIDygnet} lokal tid. Intervallet får inte gå över midnatt.
+     */
+    double kWh(int sekundIDygnet, int längd) {
+        int delLängd = SEKUNDER_PER_DYGN / kWhPerSlot.length;
+        int del = sekundIDygnet / delLängd;
+        if (längd <= delLängd && sekundIDygnet + längd <= (del + 1) * delLängd) {
+            // Ryms i en del, det vanliga fallet när profilen är lika fin som serien eller grövre
+            return kWhPerSlot[del] * längd / delLängd;
+        }
+        double summa = 0;
+        int slut = Math.min(sekundIDygnet + längd, SEKUNDER_PER_DYGN);
+        for (int s = sekundIDygnet; s < slut; ) {
+            int d = s / delLängd;
+            int nästa = Math.min((d + 1) * delLängd, slut);
+            summa += kWhPerSlot[d] * (nästa - s) / delLängd;
+            s = nästa;
+        }
+        return summa;
+    }
+}
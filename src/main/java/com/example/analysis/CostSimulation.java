@@ -0,0 +1,247 @@
+package com.example.analysis;
+
+import com.example.api.DateRange;
+import com.example.api.ElpriserAPI;
+import com.example.api.ElpriserAPI.Prisklass;
+import com.example.api.PriceSeries;
+import com.example.api.SlotTimes;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Räknar ut vad förbrukningsprofiler hade kostat historiskt i en eller flera prisklasser,
+ * med elbilen laddad direkt vid inkoppling respektive i nattens billigaste fönster.
+ * <p>
+ * Intervallet delas upp per zon och kalendermånad, och delarna räknas parallellt på en
+ * {@link ForkJoinPool}. Varje del hämtar bara sin månads priser (plus dagen efter, för
+ * natten som går över månadsskiftet) med {@link ElpriserAPI#getPriceSeries(DateRange, Prisklass)}
+ * och räknar alla profiler i samma pass, så minnet begränsas av en månad per tråd och
+ * API:ets cache, oavsett hur många år som simuleras. Det smarta fönstret är det
+ * sammanhängande block under natten som kostar minst, räknat som laddningen faktiskt
+ * görs: full effekt i alla rader utom den sista, som bara laddar resten. Att ladda direkt
+ * är ett av blocken, så smart laddning kostar aldrig mer.
+ * <p>
+ * Flera års historik hämtas lämpligen en gång till ett arkiv och körs sedan utan nätverk
+ * med {@code ElpriserAPI.builder().source(PriceSource.replay(katalog))}.
+ * <p>
+ * Dagar utan priser hoppas över och räknas i {@link Cost#missingDays()}. En natt där
+ * priser saknas någon gång mellan in- och urkoppling, t.ex. för att nästa dag inte är
+ * publicerad, räknas i
+ * {@link Cost#missedCharges()} och ingår inte i laddkostnaderna.
+ */
+public final class CostSimulation {
+
+    /**
+     * Kostnaden för en profil under en period.
+     *
+     * @param days Dagar med priser.
+     * @param missingDays Dagar utan priser.
+     * @param baseKWh Den fasta lastens förbrukning.
+     * @param baseSek Den fasta lastens kostnad.
+     * @param chargingKWh Laddad energi, för de nätter som gick att räkna.
+     * @param immediateChargingSek Laddkostnad när bilen laddar direkt vid inkoppling.
+     * @param smartChargingSek Laddkostnad i nattens billigaste sammanhängande fönster.
+     * @param missedCharges Nätter som inte hade priser från inkoppling till urkoppling.
+     */
+    public record Cost(int days, int missingDays, double baseKWh, double baseSek, double chargingKWh,
+                       double immediateChargingSek, double smartChargingSek, int missedCharges) {
+
+        public static final Cost ZERO = new Cost(0, 0, 0, 0, 0, 0, 0, 0);
+
+        public Cost plus(Cost o) {
+            return new Cost(days + o.days, missingDays + o.missingDays, baseKWh + o.baseKWh, baseSek + o.baseSek,
+                    chargingKWh + o.chargingKWh, immediateChargingSek + o.immediateChargingSek,
+                    smartChargingSek + o.smartChargingSek, missedCharges + o.missedCharges);
+        }
+
+        /** Total förbrukning i kWh. */
+        public double totalKWh() {
+            return baseKWh + chargingKWh;
+        }
+
+        /** Total kostnad med laddning direkt vid inkoppling. */
+        public double immediateTotalSek() {
+            return baseSek + immediateChargingSek;
+        }
+
+        /** Total kostnad med smart laddning. */
+        public double smartTotalSek() {
+            return baseSek + smartChargingSek;
+        }
+
+        /** Vad smart laddning sparade jämfört med att ladda direkt. */
+        public double savingsSek() {
+            return immediateChargingSek - smartChargingSek;
+        }
+    }
+
+    /**
+     * Resultatet för en profil i en zon.
+     *
+     * @param perMonth Kostnaden per kalendermånad i stigande ordning.
+     */
+    public record Result(ConsumptionProfile profile, Prisklass zone, Cost total, SortedMap<YearMonth, Cost> perMonth) {}
+
+    // En zon och en månad, klippt till intervallet
+    private record Part(Prisklass zone, LocalDate from, LocalDate to) {}
+
+    private static final SlotTimes LOKAL = new SlotTimes(ElpriserAPI.STOCKHOLM);
+
+    // Tolerans när laddenergin räknas om till rader, så att t.ex. 11 kW × 1 h inte blir 2 rader
+    private static final double EPSILON = 1e-9;
+
+    private CostSimulation() {}
+
+    /** Simulerar på {@link ForkJoinPool#commonPool()}. */
+    public static List<Result> run(ElpriserAPI api, DateRange intervall, Set<Prisklass> zoner,
+                                   List<ConsumptionProfile> profiler) {
+        return run(api, intervall, zoner, profiler, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Simulerar profilerna i varje zon över intervallet.
+     *
+     * @param api Källan till priserna; anropas samtidigt från flera trådar.
+     * @param intervall Dagarna som ska räknas, i svensk tid.
+     * @param zoner Prisklasserna.
+     * @param profiler Förbrukningsprofilerna.
+     * @param pool Poolen som delarna räknas på.
+     * @return Ett resultat per profil och zon, profil för profil och zonerna i {@link Prisklass}-ordning.
+     */
+    public static List<Result> run(ElpriserAPI api, DateRange intervall, Set<Prisklass> zoner,
+                                   List<ConsumptionProfile> profiler, ForkJoinPool pool) {
+        if (zoner.isEmpty() || profiler.isEmpty()) {
+            return List.of();
+        }
+        List<Prisklass> ordnade = List.copyOf(EnumSet.copyOf(zoner));
+        List<Part> delar = new ArrayList<>();
+        for (Prisklass zon : ordnade) {
+            for (LocalDate från = intervall.from(); !från.isAfter(intervall.to()); ) {
+                LocalDate sista = YearMonth.from(från).atEndOfMonth();
+                if (sista.isAfter(intervall.to())) {
+                    sista = intervall.to();
+                }
+                delar.add(new Part(zon, från, sista));
+                från = sista.plusDays(1);
+            }
+        }
+
+        // Parallell ström inne i poolen, så att delarna körs där och inte på common pool
+        List<Cost[]> perDel = pool.submit(() -> delar.parallelStream()
+                .map(del -> simulate(api.getPriceSeries(new DateRange(del.from(), del.to().plusDays(1)), del.zone()),
+                        del.from(), del.to(), profiler))
+                .toList()).join();
+
+        List<Result> resultat = new ArrayList<>(profiler.size() * ordnade.size());
+        for (int p = 0; p < profiler.size(); p++) {
+            for (Prisklass zon : ordnade) {
+                SortedMap<YearMonth, Cost> perMånad = new TreeMap<>();
+                Cost totalt = Cost.ZERO;
+                for (int d = 0; d < delar.size(); d++) {
+                    Part del = delar.get(d);
+                    if (del.zone() != zon) continue;
+                    Cost kostnad = perDel.get(d)[p];
+                    perMånad.merge(YearMonth.from(del.from()), kostnad, Cost::plus);
+                    totalt = totalt.plus(kostnad);
+                }
+                resultat.add(new Result(profiler.get(p), zon, totalt, Collections.unmodifiableSortedMap(perMånad)));
+            }
+        }
+        return List.copyOf(resultat);
+    }
+
+    /**
+     * Räknar alla profiler mot en serie för dagarna {@code [först, sist]}. Serien får
+     * sträcka sig längre; rader utanför dagarna används bara för laddning över natten.
+     *
+     * @return En kostnad per profil, i samma ordning.
+     */
+    static Cost[] simulate(PriceSeries serie, LocalDate först, LocalDate sist, List<ConsumptionProfile> profiler) {
+        int n = profiler.size();
+        ConsumptionProfile[] profil = profiler.toArray(new ConsumptionProfile[0]);
+        double[] basKWh = new double[n];
+        double[] basSek = new double[n];
+        double[] laddKWh = new double[n];
+        double[] direktSek = new double[n];
+        double[] smartSek = new double[n];
+        int[] missade = new int[n];
+
+        // Den fasta lasten, rad för rad
+        long förstaDag = först.toEpochDay();
+        long sistaDag = sist.toEpochDay();
+        int längd = serie.intervalSeconds();
+        int dagar = 0;
+        long föregående = Long.MIN_VALUE;
+        for (int i = 0; i < serie.size(); i++) {
+            long start = serie.startEpochSecond(i);
+            long dag = LOKAL.epochDay(start);
+            if (dag < förstaDag || dag > sistaDag) continue;
+            if (dag != föregående) {
+                dagar++;
+                föregående = dag;
+            }
+            int sekund = LOKAL.secondOfDay(start);
+            double pris = serie.sekPerKWh(i);
+            for (int p = 0; p < n; p++) {
+                double kWh = profil[p].kWh(sekund, längd);
+                basKWh[p] += kWh;
+                basSek[p] += kWh * pris;
+            }
+        }
+
+        // Elbilen, natt för natt
+        double timmarPerRad = längd / 3600.0;
+        for (int p = 0; p < n; p++) {
+            ConsumptionProfile pr = profil[p];
+            if (!pr.charges()) continue;
+            double perRad = pr.chargerKw() * timmarPerRad;
+            int k = (int) Math.ceil(pr.chargeKWhPerDay() / perRad - EPSILON);
+            // Energin i sista raden; de övriga laddas med full effekt
+            double sistaRad = pr.chargeKWhPerDay() - (k - 1) * perRad;
+            for (LocalDate d = först; !d.isAfter(sist); d = d.plusDays(1)) {
+                long in = d.atTime(pr.plugInHour(), 0).atZone(ElpriserAPI.STOCKHOLM).toEpochSecond();
+                LocalDate utDag = pr.plugOutHour() > pr.plugInHour() ? d : d.plusDays(1);
+                long ut = utDag.atTime(pr.plugOutHour(), 0).atZone(ElpriserAPI.STOCKHOLM).toEpochSecond();
+                int from = serie.ceilingIndex(in);
+                int to = ChargingOptimizer.deadlineIndex(serie, ut);
+                // Båda strategierna ska välja ur samma natt, så hela natten måste ha priser utan lucka
+                if (to - from < k || serie.startEpochSecond(from) != in || serie.endEpochSecond(to - 1) != ut
+                        || !serie.isContiguous(from, to)) {
+                    missade[p]++;
+                    continue;
+                }
+                // Varje start under natten prövas med den faktiska kostnaden; summan av k rader
+                // räcker inte, eftersom sista raden bara laddar resten
+                double direkt = blockSek(serie, from, k, perRad, sistaRad);
+                double smart = direkt;
+                for (int a = from + 1; a + k <= to; a++) {
+                    smart = Math.min(smart, blockSek(serie, a, k, perRad, sistaRad));
+                }
+                laddKWh[p] += pr.chargeKWhPerDay();
+                direktSek[p] += direkt;
+                smartSek[p] += smart;
+            }
+        }
+
+        int saknade = (int) (sistaDag - förstaDag + 1) - dagar;
+        Cost[] kostnad = new Cost[n];
+        for (int p = 0; p < n; p++) {
+            kostnad[p] = new Cost(dagar, saknade, basKWh[p], basSek[p], laddKWh[p], direktSek[p], smartSek[p], missade[p]);
+        }
+        return kostnad;
+    }
+
+    // Kostnaden för k rader från a, med full energi utom i sista raden
+    private static double blockSek(PriceSeries serie, int a, int k, double perRad, double sistaRad) {
+        return serie.sumSek(a, a + k) * perRad - (perRad - sistaRad) * serie.sekPerKWh(a + k - 1);
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.analysis;
+
+import com.example.api.PriceSeries;
+import com.example.api.SlotTimes;
+
+import java.time.ZoneId;
+import java.util.Collections;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Statistik per grupp (timme, dag eller timme på dygnet) plus en total, byggd i ett pass.
+ * <p>
+ * Nya dagar kan läggas till när de kommer in; bara de nya raderna behandlas. Varje grupp
+ * är en {@link PriceStatistics}, så inga listor av priser byggs upp. Statistik per zon
+ * fås genom att hålla en instans per {@code Prisklass}.
+ */
+public final class GroupedStatistics {
+
+    /** Hur rader delas in i grupper. Nycklarna är tal så att de kan sorteras och jämföras billigt. */
+    public enum Grouping {
+        /**
+         * En grupp per faktisk timme; nyckeln är epoch-timmen (UTC). De svenska
+         * tidszonerna har hela timmar som offset, så timmarna sammanfaller med lokala
+         * timmar, men de två 02-timmarna en höstnatt hålls isär.
+         */
+        HOUR,
+        /** En grupp per lokal kalenderdag; nyckeln är epoch-dagen. */
+        DAY,
+        /** En grupp per timme på dygnet (0–23) över alla dagar. */
+        HOUR_OF_DAY
+    }
+
+    private final Grouping grouping;
+    private final SlotTimes localTime;
+    private final PriceStatistics total = new PriceStatistics();
+    private final TreeMap<Long, PriceStatistics> groups = new TreeMap<>();
+
+    public GroupedStatistics(Grouping grouping, ZoneId zone) {
+        this.grouping = grouping;
+        this.localTime = new SlotTimes(zone);
+    }
+
+    /** Bygger statistik för en hel serie. */
+    public static GroupedStatistics of(PriceSeries serie, Grouping grouping, ZoneId zone) {
+        GroupedStatistics stats = new GroupedStatistics(grouping, zone);
+        stats.addAll(serie);
+        return stats;
+    }
+
+    /** Lägger till en rad i dess grupp och i totalen. */
+    public void add(long epochSecond, double value) {
+        total.add(epochSecond, value);
+        groups.computeIfAbsent(key(epochSecond), k -> new PriceStatistics()).add(epochSecond, value);
+    }
+
+    public void addAll(PriceSeries serie) {
+        for (int i = 0; i < serie.size(); i++) {
+            add(serie.startEpochSecond(i), serie.sekPerKWh(i));
+        }
+    }
+
+    public Grouping grouping() {
+        return grouping;
+    }
+
+    /** Statistik över alla rader oavsett grupp. */
+    public PriceStatistics total() {
+        return total;
+    }
+
+    /** Grupperna i nyckelordning, dvs. tidsordning för {@code HOUR} och {@code DAY}. */
+    public NavigableMap<Long, PriceStatistics> groups() {
+        return Collections.unmodifiableNavigableMap(groups);
+    }
+
+    /** Gruppnyckeln för en tidpunkt, enligt grupperingen. */
+    public long key(long epochSecond) {
+        return switch (grouping) {
+            case HOUR -> Math.floorDiv(epochSecond, 3600);
+            case DAY -> localTime.epochDay(epochSecond);
+            case HOUR_OF_DAY -> localTime.hour(epochSecond);
+        };
+    }
+
+    /**
+     * Gruppen med lägst medelvärde; vid lika den med lägst nyckel (tidigast).
+     * @return Gruppens nyckel, eller {@code Long.MIN_VALUE} om inga rader lagts till.
+     */
+    public long cheapestGroup() {
+        long best = Long.MIN_VALUE;
+        double bestMean = Double.POSITIVE_INFINITY;
+        for (var e : groups.entrySet()) {
+            if (e.getValue().mean() < bestMean) {
+                bestMean = e.getValue().mean();
+                best = e.getKey();
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Gruppen med högst medelvärde; vid lika den med lägst nyckel (tidigast).
+     * @return Gruppens nyckel, eller {@code Long.MIN_VALUE} om inga rader lagts till.
+     */
+    public long mostExpensiveGroup() {
+        long best = Long.MIN_VALUE;
+        double bestMean = Double.NEGATIVE_INFINITY;
+        for (var e : groups.entrySet()) {
+            if (e.getValue().mean() > bestMean) {
+                bestMean = e.getValue().mean();
+                best = e.getKey();
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.analysis;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * En last som ska köras en gång inom ett tidsfönster, t.ex. en elbilsladdning, en bastu
+ * eller en värmepump, se {@link LoadScheduler}.
+ *
+ * @param name Namn, bara för utskrift.
+ * @param powerKw Effekten medan lasten körs, i kW.
+ * @param duration Hur länge lasten körs; avrundas uppåt till hela rader i serien.
+ * @param earliestStart Tidigaste start (epoch-sekunder), eller {@link ChargingOptimizer#UNBOUNDED_START}.
+ * @param deadline När lasten senast ska vara klar (epoch-sekunder), eller
+ *                 {@link ChargingOptimizer#UNBOUNDED_DEADLINE}.
+ * @param interruptible Om lasten får delas upp på rader som inte ligger intill varandra,
+ *                      som en elbil; annars körs den i ett sammanhängande block, som en bastu.
+ */
+public record LoadJob(String name, double powerKw, Duration duration, long earliestStart, long deadline,
+                      boolean interruptible) {
+
+    public LoadJob {
+        Objects.requireNonNull(name, "name");
+        Objects.requireNonNull(duration, "duration");
+        if (!(powerKw > 0) || Double.isInfinite(powerKw)) {
+            throw new IllegalArgumentException("Effekten måste vara positiv: " + powerKw);
+        }
+        if (duration.isNegative() || duration.isZero()) {
+            throw new IllegalArgumentException("Tiden måste vara positiv: " + duration);
+        }
+        if (deadline <= earliestStart) {
+            throw new IllegalArgumentException("Deadline måste ligga efter tidigaste start");
+        }
+    }
+
+    /** En sammanhängande last utan begränsningar i tid. */
+    public static LoadJob of(String name, double powerKw, Duration duration) {
+        return new LoadJob(name, powerKw, duration, ChargingOptimizer.UNBOUNDED_START,
+                ChargingOptimizer.UNBOUNDED_DEADLINE, false);
+    }
+
+    /** Samma last, men bara inom {@code [earliestStart, deadline)}. */
+    public LoadJob between(long earliestStart, long deadline) {
+        return new LoadJob(name, powerKw, duration, earliestStart, deadline, interruptible);
+    }
+
+    /** Samma last, men den får delas upp. */
+    public LoadJob asInterruptible() {
+        return new LoadJob(name, powerKw, duration, earliestStart, deadline, true);
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.analysis;
+
+import java.util.List;
+
+/**
+ * En plan från {@link LoadScheduler}: var varje last körs och vad det kostar.
+ *
+ * @param placements De laster som fick plats, i den ordning de gavs.
+ * @param unscheduled Laster som inte ryms inom sitt fönster under effekttaket.
+ * @param totalSek Kostnaden i SEK för de placerade lasterna.
+ * @param lowerBoundSek Summan av de placerade lasternas billigaste placering var för sig,
+ *                      utan effekttak. Ingen plan för samma laster kan bli billigare.
+ */
+public record LoadSchedule(List<Placement> placements, List<LoadJob> unscheduled, double totalSek,
+                           double lowerBoundSek) {
+
+    /**
+     * En placerad last.
+     *
+     * @param slots Radernas index i serien, i tidsordning. Ändra inte arrayen.
+     * @param costSek Pris gånger effekt gånger tid, summerat över raderna.
+     */
+    public record Placement(LoadJob job, int[] slots, double costSek) {}
+
+    /** Sant om alla laster fick plats. */
+    public boolean isComplete() {
+        return unscheduled.isEmpty();
+    }
+
+    /** Hur mycket dyrare planen högst kan vara än den bästa möjliga. */
+    public double gapSek() {
+        return totalSek - lowerBoundSek;
+    }
+
+    /**
+     * Sant om planen bevisligen är optimal: alla laster fick plats och effekttaket
+     * kostade ingenting jämfört med att planera varje last för sig.
+     */
+    public boolean isOptimal() {
+        return isComplete() && gapSek() <= 1e-9 * Math.max(1, Math.abs(totalSek));
+    }
+}
@@ -0,0 +1,387 @@
+package com.example.analysis;
+
+import com.example.analysis.LoadSchedule.Placement;
+import com.example.api.PriceSeries;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntPredicate;
+
+/**
+ * Planerar flera laster i ett hushåll mot en prisserie under ett gemensamt effekttak,
+ * t.ex. huvudsäkringen: summan av effekterna som körs samtidigt får aldrig överstiga taket.
+ * <p>
+ * Att hitta den billigaste planen exakt är ett packningsproblem, så planen byggs girigt:
+ * lasterna placeras en i taget på sin billigaste lediga plats med samma sökning som
+ * {@link ChargingOptimizer}, där rader utan tillräcklig kvarvarande effekt räknas som
+ * upptagna. Två ordningar provas (sammanhängande laster först, respektive störst energi
+ * först), och sedan flyttas varje last till sin billigaste plats givet de övriga tills
+ * inget förbättras. När två laster flyttas tillsammans och den andra inte får plats prövas
+ * den förstas alla fönster, och lämnar båda ordningarna någon last utan plats prövas alla
+ * ordningar för upp till fem laster. Som gräns räknas varje lasts billigaste placering
+ * utan tak; når planen den är den optimal, annars anger {@link LoadSchedule#gapSek()} hur
+ * långt ifrån den högst kan vara.
+ * <p>
+ * En plan kostar O(passager × laster × rader), så ett hushåll med några laster över två
+ * dygns kvartspriser tar mikrosekunder. {@link #scheduleAll} fördelar många hushåll på
+ * en {@link ForkJoinPool}. Serierna ändras aldrig och kan delas mellan hushåll.
+ */
+public final class LoadScheduler {
+
+    /** Ett hushålls priser, laster och effekttak, för {@link #scheduleAll}. */
+    public record Household(PriceSeries prices, List<LoadJob> jobs, double powerCapKw) {}
+
+    // Tolerans för effekt och kostnad, så att avrundningsfel inte ger falska förbättringar
+    private static final double EPSILON = 1e-9;
+
+    // Övre gräns för antal förbättringspassager över alla laster
+    private static final int MAX_PASSES = 4;
+
+    // Så här få laster prövas i alla ordningar när de två vanliga lämnar någon utan plats
+    private static final int MAX_PERMUTED = 5;
+
+    // Så här få hushåll löses direkt i stället för att delas vidare
+    private static final int SEQUENTIAL_THRESHOLD = 16;
+
+    // Sammanhängande laster först, sedan störst energi, sedan snävast fönster
+    private static final Comparator<Plan.Job> CONTIGUOUS_FIRST = Comparator
+            .comparing((Plan.Job j) -> j.job.interruptible())
+            .thenComparing(Comparator.comparingDouble((Plan.Job j) -> j.energy).reversed())
+            .thenComparingInt(j -> j.to - j.from);
+
+    // Störst energi först, sedan snävast fönster
+    private static final Comparator<Plan.Job> LARGEST_FIRST = Comparator
+            .comparingDouble((Plan.Job j) -> j.energy).reversed()
+            .thenComparingInt(j -> j.to - j.from);
+
+    private LoadScheduler() {}
+
+    /**
+     * Planerar lasterna mot serien.
+     *
+     * @param serie Priser i tidsordning.
+     * @param jobb Lasterna; en last som inte ryms alls hamnar i {@link LoadSchedule#unscheduled()}.
+     * @param effekttakKw Högsta sammanlagda effekt per rad, i kW.
+     */
+    public static LoadSchedule schedule(PriceSeries serie, List<LoadJob> jobb, double effekttakKw) {
+        if (!(effekttakKw > 0)) {
+            throw new IllegalArgumentException("Effekttaket måste vara positivt: " + effekttakKw);
+        }
+        Plan a = new Plan(serie, jobb, effekttakKw);
+        a.solve(CONTIGUOUS_FIRST);
+        Plan b = new Plan(serie, jobb, effekttakKw);
+        b.solve(LARGEST_FIRST);
+        Plan bäst = b.isBetterThan(a) ? b : a;
+        if (bäst.placedCount < jobb.size() && jobb.size() <= MAX_PERMUTED) {
+            // Någon last fick inte plats: med få laster går det att pröva varje ordning
+            int[] rang = new int[jobb.size()];
+            for (int i = 0; i < rang.length; i++) rang[i] = i;
+            do {
+                Plan p = new Plan(serie, jobb, effekttakKw);
+                p.solve(Comparator.comparingInt((Plan.Job j) -> rang[j.index]));
+                if (p.isBetterThan(bäst)) {
+                    bäst = p;
+                }
+            } while (bäst.placedCount < jobb.size() && nextPermutation(rang));
+        }
+        return bäst.result();
+    }
+
+    // Nästa permutation i lexikografisk ordning, eller falskt efter den sista
+    private static boolean nextPermutation(int[] a) {
+        int i = a.length - 2;
+        while (i >= 0 && a[i] >= a[i + 1]) i--;
+        if (i < 0) {
+            return false;
+        }
+        int j = a.length - 1;
+        while (a[j] <= a[i]) j--;
+        int t = a[i]; a[i] = a[j]; a[j] = t;
+        for (int l = i + 1, r = a.length - 1; l < r; l++, r--) {
+            t = a[l]; a[l] = a[r]; a[r] = t;
+        }
+        return true;
+    }
+
+    /** Planerar många hushåll parallellt på {@link ForkJoinPool#commonPool()}. */
+    public static List<LoadSchedule> scheduleAll(List<Household> hushåll) {
+        return scheduleAll(hushåll, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Planerar många hushåll parallellt på {@code pool}.
+     *
+     * @return En plan per hushåll, i samma ordning.
+     */
+    public static List<LoadSchedule> scheduleAll(List<Household> hushåll, ForkJoinPool pool) {
+        Household[] in = hushåll.toArray(new Household[0]);
+        LoadSchedule[] ut = new LoadSchedule[in.length];
+        pool.invoke(new Batch(in, ut, 0, in.length));
+        return List.of(ut);
+    }
+
+    /** Delar hushållen på mitten tills delarna är små nog att lösa i en tråd. */
+    private static final class Batch extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final transient Household[] in;
+        private final transient LoadSchedule[] ut;
+        private final int from;
+        private final int to;
+
+        Batch(Household[] in, LoadSchedule[] ut, int from, int to) {
+            this.in = in;
+            this.ut = ut;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SEQUENTIAL_THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    ut[i] = schedule(in[i].prices(), in[i].jobs(), in[i].powerCapKw());
+                }
+                return;
+            }
+            int mitt = (from + to) >>> 1;
+            invokeAll(new Batch(in, ut, from, mitt), new Batch(in, ut, mitt, to));
+        }
+    }
+
+    /** En plan under uppbyggnad: använd effekt per rad och vald placering per last. */
+    private static final class Plan {
+
+        /** En last med sina rader förberäknade. */
+        static final class Job {
+            final LoadJob job;
+            final int index;
+            final int slots;
+            final int from;
+            final int to;
+            final double energy;
+            int[] placed;
+            double cost;
+            // Billigaste kostnad utan tak, eller oändlig om lasten inte ryms alls
+            double alone = Double.POSITIVE_INFINITY;
+
+            Job(LoadJob job, int index, PriceSeries serie) {
+                this.job = job;
+                this.index = index;
+                this.slots = ChargingOptimizer.slotsFor(serie, job.duration());
+                this.from = serie.ceilingIndex(job.earliestStart());
+                this.to = ChargingOptimizer.deadlineIndex(serie, job.deadline());
+                this.energy = job.powerKw() * slots;
+            }
+        }
+
+        private final PriceSeries serie;
+        private final double cap;
+        private final double timmarPerRad;
+        private final double[] used;
+        private final Job[] jobs;
+        private int placedCount;
+        private double total;
+
+        Plan(PriceSeries serie, List<LoadJob> jobb, double cap) {
+            this.serie = serie;
+            this.cap = cap;
+            this.timmarPerRad = serie.intervalSeconds() / 3600.0;
+            this.used = new double[serie.size()];
+            this.jobs = new Job[jobb.size()];
+            for (int j = 0; j < jobs.length; j++) {
+                jobs[j] = new Job(jobb.get(j), j, serie);
+                int[] rader = place(jobs[j], false);
+                if (rader != null) {
+                    jobs[j].alone = cost(jobs[j], rader);
+                }
+            }
+        }
+
+        void solve(Comparator<Job> ordning) {
+            Job[] ordnade = jobs.clone();
+            Arrays.sort(ordnade, ordning);
+            for (Job j : ordnade) {
+                assign(j, place(j, true));
+            }
+            // Flytta en last i taget, och sedan två i taget, till den billigaste platsen givet
+            // de övriga; en last som inte fick plats kan få det när en annan har flyttats
+            for (int pass = 0; pass < MAX_PASSES; pass++) {
+                boolean ändrad = false;
+                for (Job j : ordnade) {
+                    ändrad |= improve(j);
+                }
+                for (int a = 0; a < ordnade.length; a++) {
+                    for (int b = a + 1; b < ordnade.length; b++) {
+                        ändrad |= improve(ordnade[a], ordnade[b]);
+                    }
+                }
+                if (!ändrad) {
+                    break;
+                }
+            }
+            for (Job j : jobs) {
+                if (j.placed != null) {
+                    placedCount++;
+                    total += j.cost;
+                }
+            }
+        }
+
+        // Placerar om en last; sant om den fick plats eller blev billigare
+        private boolean improve(Job j) {
+            if (j.placed != null && j.cost <= j.alone + EPSILON) {
+                return false; // Redan så billig som lasten kan bli
+            }
+            int[] gammal = j.placed;
+            double gammalKostnad = j.cost;
+            release(j);
+            int[] ny = place(j, true);
+            if (ny != null && (gammal == null || cost(j, ny) < gammalKostnad - EPSILON)) {
+                assign(j, ny);
+                return true;
+            }
+            assign(j, gammal);
+            return false;
+        }
+
+        // Placerar om två laster i båda ordningarna; sant om fler fick plats eller summan sjönk
+        private boolean improve(Job a, Job b) {
+            boolean aKlar = a.placed != null && a.cost <= a.alone + EPSILON;
+            boolean bKlar = b.placed != null && b.cost <= b.alone + EPSILON;
+            if (aKlar && bKlar) {
+                return false;
+            }
+            int[] gammalA = a.placed, gammalB = b.placed;
+            int bästAntal = (gammalA != null ? 1 : 0) + (gammalB != null ? 1 : 0);
+            double bästKostnad = (gammalA != null ? a.cost : 0) + (gammalB != null ? b.cost : 0);
+            int[] bästA = gammalA, bästB = gammalB;
+            release(a);
+            release(b);
+            for (int varv = 0; varv < 2; varv++) {
+                Job första = varv == 0 ? a : b;
+                Job andra = varv == 0 ? b : a;
+                int[] girig = place(första, true);
+                // Får den andra inte plats efter den förstas billigaste plats prövas den förstas
+                // övriga fönster, så att två sammanhängande laster kan packas bredvid varandra
+                int sista = första.job.interruptible() ? första.from - 1 : första.to - första.slots;
+                for (int start = första.from - 1; start <= sista; start++) {
+                    int[] p1 = start < första.from ? girig : window(första, start);
+                    if (start >= första.from && (p1 == null || p1[0] == girig[0])) continue;
+                    if (p1 != null) {
+                        occupy(p1, första.job.powerKw());
+                    }
+                    int[] p2 = place(andra, true);
+                    if (p1 != null) {
+                        occupy(p1, -första.job.powerKw());
+                    }
+                    int antal = (p1 != null ? 1 : 0) + (p2 != null ? 1 : 0);
+                    double kostnad = (p1 != null ? cost(första, p1) : 0) + (p2 != null ? cost(andra, p2) : 0);
+                    if (antal > bästAntal || (antal == bästAntal && kostnad < bästKostnad - EPSILON)) {
+                        bästAntal = antal;
+                        bästKostnad = kostnad;
+                        bästA = varv == 0 ? p1 : p2;
+                        bästB = varv == 0 ? p2 : p1;
+                    }
+                    if (p1 == null || p2 != null) {
+                        break;
+                    }
+                }
+            }
+            assign(a, bästA);
+            assign(b, bästB);
+            return bästA != gammalA || bästB != gammalB;
+        }
+
+        private void assign(Job j, int[] rader) {
+            j.placed = rader;
+            if (rader != null) {
+                j.cost = cost(j, rader);
+                occupy(rader, j.job.powerKw());
+            }
+        }
+
+        private void release(Job j) {
+            if (j.placed != null) {
+                occupy(j.placed, -j.job.powerKw());
+                j.placed = null;
+            }
+        }
+
+        boolean isBetterThan(Plan other) {
+            if (placedCount != other.placedCount) {
+                return placedCount > other.placedCount;
+            }
+            return total < other.total - EPSILON;
+        }
+
+        LoadSchedule result() {
+            List<Placement> placerade = new ArrayList<>(placedCount);
+            List<LoadJob> utanPlats = new ArrayList<>();
+            double gräns = 0;
+            for (Job j : jobs) {
+                if (j.placed == null) {
+                    utanPlats.add(j.job);
+                    continue;
+                }
+                placerade.add(new Placement(j.job, j.placed, j.cost));
+                gräns += j.alone;
+            }
+            return new LoadSchedule(List.copyOf(placerade), List.copyOf(utanPlats), total, gräns);
+        }
+
+        /** Billigaste placering för lasten, med eller utan hänsyn till effekttaket, eller null. */
+        private int[] place(Job j, boolean medTak) {
+            double effekt = j.job.powerKw();
+            if (effekt > cap + EPSILON) {
+                return null;
+            }
+            IntPredicate ledig = medTak ? i -> used[i] + effekt <= cap + EPSILON : i -> true;
+            if (j.job.interruptible()) {
+                int[] rader = ChargingOptimizer.cheapestSlots(serie, j.slots, j.from, j.to, ledig);
+                return rader.length == j.slots ? rader : null;
+            }
+            Optional<ChargingWindow> fönster = ChargingOptimizer.cheapestWindow(serie, j.slots, j.from, j.to, ledig);
+            if (fönster.isEmpty()) {
+                return null;
+            }
+            int[] rader = new int[j.slots];
+            for (int k = 0; k < rader.length; k++) {
+                rader[k] = fönster.get().from() + k;
+            }
+            return rader;
+        }
+
+        /** Lastens sammanhängande rader från {@code start}, eller null om taket inte tillåter dem. */
+        private int[] window(Job j, int start) {
+            double effekt = j.job.powerKw();
+            int[] rader = new int[j.slots];
+            for (int k = 0; k < rader.length; k++) {
+                if (used[start + k] + effekt > cap + EPSILON) {
+                    return null;
+                }
+                rader[k] = start + k;
+            }
+            return rader;
+        }
+
+        private double cost(Job j, int[] rader) {
+            double sek = 0;
+            for (int i : rader) {
+                sek += serie.sekPerKWh(i);
+            }
+            return sek * j.job.powerKw() * timmarPerRad;
+        }
+
+        private void occupy(int[] rader, double effekt) {
+            for (int i : rader) {
+                used[i] += effekt;
+            }
+        }
+    }
+}
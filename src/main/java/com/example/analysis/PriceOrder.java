@@ -0,0 +1,117 @@
+package com.example.analysis;
+
+import com.example.api.PriceSeries;
+
+/**
+ * Prisordnade index över en {@link PriceSeries}, byggda en gång per dataserie och delade
+ * av utskrift, statistik och laddoptimering.
+ * <p>
+ * En {@code PriceSeries} är alltid tidsordnad, så tidsordningen är själva radnumren.
+ * Prisordningen lagras som permutationer av radnummer i {@code int}-arrayer. Vid lika pris
+ * kommer alltid den tidigaste raden först, oavsett om ordningen är stigande eller fallande.
+ */
+public final class PriceOrder {
+
+    private final PriceSeries serie;
+    private final int[] ascending;
+    private final int[] descending;
+
+    private PriceOrder(PriceSeries serie, int[] ascending, int[] descending) {
+        this.serie = serie;
+        this.ascending = ascending;
+        this.descending = descending;
+    }
+
+    /**
+     * Bygger prisordningarna för en serie i O(n log n).
+     */
+    public static PriceOrder of(PriceSeries serie) {
+        int n = serie.size();
+        double[] pris = serie.sekPerKWhArray();
+        int[] ascending = new int[n];
+        for (int i = 0; i < n; i++) ascending[i] = i;
+        // Stabil sortering på pris: lika priser behåller tidsordningen
+        mergeSort(ascending, new int[n], 0, n, pris);
+
+        // Fallande ordning är den stigande baklänges, men med varje grupp av lika
+        // priser vänd tillbaka så att den tidigaste raden fortfarande kommer först
+        int[] descending = new int[n];
+        int out = 0;
+        int end = n;
+        while (end > 0) {
+            int start = end - 1;
+            while (start > 0 && pris[ascending[start - 1]] == pris[ascending[end - 1]]) start--;
+            System.arraycopy(ascending, start, descending, out, end - start);
+            out += end - start;
+            end = start;
+        }
+        return new PriceOrder(serie, ascending, descending);
+    }
+
+    public PriceSeries serie() {
+        return serie;
+    }
+
+    public int size() {
+        return ascending.length;
+    }
+
+    /** Radnumret för den {@code rank}:e billigaste raden (0 = billigast). */
+    public int ascending(int rank) {
+        return ascending[rank];
+    }
+
+    /** Radnumret för den {@code rank}:e dyraste raden (0 = dyrast). */
+    public int descending(int rank) {
+        return descending[rank];
+    }
+
+    /** Den billigaste raden; vid lika pris den tidigaste. */
+    public int cheapest() {
+        return ascending[0];
+    }
+
+    /** Den dyraste raden; vid lika pris den tidigaste. */
+    public int mostExpensive() {
+        return descending[0];
+    }
+
+    /** En kopia av den stigande prisordningen. */
+    public int[] ascendingIndices() {
+        return ascending.clone();
+    }
+
+    /** En kopia av den fallande prisordningen. */
+    public int[] descendingIndices() {
+        return descending.clone();
+    }
+
+    private static void mergeSort(int[] a, int[] tmp, int from, int to, double[] pris) {
+        if (to - from < 16) {
+            // Insättningssortering för små delar; också stabil
+            for (int i = from + 1; i < to; i++) {
+                int v = a[i];
+                int j = i - 1;
+                while (j >= from && pris[a[j]] > pris[v]) {
+                    a[j + 1] = a[j];
+                    j--;
+                }
+                a[j + 1] = v;
+            }
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        mergeSort(a, tmp, from, mid, pris);
+        mergeSort(a, tmp, mid, to, pris);
+        if (pris[a[mid - 1]] <= pris[a[mid]]) {
+            return; // redan i ordning
+        }
+        System.arraycopy(a, from, tmp, from, to - from);
+        int i = from, j = mid, k = from;
+        while (i < mid && j < to) {
+            a[k++] = pris[tmp[j]] < pris[tmp[i]] ? tmp[j++] : tmp[i++];
+        }
+        while (i < mid) a[k++] = tmp[i++];
+        while (j < to) a[k++] = tmp[j++];
+    }
+}
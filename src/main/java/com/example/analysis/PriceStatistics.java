@@ -0,0 +1,234 @@
+package com.example.analysis;
+
+import com.example.api.PriceSeries;
+
+/**
+ * Ackumulerar statistik över priser i ett enda pass, utan att spara själva priserna.
+ * <p>
+ * Min och max sparas tillsammans med sin tidpunkt; vid lika värde vinner den tidigaste
+ * tidpunkten, oavsett i vilken ordning värdena läggs till. Medelvärde och varians räknas
+ * med Welfords metod. Percentiler skattas med en logaritmisk histogramskiss (som DDSketch)
+ * med högst {@value #RELATIVE_ACCURACY_PERCENT} % relativt fel, så minnet växer med
+ * prisernas spännvidd, inte med antalet värden.
+ * <p>
+ * Instanser kan uppdateras allteftersom nya dagar kommer in och slås ihop med
+ * {@link #merge(PriceStatistics)}. Klassen är inte trådsäker.
+ */
+public final class PriceStatistics {
+
+    static final int RELATIVE_ACCURACY_PERCENT = 1;
+
+    // Belopp närmare noll än så här räknas till noll-hinken
+    private static final double MIN_INDEXED = 1e-6;
+    private static final double GAMMA = (1.0 + RELATIVE_ACCURACY_PERCENT / 100.0) / (1.0 - RELATIVE_ACCURACY_PERCENT / 100.0);
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+
+    private long count;
+    private double mean;
+    private double m2;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+    private long minTime;
+    private long maxTime;
+
+    // Skissen: hinkar för positiva och negativa belopp samt noll
+    private final Buckets positive = new Buckets();
+    private final Buckets negative = new Buckets();
+    private long zeroCount;
+
+    /** Lägger till ett pris för perioden som börjar vid {@code epochSecond}. */
+    public void add(long epochSecond, double value) {
+        count++;
+        double delta = value - mean;
+        mean += delta / count;
+        m2 += delta * (value - mean);
+        if (value < min || (value == min && epochSecond < minTime)) {
+            min = value;
+            minTime = epochSecond;
+        }
+        if (value > max || (value == max && epochSecond < maxTime)) {
+            max = value;
+            maxTime = epochSecond;
+        }
+        if (value >= MIN_INDEXED) {
+            positive.add(bucket(value), 1);
+        } else if (value <= -MIN_INDEXED) {
+            negative.add(bucket(-value), 1);
+        } else {
+            zeroCount++;
+        }
+    }
+
+    /** Lägger till raderna {@code [from, to)} ur en serie. */
+    public void add(PriceSeries serie, int from, int to) {
+        for (int i = from; i < to; i++) {
+            add(serie.startEpochSecond(i), serie.sekPerKWh(i));
+        }
+    }
+
+    /** Lägger till alla rader ur en serie. */
+    public void addAll(PriceSeries serie) {
+        add(serie, 0, serie.size());
+    }
+
+    /** Slår ihop en annan ackumulator med denna, som om alla dess värden lagts till här. */
+    public void merge(PriceStatistics other) {
+        if (other.count == 0) {
+            return;
+        }
+        long total = count + other.count;
+        double delta = other.mean - mean;
+        mean += delta * other.count / total;
+        m2 += other.m2 + delta * delta * ((double) count * other.count / total);
+        count = total;
+        if (other.min < min || (other.min == min && other.minTime < minTime)) {
+            min = other.min;
+            minTime = other.minTime;
+        }
+        if (other.max > max || (other.max == max && other.maxTime < maxTime)) {
+            max = other.max;
+            maxTime = other.maxTime;
+        }
+        positive.merge(other.positive);
+        negative.merge(other.negative);
+        zeroCount += other.zeroCount;
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    /** Lägsta värdet, eller NaN om inga värden lagts till. */
+    public double min() {
+        return count == 0 ? Double.NaN : min;
+    }
+
+    /** Starttiden (epoch-sekunder) för den tidigaste perioden med lägsta värdet. */
+    public long minEpochSecond() {
+        return minTime;
+    }
+
+    /** Högsta värdet, eller NaN om inga värden lagts till. */
+    public double max() {
+        return count == 0 ? Double.NaN : max;
+    }
+
+    /** Starttiden (epoch-sekunder) för den tidigaste perioden med högsta värdet. */
+    public long maxEpochSecond() {
+        return maxTime;
+    }
+
+    /** Medelvärdet, eller NaN om inga värden lagts till. */
+    public double mean() {
+        return count == 0 ? Double.NaN : mean;
+    }
+
+    /** Populationsvariansen, eller NaN om inga värden lagts till. */
+    public double variance() {
+        return count == 0 ? Double.NaN : m2 / count;
+    }
+
+    public double standardDeviation() {
+        return Math.sqrt(variance());
+    }
+
+    /**
+     * Skattar percentilen {@code q} (0–1) ur skissen.
+     * @return Skattningen, eller NaN om inga värden lagts till.
+     */
+    public double percentile(double q) {
+        if (q < 0 || q > 1) {
+            throw new IllegalArgumentException("Percentilen måste ligga mellan 0 och 1: " + q);
+        }
+        if (count == 0) {
+            return Double.NaN;
+        }
+        if (q == 0) return min;
+        if (q == 1) return max;
+        long rank = (long) Math.floor(q * (count - 1));
+        // Negativa belopp i fallande storlek, sedan noll, sedan positiva i stigande storlek
+        long seen = 0;
+        for (int i = negative.highest(); i >= negative.lowest(); i--) {
+            seen += negative.get(i);
+            if (seen > rank) return clamp(-value(i));
+        }
+        seen += zeroCount;
+        if (seen > rank) return clamp(0);
+        for (int i = positive.lowest(); i <= positive.highest(); i++) {
+            seen += positive.get(i);
+            if (seen > rank) return clamp(value(i));
+        }
+        return max;
+    }
+
+    private double clamp(double v) {
+        return Math.max(min, Math.min(max, v));
+    }
+
+    private static int bucket(double magnitude) {
+        return (int) Math.ceil(Math.log(magnitude) / LOG_GAMMA);
+    }
+
+    // Hinkens representativa värde, med högst RELATIVE_ACCURACY_PERCENT % fel
+    private static double value(int bucket) {
+        return 2 * Math.pow(GAMMA, bucket) / (GAMMA + 1);
+    }
+
+    @Override
+    public String toString() {
+        return "PriceStatistics[count=" + count + ", min=" + min() + ", max=" + max() + ", mean=" + mean() + "]";
+    }
+
+    /** Glest växande array av räknare, indexerad med hinknummer. */
+    private static final class Buckets {
+        private long[] counts = new long[0];
+        private int offset;
+
+        void add(int bucket, long n) {
+            if (counts.length == 0) {
+                counts = new long[16];
+                offset = bucket - 8;
+            }
+            int i = bucket - offset;
+            if (i < 0 || i >= counts.length) {
+                grow(bucket);
+                i = bucket - offset;
+            }
+            counts[i] += n;
+        }
+
+        long get(int bucket) {
+            int i = bucket - offset;
+            return i < 0 || i >= counts.length ? 0 : counts[i];
+        }
+
+        int lowest() {
+            return offset;
+        }
+
+        int highest() {
+            return offset + counts.length - 1;
+        }
+
+        void merge(Buckets other) {
+            for (int i = 0; i < other.counts.length; i++) {
+                if (other.counts[i] != 0) add(other.offset + i, other.counts[i]);
+            }
+        }
+
+        private void grow(int bucket) {
+            int low = Math.min(offset, bucket);
+            int high = Math.max(offset + counts.length - 1, bucket);
+            int size = Math.max(high - low + 1, counts.length * 2);
+            long[] grown = new long[size];
+            int newOffset = bucket < offset ? high - size + 1 : low;
+            System.arraycopy(counts, 0, grown, offset - newOffset, counts.length);
+            counts = grown;
+            offset = newOffset;
+        }
+    }
+}
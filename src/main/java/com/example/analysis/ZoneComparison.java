@@ -0,0 +1,173 @@
+package com.example.analysis;
+
+import com.example.api.ElpriserAPI.Prisklass;
+import com.example.api.PriceSeries;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Jämför flera prisklasser över samma tidsperiod i ett enda pass.
+ * <p>
+ * Serierna gås igenom samtidigt, en markör per zon, och delas upp i intervall där ingen
+ * zon byter rad. För varje sådant intervall uppdateras statistik per zon, skillnaden
+ * mellan varje par av zoner, skillnaden mellan dyraste och billigaste zon, samt vilken
+ * zon som var billigast. Har zonerna olika upplösning (t.ex. timme mot kvart) räknas
+ * därmed varje zon på den finaste upplösningen, dvs. tidsviktat.
+ * <p>
+ * Skillnader och billigaste zon räknas bara i intervall där minst två zoner har ett pris;
+ * ett intervall där bara en zon har pris, t.ex. när en annan zon saknar morgondagen, bidrar
+ * bara till den zonens statistik.
+ * <p>
+ * Vid lika pris räknas zonen som kommer först i {@link Prisklass} som billigast.
+ */
+public final class ZoneComparison {
+
+    /** Billigaste zon under ett intervall där ingen zon byter rad. */
+    public record CheapestSlot(long startEpochSecond, long endEpochSecond, Prisklass zone, double sekPerKWh) {}
+
+    private final Map<Prisklass, PriceStatistics> perZone = new EnumMap<>(Prisklass.class);
+    // [a][b] per ordinal: pris(b) - pris(a) när båda har ett pris
+    private final PriceStatistics[][] pairs;
+    private final PriceStatistics spread = new PriceStatistics();
+    private final List<CheapestSlot> cheapest = new ArrayList<>();
+    private final int[] cheapestCount = new int[Prisklass.values().length];
+
+    private ZoneComparison() {
+        int n = Prisklass.values().length;
+        pairs = new PriceStatistics[n][n];
+    }
+
+    /**
+     * Jämför serierna per zon. Tomma serier tas med i {@link #zones()} men bidrar inte.
+     */
+    public static ZoneComparison of(Map<Prisklass, PriceSeries> serier) {
+        ZoneComparison jämförelse = new ZoneComparison();
+        if (serier.isEmpty()) {
+            return jämförelse;
+        }
+        int n = serier.size();
+        Prisklass[] zoner = new Prisklass[n];
+        PriceSeries[] serie = new PriceSeries[n];
+        int z = 0;
+        // EnumMap-ordning, så att lika pris avgörs till zonen med lägst ordinal
+        for (Map.Entry<Prisklass, PriceSeries> e : new EnumMap<>(serier).entrySet()) {
+            zoner[z] = e.getKey();
+            serie[z] = e.getValue();
+            jämförelse.perZone.put(e.getKey(), new PriceStatistics());
+            z++;
+        }
+        for (int a = 0; a < n; a++) {
+            for (int b = 0; b < n; b++) {
+                if (a != b) {
+                    jämförelse.pairs[zoner[a].ordinal()][zoner[b].ordinal()] = new PriceStatistics();
+                }
+            }
+        }
+
+        int[] markör = new int[n];
+        double[] pris = new double[n];
+        boolean[] täckt = new boolean[n];
+        long t = Long.MAX_VALUE;
+        for (PriceSeries s : serie) {
+            if (!s.isEmpty()) t = Math.min(t, s.startEpochSecond(0));
+        }
+        while (t != Long.MAX_VALUE) {
+            // Flytta varje markör till raden som täcker t, och hitta nästa prisbyte
+            long nästa = Long.MAX_VALUE;
+            for (int i = 0; i < n; i++) {
+                PriceSeries s = serie[i];
+                while (markör[i] < s.size() && s.endEpochSecond(markör[i]) <= t) {
+                    markör[i]++;
+                }
+                täckt[i] = markör[i] < s.size() && s.startEpochSecond(markör[i]) <= t;
+                if (täckt[i]) {
+                    pris[i] = s.sekPerKWh(markör[i]);
+                    nästa = Math.min(nästa, s.endEpochSecond(markör[i]));
+                } else if (markör[i] < s.size()) {
+                    nästa = Math.min(nästa, s.startEpochSecond(markör[i]));
+                }
+            }
+            if (nästa == Long.MAX_VALUE) {
+                break;
+            }
+            jämförelse.accept(t, nästa, zoner, pris, täckt);
+            t = nästa;
+        }
+        return jämförelse;
+    }
+
+    private void accept(long start, long end, Prisklass[] zoner, double[] pris, boolean[] täckt) {
+        int billigast = -1;
+        int dyrast = -1;
+        int antal = 0;
+        for (int a = 0; a < zoner.length; a++) {
+            if (!täckt[a]) continue;
+            antal++;
+            perZone.get(zoner[a]).add(start, pris[a]);
+            if (billigast < 0 || pris[a] < pris[billigast]) billigast = a;
+            if (dyrast < 0 || pris[a] > pris[dyrast]) dyrast = a;
+            for (int b = a + 1; b < zoner.length; b++) {
+                if (täckt[b]) {
+                    pairs[zoner[a].ordinal()][zoner[b].ordinal()].add(start, pris[b] - pris[a]);
+                    pairs[zoner[b].ordinal()][zoner[a].ordinal()].add(start, pris[a] - pris[b]);
+                }
+            }
+        }
+        if (antal < 2) {
+            return; // Högst en zon har pris här, så det finns inget att jämföra med
+        }
+        spread.add(start, pris[dyrast] - pris[billigast]);
+        cheapest.add(new CheapestSlot(start, end, zoner[billigast], pris[billigast]));
+        cheapestCount[zoner[billigast].ordinal()]++;
+    }
+
+    /** Zonerna som jämförs. */
+    public Set<Prisklass> zones() {
+        return Collections.unmodifiableSet(perZone.keySet());
+    }
+
+    /** Statistik för en zon, i SEK/kWh. */
+    public PriceStatistics zone(Prisklass zon) {
+        PriceStatistics stats = perZone.get(zon);
+        if (stats == null) {
+            throw new IllegalArgumentException("Zonen ingår inte i jämförelsen: " + zon);
+        }
+        return stats;
+    }
+
+    /**
+     * Skillnaden {@code pris(b) - pris(a)} under den tid båda zonerna har pris.
+     * Ordningen spelar roll: {@code spread(a, b)} har motsatt tecken mot {@code spread(b, a)}.
+     */
+    public PriceStatistics spread(Prisklass a, Prisklass b) {
+        zone(a);
+        zone(b);
+        if (a == b) {
+            throw new IllegalArgumentException("Samma zon: " + a);
+        }
+        return pairs[a.ordinal()][b.ordinal()];
+    }
+
+    /**
+     * Skillnaden mellan dyraste och billigaste zon i varje intervall där minst två zoner har
+     * ett pris; tom om zonerna aldrig har pris samtidigt.
+     */
+    public PriceStatistics spread() {
+        return spread;
+    }
+
+    /** Billigaste zon per intervall där minst två zoner har ett pris, i tidsordning. */
+    public List<CheapestSlot> cheapestPerSlot() {
+        return Collections.unmodifiableList(cheapest);
+    }
+
+    /** Hur många intervall zonen var billigast. */
+    public int cheapestCount(Prisklass zon) {
+        return cheapestCount[zon.ordinal()];
+    }
+}
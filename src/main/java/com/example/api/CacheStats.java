@@ -0,0 +1,21 @@
+package com.example.api;
+
+/**
+ * Ögonblicksbild av minnes-cachens räknare.
+ *
+ * @param hits Antal uppslag som hittade en giltig post.
+ * @param misses Antal uppslag som inte hittade någon (eller bara en utgången) post.
+ * @param evictions Antal poster som trängts undan för att hålla storleksgränsen.
+ * @param expirations Antal poster vars livstid gått ut, räknade en gång per post när den
+ *                    först ses utgången. Posten ligger kvar tills den ersätts eller trängs
+ *                    undan, så att den kan valideras om eller användas när API:t inte svarar.
+ * @param size Antal poster i cachen just nu.
+ */
+public record CacheStats(long hits, long misses, long evictions, long expirations, int size) {
+
+    /** Andelen uppslag som var träffar, eller 0 om inga uppslag gjorts. */
+    public double hitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+}
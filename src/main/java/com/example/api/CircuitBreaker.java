@@ -0,0 +1,81 @@
+package com.example.api;
+
+import java.time.Clock;
+import java.time.Duration;
+
+/**
+ * En enkel kretsbrytare för anrop mot API:t.
+ * <p>
+ * Efter {@code failureThreshold} misslyckanden i rad öppnas kretsen och alla anrop nekas
+ * direkt under {@code openDuration}. Därefter släpps ett enda provanrop igenom
+ * (halvöppen); lyckas det stängs kretsen, annars öppnas den igen.
+ */
+final class CircuitBreaker {
+
+    enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int failureThreshold;
+    private final Duration openDuration;
+    private final Clock clock;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAtMillis;
+    private boolean trialInProgress;
+
+    CircuitBreaker(int failureThreshold, Duration openDuration, Clock clock) {
+        this.failureThreshold = failureThreshold;
+        this.openDuration = openDuration;
+        this.clock = clock;
+    }
+
+    /**
+     * Sant om ett anrop får göras nu. Ett godkänt anrop måste följas av success, failure
+     * eller, om det avbröts utan svar, {@link #abandon()}.
+     */
+    synchronized boolean tryAcquire() {
+        if (state == State.CLOSED) {
+            return true;
+        }
+        if (state == State.OPEN) {
+            if (clock.millis() - openedAtMillis < openDuration.toMillis()) {
+                return false;
+            }
+            state = State.HALF_OPEN;
+            trialInProgress = false;
+        }
+        // Halvöppen: släpp igenom ett enda provanrop
+        if (trialInProgress) {
+            return false;
+        }
+        trialInProgress = true;
+        return true;
+    }
+
+    synchronized void onSuccess() {
+        consecutiveFailures = 0;
+        trialInProgress = false;
+        state = State.CLOSED;
+    }
+
+    synchronized void onFailure() {
+        consecutiveFailures++;
+        trialInProgress = false;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            openedAtMillis = clock.millis();
+        }
+    }
+
+    /**
+     * Ett godkänt anrop avbröts utan utfall, t.ex. av ett avbrott. Tillståndet ändras inte,
+     * men ett halvöppet provanrop släpps så att nästa anrop får prova.
+     */
+    synchronized void abandon() {
+        trialInProgress = false;
+    }
+
+    synchronized State state() {
+        return state;
+    }
+}
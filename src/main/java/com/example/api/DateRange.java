@@ -0,0 +1,39 @@
+package com.example.api;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * Ett slutet datumintervall, där både {@code from} och {@code to} ingår.
+ */
+public record DateRange(LocalDate from, LocalDate to) {
+
+    public DateRange {
+        Objects.requireNonNull(from, "from");
+        Objects.requireNonNull(to, "to");
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("Slutdatum " + to + " ligger före startdatum " + from);
+        }
+    }
+
+    /** Ett intervall som bara omfattar en dag. */
+    public static DateRange of(LocalDate day) {
+        return new DateRange(day, day);
+    }
+
+    /** Antal dagar i intervallet. */
+    public int days() {
+        return (int) ChronoUnit.DAYS.between(from, to) + 1;
+    }
+
+    /** Dagarna i intervallet i stigande ordning. */
+    public Stream<LocalDate> stream() {
+        return from.datesUntil(to.plusDays(1));
+    }
+
+    public boolean contains(LocalDate day) {
+        return !day.isBefore(from) && !day.isAfter(to);
+    }
+}
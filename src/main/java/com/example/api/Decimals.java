@@ -0,0 +1,65 @@
+package com.example.api;
+
+import java.util.Locale;
+
+/**
+ * Skriver decimaltal i text utan {@code String.format}, så att en rad i en export inte
+ * skapar några objekt. Används av både {@link PriceArchive#writeCsv} och Mains CSV och JSON,
+ * så att samma pris alltid skrivs likadant.
+ */
+public final class Decimals {
+
+    /** Decimaler i {@link #appendDecimal}; API:t anger priser och valutakurs med högst fem. */
+    public static final int DECIMALS = 6;
+
+    private static final long[] TIOPOTENSER = {1, 10, 100, 1_000, 10_000, 100_000, 1_000_000};
+
+    private Decimals() {}
+
+    /**
+     * Ett tal för CSV och JSON: högst {@value #DECIMALS} decimaler med punkt och utan
+     * avslutande nollor, t.ex. "0.12345" eller "11.0". Till skillnad från
+     * {@code StringBuilder.append(double)} blir det aldrig exponentform som "1.2E-4".
+     */
+    public static StringBuilder appendDecimal(StringBuilder sb, double value) {
+        int början = sb.length();
+        appendFixed(sb, value, DECIMALS, Locale.ROOT, '.');
+        int punkt = sb.indexOf(".", början);
+        if (punkt >= 0) {
+            int slut = sb.length();
+            while (slut > punkt + 2 && sb.charAt(slut - 1) == '0') {
+                slut--;
+            }
+            sb.setLength(slut);
+        }
+        return sb;
+    }
+
+    /**
+     * Skriver {@code value} med exakt {@code decimaler} decimaler (0–{@value #DECIMALS}), som
+     * {@code String.format(locale, "%.Nf", value)} med {@code komma} som decimaltecken.
+     */
+    public static StringBuilder appendFixed(StringBuilder sb, double value, int decimaler, Locale locale, char komma) {
+        long skala = TIOPOTENSER[decimaler];
+        double skalat = Math.abs(value) * skala;
+        double rest = skalat - Math.floor(skalat);
+        // Nära en halv sista decimal avrundar Formatter på decimalutvecklingen, inte på det
+        // binära värdet; de fallen, och orimligt stora tal, går den långsamma vägen
+        if (!(skalat < 1e15) || Math.abs(rest - 0.5) < 1e-6) {
+            return sb.append(String.format(locale, "%." + decimaler + "f", value).replace('.', komma));
+        }
+        long avrundat = Math.round(skalat);
+        if (Double.doubleToRawLongBits(value) < 0) {
+            sb.append('-'); // Även för -0,00, som Formatter
+        }
+        sb.append(avrundat / skala);
+        if (decimaler > 0) {
+            long del = avrundat % skala;
+            sb.append(komma);
+            for (long siffra = skala / 10; siffra > 0; siffra /= 10) {
+                sb.append((char) ('0' + del / siffra % 10));
+            }
+        }
+        return sb;
+    }
+}
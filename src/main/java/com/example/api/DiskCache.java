@@ -0,0 +1,438 @@
+package com.example.api;
+
+import com.example.api.ElpriserAPI.Elpris;
+import com.example.api.ElpriserAPI.Prisklass;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.zip.CRC32;
+
+/**
+ * Persistent disk-cache för redan tolkade elpriser.
+ * <p>
+ * Varje {@link Prisklass} har ett eget segment ({@code SE3.seg}) som bara växer i slutet.
+ * Ett segment består av ett filhuvud följt av block, ett block per dag:
+ * <pre>
+ *   filhuvud: magic(int) version(int)
+ *   block:    magic(int) epochDay(int) antal(int) crc32(int) rader...
+ *   rad:      start(long, epoch-sekunder) längd(int, sek) offset(int, sek) sek(double) eur(double) exr(double)
+ * </pre>
+ * Läsning sker via en minnesmappad buffert, så en kall start kan svara ur historiken utan
+ * att tolka JSON eller gå ut på nätverket. Skrivningar görs som ett enda append under
+ * ett fil-lås; ett avbrutet eller korrupt block upptäcks via längd och CRC och klipps bort
+ * nästa gång segmentet öppnas.
+ * <p>
+ * En dag som sparas med samma rader som senast skrivs inte igen. När ersatta block blir
+ * fler än de levande skrivs segmentet om till en ny fil med bara de levande blocken, som
+ * sedan byter plats med den gamla. Andra processer märker bytet på filens nyckel och
+ * indexerar om; på filsystem utan filnycklar skrivs segmentet aldrig om.
+ * <p>
+ * Bredvid segmentet ligger en liten fil ({@code SE3.unpublished}) med den senaste dag som
+ * API:t svarade 404 på och hur länge det svaret gäller, så att även nya processer kan
+ * låta bli att fråga efter morgondagen innan den publicerats:
+ * <pre>
+ *   magic(int) epochDay(int) giltigTill(long, epoch-millisekunder)
+ * </pre>
+ */
+final class DiskCache {
+
+    private static final int FILE_MAGIC = 0x454C5053; // "ELPS"
+    private static final int FILE_VERSION = 1;
+    private static final int FILE_HEADER_BYTES = 8;
+    private static final int BLOCK_MAGIC = 0x444159FF;
+    private static final int BLOCK_HEADER_BYTES = 16;
+    private static final int ROW_BYTES = 8 + 4 + 4 + 8 + 8 + 8;
+    private static final int UNPUBLISHED_MAGIC = 0x454C504E; // "ELPN"
+    private static final int UNPUBLISHED_BYTES = 16;
+
+    private final Path directory;
+    private final Map<Prisklass, Segment> segments = new EnumMap<>(Prisklass.class);
+
+    DiskCache(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Standardkatalogen: {@code ~/.elpriser_cache}, kan överstyras med systemegenskapen
+     * {@code elpriser.cache.dir}.
+     */
+    static Path defaultDirectory() {
+        String override = System.getProperty("elpriser.cache.dir");
+        if (override != null && !override.isBlank()) {
+            return Path.of(override);
+        }
+        return Path.of(System.getProperty("user.home"), ".elpriser_cache");
+    }
+
+    /**
+     * Läser en dag ur segmentet för prisklassen.
+     * @return Priserna, eller null om dagen inte finns i cachen.
+     */
+    List<Elpris> load(LocalDate datum, Prisklass prisklass) throws IOException {
+        return segment(prisklass).read((int) datum.toEpochDay());
+    }
+
+    /**
+     * Lägger till en dag sist i segmentet. En senare skrivning för samma dag ersätter
+     * den tidigare vid läsning.
+     */
+    void save(LocalDate datum, Prisklass prisklass, List<Elpris> priser) throws IOException {
+        if (priser.isEmpty()) {
+            return;
+        }
+        segment(prisklass).append((int) datum.toEpochDay(), priser);
+    }
+
+    /**
+     * Sparar att dagen inte fanns hos API:t, giltigt till {@code expiresAtMillis}. Ersätter
+     * en tidigare sparad dag för prisklassen.
+     */
+    void saveUnpublished(LocalDate datum, Prisklass prisklass, long expiresAtMillis) throws IOException {
+        Files.createDirectories(directory);
+        ByteBuffer buffer = ByteBuffer.allocate(UNPUBLISHED_BYTES).order(ByteOrder.BIG_ENDIAN);
+        buffer.putInt(UNPUBLISHED_MAGIC).putInt((int) datum.toEpochDay()).putLong(expiresAtMillis);
+        // Skriv till en temporär fil och byt namn, så att en läsare aldrig ser en halv fil
+        Path tmp = Files.createTempFile(directory, prisklass.name(), ".tmp");
+        try {
+            Files.write(tmp, buffer.array());
+            Files.move(tmp, unpublishedFile(prisklass),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Hur länge ett sparat 404-svar för dagen gäller.
+     * @return Epoch-millisekunder, eller 0 om inget svar finns sparat för dagen.
+     */
+    long unpublishedUntil(LocalDate datum, Prisklass prisklass) throws IOException {
+        Path file = unpublishedFile(prisklass);
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        byte[] bytes = Files.readAllBytes(file);
+        if (bytes.length != UNPUBLISHED_BYTES) {
+            return 0;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.BIG_ENDIAN);
+        if (buffer.getInt(0) != UNPUBLISHED_MAGIC || buffer.getInt(4) != datum.toEpochDay()) {
+            return 0;
+        }
+        return buffer.getLong(8);
+    }
+
+    private Path unpublishedFile(Prisklass prisklass) {
+        return directory.resolve(prisklass.name() + ".unpublished");
+    }
+
+    boolean contains(LocalDate datum, Prisklass prisklass) throws IOException {
+        return segment(prisklass).contains((int) datum.toEpochDay());
+    }
+
+    private Segment segment(Prisklass prisklass) throws IOException {
+        synchronized (segments) {
+            Segment segment = segments.get(prisklass);
+            if (segment == null) {
+                Files.createDirectories(directory);
+                segment = new Segment(directory.resolve(prisklass.name() + ".seg"));
+                segments.put(prisklass, segment);
+            }
+            return segment;
+        }
+    }
+
+    /**
+     * Ett append-only segment. Läsare arbetar mot en ögonblicksbild av den mappade
+     * bufferten och indexet och behöver inga lås; skrivare serialiseras på instansen och på
+     * fil-låset så att även flera processer kan dela katalogen.
+     * <p>
+     * Fil-låsen hålls bara för sin livslängd i try-satserna, därav {@code "try"} nedan.
+     */
+    @SuppressWarnings("try")
+    private static final class Segment {
+
+        // Bufferten och indexet (epochDay -> position för blockets huvud) publiceras tillsammans,
+        // så att en position aldrig används mot en buffert från en omskriven fil
+        private record View(MappedByteBuffer mapped, Map<Integer, Integer> index) {}
+
+        private final Path file;
+        private volatile View view;
+        // Hur långt filen är indexerad och validerad; 0 betyder att den ska indexeras från början
+        private volatile long indexedEnd;
+        // Nyckeln för filen som indexerats, för att se när en annan process skrivit om den
+        private volatile Object fileKey;
+        // Block i filen som ersatts av ett senare block för samma dag
+        private int superseded;
+
+        Segment(Path file) throws IOException {
+            this.file = file;
+            synchronized (this) {
+                try (FileChannel channel = FileChannel.open(file,
+                        StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                     FileLock ignored = channel.lock()) {
+                    if (!hasValidHeader(channel)) {
+                        // Ny fil, eller trasig fil utan giltigt huvud: börja om
+                        if (channel.size() > 0) {
+                            System.err.println("Disk-cachen " + file + " har okänt filhuvud, börjar om.");
+                        }
+                        channel.truncate(0);
+                        ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_BYTES).order(ByteOrder.BIG_ENDIAN);
+                        header.putInt(FILE_MAGIC).putInt(FILE_VERSION).flip();
+                        while (header.hasRemaining()) channel.write(header, 0);
+                        channel.force(true);
+                    }
+                }
+                try (FileChannel channel = lock()) {
+                    catchUp(channel);
+                }
+            }
+        }
+
+        private static boolean hasValidHeader(FileChannel channel) throws IOException {
+            if (channel.size() < FILE_HEADER_BYTES) {
+                return false;
+            }
+            ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_BYTES).order(ByteOrder.BIG_ENDIAN);
+            while (header.hasRemaining() && channel.read(header, header.position()) >= 0) {
+                // läs tills huvudet är fullt
+            }
+            return header.getInt(0) == FILE_MAGIC && header.getInt(4) == FILE_VERSION;
+        }
+
+        boolean contains(int epochDay) throws IOException {
+            refreshIfGrown();
+            return view.index().containsKey(epochDay);
+        }
+
+        List<Elpris> read(int epochDay) throws IOException {
+            View v = view;
+            Integer position = v.index().get(epochDay);
+            if (position == null) {
+                // En annan process kan ha skrivit dagen sedan vi indexerade
+                if (!refreshIfGrown()) {
+                    return null;
+                }
+                v = view;
+                position = v.index().get(epochDay);
+                if (position == null) {
+                    return null;
+                }
+            }
+            // duplicate() ger en egen position/limit, så läsare kan dela bufferten
+            ByteBuffer buffer = v.mapped().duplicate().order(ByteOrder.BIG_ENDIAN);
+            int count = buffer.getInt(position + 8);
+            List<Elpris> priser = new ArrayList<>(count);
+            int row = position + BLOCK_HEADER_BYTES;
+            for (int i = 0; i < count; i++, row += ROW_BYTES) {
+                long start = buffer.getLong(row);
+                int length = buffer.getInt(row + 8);
+                ZoneOffset offset = ZoneOffset.ofTotalSeconds(buffer.getInt(row + 12));
+                priser.add(new Elpris(
+                        buffer.getDouble(row + 16),
+                        buffer.getDouble(row + 24),
+                        buffer.getDouble(row + 32),
+                        ZonedDateTime.ofInstant(Instant.ofEpochSecond(start), offset),
+                        ZonedDateTime.ofInstant(Instant.ofEpochSecond(start + length), offset)));
+            }
+            return Collections.unmodifiableList(priser);
+        }
+
+        synchronized void append(int epochDay, List<Elpris> priser) throws IOException {
+            int rowBytes = priser.size() * ROW_BYTES;
+            ByteBuffer block = ByteBuffer.allocate(BLOCK_HEADER_BYTES + rowBytes).order(ByteOrder.BIG_ENDIAN);
+            block.position(BLOCK_HEADER_BYTES);
+            for (Elpris pris : priser) {
+                long start = pris.timeStart().toEpochSecond();
+                block.putLong(start)
+                        .putInt((int) (pris.timeEnd().toEpochSecond() - start))
+                        .putInt(pris.timeStart().getOffset().getTotalSeconds())
+                        .putDouble(pris.sekPerKWh())
+                        .putDouble(pris.eurPerKWh())
+                        .putDouble(pris.exr());
+            }
+            CRC32 crc = new CRC32();
+            crc.update(block.array(), BLOCK_HEADER_BYTES, rowBytes);
+            block.putInt(0, BLOCK_MAGIC)
+                    .putInt(4, epochDay)
+                    .putInt(8, priser.size())
+                    .putInt(12, (int) crc.getValue());
+            block.flip();
+
+            try (FileChannel channel = lock()) {
+                // Ta in block som andra processer hunnit skriva, och klipp ev. trasig svans
+                catchUp(channel);
+                if (isLive(epochDay, block)) {
+                    return;
+                }
+                long position = indexedEnd;
+                while (block.hasRemaining()) {
+                    position += channel.write(block, position);
+                }
+                channel.force(false);
+                catchUp(channel);
+                if (fileKey != null && superseded > view.index().size()) {
+                    compact();
+                }
+            }
+        }
+
+        // Sant om dagens levande block har exakt samma innehåll; CRC:n jämförs först
+        private boolean isLive(int epochDay, ByteBuffer block) {
+            View v = view;
+            Integer position = v.index().get(epochDay);
+            if (position == null
+                    || v.mapped().getInt(position + 8) != block.getInt(8)
+                    || v.mapped().getInt(position + 12) != block.getInt(12)) {
+                return false;
+            }
+            return v.mapped().slice(position, block.limit()).equals(block);
+        }
+
+        /**
+         * Skriver de levande blocken i filordning till en ny fil och byter ut segmentet mot
+         * den. Anropas med instansens monitor och fil-låset på den gamla filen tagna, så
+         * ingen annan hinner skriva till den under tiden.
+         */
+        private void compact() throws IOException {
+            View v = view;
+            List<Integer> positions = new ArrayList<>(v.index().values());
+            Collections.sort(positions);
+            Path tmp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+            try {
+                try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                    ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_BYTES).order(ByteOrder.BIG_ENDIAN);
+                    header.putInt(FILE_MAGIC).putInt(FILE_VERSION).flip();
+                    long position = 0;
+                    while (header.hasRemaining()) position += out.write(header, position);
+                    for (int p : positions) {
+                        int count = v.mapped().getInt(p + 8);
+                        ByteBuffer block = v.mapped().slice(p, BLOCK_HEADER_BYTES + count * ROW_BYTES);
+                        while (block.hasRemaining()) position += out.write(block, position);
+                    }
+                    out.force(true);
+                }
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+            // Den gamla filens lås hålls fortfarande, men den nya har ett eget
+            try (FileChannel channel = lock()) {
+                catchUp(channel);
+            }
+        }
+
+        /**
+         * Mappar om och indexerar nya block om filen har vuxit eller bytts ut sedan sist.
+         * @return true om något nytt indexerades.
+         */
+        private boolean refreshIfGrown() throws IOException {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            if (attributes.size() <= indexedEnd && Objects.equals(attributes.fileKey(), fileKey)) {
+                return false;
+            }
+            synchronized (this) {
+                long before = indexedEnd;
+                Object keyBefore = fileKey;
+                try (FileChannel channel = lock()) {
+                    catchUp(channel);
+                    return indexedEnd != before || !Objects.equals(fileKey, keyBefore);
+                }
+            }
+        }
+
+        /**
+         * Öppnar segmentfilen och tar fil-låset. Har filen bytts ut medan låset väntades in
+         * prövas den nya, och har den bytts ut sedan den indexerades indexeras den om från
+         * början vid nästa {@link #catchUp}. Låset släpps när kanalen stängs.
+         */
+        private FileChannel lock() throws IOException {
+            while (true) {
+                Object key = Files.readAttributes(file, BasicFileAttributes.class).fileKey();
+                FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                try {
+                    channel.lock();
+                    if (Objects.equals(key, Files.readAttributes(file, BasicFileAttributes.class).fileKey())) {
+                        if (!Objects.equals(key, fileKey)) {
+                            fileKey = key;
+                            indexedEnd = 0;
+                        }
+                        return channel;
+                    }
+                } catch (IOException | RuntimeException e) {
+                    channel.close();
+                    throw e;
+                }
+                channel.close();
+            }
+        }
+
+        /**
+         * Validerar block från {@code indexedEnd} och framåt. Ett ofullständigt block eller
+         * ett med fel CRC betyder en avbruten skrivning; filen klipps då vid blockets början.
+         * Anropas med instansens monitor och fil-låset tagna.
+         */
+        private void catchUp(FileChannel channel) throws IOException {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Segmentet är för stort: " + file);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            buffer.order(ByteOrder.BIG_ENDIAN);
+            boolean fromStart = indexedEnd < FILE_HEADER_BYTES;
+            Map<Integer, Integer> index = fromStart ? new HashMap<>() : new HashMap<>(view.index());
+            if (fromStart) {
+                superseded = 0;
+            }
+            int position = fromStart ? FILE_HEADER_BYTES : (int) indexedEnd;
+            CRC32 crc = new CRC32();
+            while (position + BLOCK_HEADER_BYTES <= size) {
+                int magic = buffer.getInt(position);
+                int epochDay = buffer.getInt(position + 4);
+                int count = buffer.getInt(position + 8);
+                int expectedCrc = buffer.getInt(position + 12);
+                long end = position + BLOCK_HEADER_BYTES + (long) count * ROW_BYTES;
+                if (magic != BLOCK_MAGIC || count < 0 || end > size) {
+                    break;
+                }
+                crc.reset();
+                crc.update(buffer.slice(position + BLOCK_HEADER_BYTES, count * ROW_BYTES));
+                if ((int) crc.getValue() != expectedCrc) {
+                    break;
+                }
+                if (index.put(epochDay, position) != null) {
+                    superseded++;
+                }
+                position = (int) end;
+            }
+            if (position < size) {
+                System.err.println("Disk-cachen " + file + " var skadad efter byte " + position + ", trunkerar.");
+                channel.truncate(position);
+                channel.force(true);
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, position);
+            }
+            indexedEnd = position;
+            view = new View(buffer, Map.copyOf(index));
+        }
+    }
+}
@@ -0,0 +1,354 @@
+package com.example.api;
+
+import com.example.api.ElpriserAPI.Elpris;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * En strömmande JSON-tolk skräddarsydd för elpris-API:ts svarsformat:
+ * <pre>
+ * [{"SEK_per_kWh":0.12,"EUR_per_kWh":0.011,"EXR":11.2,
+ *   "time_start":"2025-09-04T00:00:00+02:00","time_end":"2025-09-04T01:00:00+02:00"}, ...]
+ * </pre>
+ * Indata läses en gång, tecken för tecken, och varje objekt blir direkt ett {@link Elpris}
+ * utan mellanliggande strängar eller mappar. Okända fält hoppas över, men saknade fält,
+ * felaktiga tal och tidsstämplar ger ett {@link ElprisParseException} i stället för att
+ * raden tyst försvinner.
+ */
+final class ElprisJsonParser {
+
+    // Tiopotenser som kan representeras exakt som double
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    // Bitar för vilka fält som setts i aktuellt objekt
+    private static final int SEK = 1, EUR = 2, EXR = 4, START = 8, END = 16, ALL = 31;
+
+    private final byte[] in;
+    private final int end;
+    private int pos;
+
+    private ElprisJsonParser(byte[] in, int offset, int length) {
+        this.in = in;
+        this.pos = offset;
+        this.end = offset + length;
+    }
+
+    static List<Elpris> parse(String json) {
+        return parse(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static List<Elpris> parse(byte[] json) {
+        List<Elpris> priser = new ArrayList<>(96);
+        parse(json, 0, json.length, priser::add);
+        return priser;
+    }
+
+    static List<Elpris> parse(InputStream json) throws IOException {
+        return parse(json.readAllBytes());
+    }
+
+    /**
+     * Tolkar {@code length} byte från {@code offset} och lämnar varje pris till {@code sink}
+     * i den ordning de står i indata.
+     */
+    static void parse(byte[] json, int offset, int length, Consumer<Elpris> sink) {
+        new ElprisJsonParser(json, offset, length).parseArray(sink);
+    }
+
+    private void parseArray(Consumer<Elpris> sink) {
+        skipWhitespace();
+        expect('[');
+        skipWhitespace();
+        if (peek() == ']') {
+            pos++;
+        } else {
+            while (true) {
+                sink.accept(parseObject());
+                skipWhitespace();
+                byte b = next();
+                if (b == ']') break;
+                if (b != ',') throw error("Förväntade ',' eller ']'");
+                skipWhitespace();
+            }
+        }
+        skipWhitespace();
+        if (pos != end) {
+            throw error("Oväntat innehåll efter arrayen");
+        }
+    }
+
+    private Elpris parseObject() {
+        expect('{');
+        double sek = 0, eur = 0, exr = 0;
+        ZonedDateTime start = null, slut = null;
+        int seen = 0;
+        skipWhitespace();
+        if (peek() == '}') {
+            throw error("Tomt elpris-objekt");
+        }
+        while (true) {
+            skipWhitespace();
+            int field = parseKey();
+            skipWhitespace();
+            expect(':');
+            skipWhitespace();
+            switch (field) {
+                case SEK -> sek = parseNumber();
+                case EUR -> eur = parseNumber();
+                case EXR -> exr = parseNumber();
+                case START -> start = parseTimestamp();
+                case END -> slut = parseTimestamp();
+                default -> skipValue();
+            }
+            seen |= field;
+            skipWhitespace();
+            byte b = next();
+            if (b == '}') break;
+            if (b != ',') throw error("Förväntade ',' eller '}'");
+        }
+        if ((seen & ALL) != ALL) {
+            throw error("Elpris-objekt saknar fält: " + missingFields(seen));
+        }
+        return new Elpris(sek, eur, exr, start, slut);
+    }
+
+    /**
+     * Läser en nyckel och returnerar fältets bit, eller 0 för okända nycklar.
+     * Nycklarna jämförs direkt mot indata utan att skapa några strängar.
+     */
+    private int parseKey() {
+        expect('"');
+        int from = pos;
+        while (pos < end && in[pos] != '"') {
+            if (in[pos] == '\\') pos++;
+            pos++;
+        }
+        if (pos >= end) throw error("Oavslutad sträng");
+        int length = pos - from;
+        pos++;
+        if (matches(from, length, "SEK_per_kWh")) return SEK;
+        if (matches(from, length, "EUR_per_kWh")) return EUR;
+        if (matches(from, length, "EXR")) return EXR;
+        if (matches(from, length, "time_start")) return START;
+        if (matches(from, length, "time_end")) return END;
+        return 0;
+    }
+
+    private boolean matches(int from, int length, String key) {
+        if (length != key.length()) return false;
+        for (int i = 0; i < length; i++) {
+            if (in[from + i] != key.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Tolkar ett JSON-tal. Som i JSON krävs en heltalsdel, och den får bara börja med 0 om
+     * den är just 0, så {@code .5} och {@code 007} avvisas. Tal med högst 15 signifikanta
+     * siffror och liten exponent räknas ut exakt med en division; övriga faller tillbaka på
+     * {@link Double#parseDouble}.
+     */
+    private double parseNumber() {
+        int from = pos;
+        boolean negative = false;
+        if (peek() == '-') {
+            negative = true;
+            pos++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int scale = 0;
+        if (pos >= end || !isDigit(in[pos])) {
+            throw error("Förväntade ett tal");
+        }
+        if (in[pos] == '0' && pos + 1 < end && isDigit(in[pos + 1])) {
+            pos++;
+            throw error("Talet har inledande nollor");
+        }
+        while (pos < end && isDigit(in[pos])) {
+            mantissa = mantissa * 10 + (in[pos++] - '0');
+            digits += mantissa == 0 ? 0 : 1;
+        }
+        if (pos < end && in[pos] == '.') {
+            pos++;
+            boolean fraction = false;
+            while (pos < end && isDigit(in[pos])) {
+                mantissa = mantissa * 10 + (in[pos++] - '0');
+                digits += mantissa == 0 ? 0 : 1;
+                scale++;
+                fraction = true;
+            }
+            if (!fraction) throw error("Decimaltal saknar siffror efter punkten");
+        }
+        int exponent = 0;
+        if (pos < end && (in[pos] == 'e' || in[pos] == 'E')) {
+            pos++;
+            boolean negativeExponent = false;
+            if (pos < end && (in[pos] == '+' || in[pos] == '-')) {
+                negativeExponent = in[pos++] == '-';
+            }
+            if (pos >= end || !isDigit(in[pos])) throw error("Ogiltig exponent");
+            while (pos < end && isDigit(in[pos])) {
+                exponent = Math.min(exponent * 10 + (in[pos++] - '0'), 10_000);
+            }
+            if (negativeExponent) exponent = -exponent;
+        }
+        int power = exponent - scale;
+        if (digits <= 15 && power >= -22 && power <= 22) {
+            double value = power < 0 ? mantissa / POWERS_OF_TEN[-power] : mantissa * POWERS_OF_TEN[power];
+            return negative ? -value : value;
+        }
+        return Double.parseDouble(new String(in, from, pos - from, StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Tolkar en tidsstämpel i fast format {@code "yyyy-MM-ddTHH:mm:ss+HH:MM"} (eller med
+     * {@code Z}), med valfria decimalsekunder som ignoreras. Ett ogiltigt datum eller en
+     * ogiltig offset, t.ex. {@code +19:00} eller {@code +05:99}, ger {@link ElprisParseException}.
+     */
+    private ZonedDateTime parseTimestamp() {
+        expect('"');
+        int year = digits(4);
+        expect('-');
+        int month = digits(2);
+        expect('-');
+        int day = digits(2);
+        expect('T');
+        int hour = digits(2);
+        expect(':');
+        int minute = digits(2);
+        expect(':');
+        int second = digits(2);
+        if (peek() == '.') {
+            pos++;
+            if (pos >= end || !isDigit(in[pos])) throw error("Decimalsekunder saknar siffror");
+            while (pos < end && isDigit(in[pos])) pos++;
+        }
+        int offsetHours = 0;
+        int offsetMinutes = 0;
+        byte sign = next();
+        if (sign == '+' || sign == '-') {
+            offsetHours = digits(2);
+            expect(':');
+            offsetMinutes = digits(2);
+            if (sign == '-') {
+                offsetHours = -offsetHours;
+                offsetMinutes = -offsetMinutes;
+            }
+        } else if (sign != 'Z') {
+            pos--;
+            throw error("Förväntade tidszon i tidsstämpeln");
+        }
+        expect('"');
+        try {
+            // Även offseten kontrolleras här, så att t.ex. +05:99 inte blir 06:39
+            ZoneOffset offset = ZoneOffset.ofHoursMinutes(offsetHours, offsetMinutes);
+            return ZonedDateTime.of(year, month, day, hour, minute, second, 0, offset);
+        } catch (DateTimeException e) {
+            throw error("Ogiltig tidsstämpel: " + e.getMessage());
+        }
+    }
+
+    private int digits(int count) {
+        if (pos + count > end) throw error("Tidsstämpeln är för kort");
+        int value = 0;
+        for (int i = 0; i < count; i++) {
+            byte b = in[pos];
+            if (!isDigit(b)) throw error("Förväntade en siffra");
+            value = value * 10 + (b - '0');
+            pos++;
+        }
+        return value;
+    }
+
+    /** Hoppar över ett godtyckligt JSON-värde för okända fält. */
+    private void skipValue() {
+        byte b = peek();
+        if (b == '"') {
+            pos++;
+            while (pos < end && in[pos] != '"') {
+                if (in[pos] == '\\') pos++;
+                pos++;
+            }
+            if (pos >= end) throw error("Oavslutad sträng");
+            pos++;
+        } else if (b == '{' || b == '[') {
+            int depth = 0;
+            do {
+                byte c = next();
+                if (c == '"') {
+                    pos--;
+                    skipValue();
+                } else if (c == '{' || c == '[') {
+                    depth++;
+                } else if (c == '}' || c == ']') {
+                    depth--;
+                }
+            } while (depth > 0);
+        } else if (b == '-' || isDigit(b)) {
+            parseNumber();
+        } else if (!skipLiteral("true") && !skipLiteral("false") && !skipLiteral("null")) {
+            throw error("Ogiltigt JSON-värde");
+        }
+    }
+
+    private boolean skipLiteral(String literal) {
+        if (!matches(pos, Math.min(literal.length(), end - pos), literal)) return false;
+        pos += literal.length();
+        return true;
+    }
+
+    private static String missingFields(int seen) {
+        StringBuilder sb = new StringBuilder();
+        if ((seen & SEK) == 0) sb.append("SEK_per_kWh ");
+        if ((seen & EUR) == 0) sb.append("EUR_per_kWh ");
+        if ((seen & EXR) == 0) sb.append("EXR ");
+        if ((seen & START) == 0) sb.append("time_start ");
+        if ((seen & END) == 0) sb.append("time_end ");
+        return sb.toString().trim();
+    }
+
+    private void skipWhitespace() {
+        while (pos < end) {
+            byte b = in[pos];
+            if (b != ' ' && b != '\n' && b != '\r' && b != '\t') return;
+            pos++;
+        }
+    }
+
+    private byte peek() {
+        if (pos >= end) throw error("Oväntat slut på indata");
+        return in[pos];
+    }
+
+    private byte next() {
+        if (pos >= end) throw error("Oväntat slut på indata");
+        return in[pos++];
+    }
+
+    private void expect(char c) {
+        if (next() != c) {
+            pos--;
+            throw error("Förväntade '" + c + "'");
+        }
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    private ElprisParseException error(String message) {
+        return new ElprisParseException(message, pos);
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.api;
+
+/**
+ * Kastas när ett svar från elpris-API:t inte följer det förväntade JSON-formatet.
+ * Positionen anger vilken byte i indata som felet upptäcktes vid.
+ */
+public final class ElprisParseException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int position;
+
+    public ElprisParseException(String message, int position) {
+        super(message + " (position " + position + ")");
+        this.position = position;
+    }
+
+    private ElprisParseException(String source, ElprisParseException cause) {
+        super(source + ": " + cause.getMessage(), cause);
+        this.position = cause.position;
+    }
+
+    /** Samma fel, med en angiven källa (t.ex. ett filnamn) först i meddelandet. */
+    ElprisParseException withSource(String source) {
+        return new ElprisParseException(source, this);
+    }
+
+    public int getPosition() {
+        return position;
+    }
+}
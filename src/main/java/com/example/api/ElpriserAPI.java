@@ -1,38 +1,79 @@
 package com.example.api;
 
+import com.example.api.ElpriserInstrumentation.Tier;
+
 import java.io.IOException;
-import java.net.URI;
 import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
 import java.util.Collections;
+import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.OptionalDouble;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 
 /**
  * Ett enkelt API för att hämta elpriser från elprisetjustnu.se.
  * Klassen använder endast standardbibliotek från Java 21+ (HttpClient, Records, etc.).
+ * <p>
+ * Klienten äger trådarna för asynkrona hämtningar och ska stängas med {@link #close()}
+ * när den inte längre behövs.
  */
-public final class ElpriserAPI {
+public final class ElpriserAPI implements AutoCloseable {
 
-    // Baskonstanter för API-anrop
-    private static final String API_BASE_URL = "https://www.elprisetjustnu.se/api/v1/prices";
-    private static final DateTimeFormatter URL_DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy/MM-dd");
+    // Varifrån dagar som inte finns i cachen hämtas; standard är API:t via HttpPriceSource
+    private final PriceSource source;
 
-    // En återanvändbar HttpClient-instans
-    private final HttpClient httpClient;
+    // Om källan är standardkällan; bara den kan ersättas av de statiska test-mockarna
+    private final boolean defaultSource;
     
     // Flagga för att styra cachlagring
     private final boolean cachingEnabled;
     
-    // Ett enkelt minnes-cache. Nyckeln är en kombination av datum och prisklass, t.ex. "2025-08-30_SE3"
-    private final Map<String, List<Elpris>> inMemoryCache;
+    // Tidszonen som API:ts dagar och publiceringstider avser
+    public static final ZoneId STOCKHOLM = ZoneId.of("Europe/Stockholm");
+
+    // Klocka för "idag" och cachens livslängder, utbytbar i tester
+    private final Clock clock;
+
+    // Storleksbegränsad minnes-cache med livslängd per post, se PriceCache
+    private final PriceCache inMemoryCache;
+
+    // Persistent cache med ett binärt segment per prisklass, se DiskCache
+    private final DiskCache diskCache;
+
+    // Mätpunkter för cache, hämtning och tolkning; gör inget om inget annat anges
+    private final ElpriserInstrumentation instrumentation;
+
+    // Standardgräns för samtidiga nätverkshämtningar
+    private static final int DEFAULT_MAX_CONCURRENT_FETCHES = 8;
+
+    // Virtuella trådar för asynkrona hämtningar; de blockerande anropen blir billiga
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    // Begränsar antalet samtidiga anrop mot elprisetjustnu.se
+    private final Semaphore fetchPermits;
+
+    // Pågående hämtningar per packad (datum, prisklass)-nyckel, så att samtidiga missar delar en hämtning
+    private final ConcurrentHashMap<Long, CompletableFuture<List<Elpris>>> inFlight = new ConcurrentHashMap<>();
 
     /**
      * En record som representerar ett enskilt elpris för en given tidsperiod.
@@ -58,10 +99,10 @@ public final class ElpriserAPI {
      * This supplier is used ONLY for testing. If it's not null, the class will
      * use the String it provides instead of making a real HTTP call.
      */
-    private static Supplier<String> mockResponseSupplier = null;
+    private static volatile Supplier<String> mockResponseSupplier = null;
     
     // New: map mock responses per date, so tests can provide different JSON per day
-    private static java.util.Map<LocalDate, String> datedMockResponses = new java.util.HashMap<>();
+    private static final Map<LocalDate, String> datedMockResponses = new ConcurrentHashMap<>();
 
     /**
      * FOR TESTS ONLY: Sets a mock JSON response to be returned by the next API call.
@@ -106,13 +147,180 @@ public final class ElpriserAPI {
      * @param enableCaching Sätt till true för att aktivera minnes-cachning, annars false.
      */
     public ElpriserAPI(boolean enableCaching) {
-        this.httpClient = HttpClient.newBuilder()
-                .followRedirects(HttpClient.Redirect.NORMAL)
-                .build();
-        this.cachingEnabled = enableCaching;
-        // ConcurrentHashMap är trådsäker om klassen skulle användas i flera trådar
-        this.inMemoryCache = new ConcurrentHashMap<>();
-        System.out.println("ElpriserAPI initialiserat. Cachning: " + (enableCaching ? "På" : "Av"));
+        this(enableCaching, DiskCache.defaultDirectory());
+    }
+
+    /**
+     * Konstruktor som även anger var disk-cachen ska ligga.
+     * @param enableCaching Sätt till true för att aktivera minnes- och disk-cachning, annars false.
+     * @param diskCacheDir Katalog för disk-cachens segmentfiler.
+     */
+    public ElpriserAPI(boolean enableCaching, Path diskCacheDir) {
+        this(builder().caching(enableCaching).diskCacheDir(diskCacheDir));
+    }
+
+    private ElpriserAPI(Builder builder) {
+        this.cachingEnabled = builder.caching;
+        this.clock = builder.clock;
+        // PriceCache är trådsäker om klassen skulle användas i flera trådar
+        this.inMemoryCache = new PriceCache(builder.maxCachedDays, PriceCache.DEFAULT_RECENT_TTL, clock);
+        this.diskCache = new DiskCache(builder.diskCacheDir);
+        this.fetchPermits = new Semaphore(builder.maxConcurrentFetches);
+        this.instrumentation = builder.instrumentation;
+        this.defaultSource = builder.source == null;
+        this.source = defaultSource ? httpSource(builder) : builder.source;
+    }
+
+    private PriceSource httpSource(Builder builder) {
+        // Inställningarna kopieras, eftersom byggaren kan ändras efter build()
+        Duration connectTimeout = builder.connectTimeout;
+        String baseUrl = builder.baseUrl;
+        Duration requestTimeout = builder.requestTimeout;
+        int maxAttempts = builder.maxAttempts;
+        Duration baseBackoff = builder.baseBackoff;
+        int failureThreshold = builder.failureThreshold;
+        Duration openDuration = builder.openDuration;
+        // Nätverksdelen byggs först när en dag inte finns i cachen
+        return new HttpPriceSource(() -> {
+            // En återanvändbar HttpClient-instans; anslutningarna hålls öppna mellan anropen
+            HttpClient httpClient = HttpClient.newBuilder()
+                    .connectTimeout(connectTimeout)
+                    .followRedirects(HttpClient.Redirect.NORMAL)
+                    .build();
+            return new HttpFetcher(httpClient, baseUrl, requestTimeout, maxAttempts, baseBackoff,
+                    new CircuitBreaker(failureThreshold, openDuration, clock), fetchPermits, instrumentation);
+        }, instrumentation);
+    }
+
+    /**
+     * Skapar en byggare för en API-klient med andra inställningar än standard.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Byggare för {@link ElpriserAPI}. Alla inställningar har rimliga standardvärden.
+     */
+    public static final class Builder {
+        private boolean caching = true;
+        private Path diskCacheDir = DiskCache.defaultDirectory();
+        private int maxCachedDays = PriceCache.DEFAULT_MAX_ENTRIES;
+        private Clock clock = Clock.system(STOCKHOLM);
+        private int maxConcurrentFetches = DEFAULT_MAX_CONCURRENT_FETCHES;
+        private ElpriserInstrumentation instrumentation = ElpriserInstrumentation.NOOP;
+        private String baseUrl = HttpFetcher.DEFAULT_BASE_URL;
+        private Duration connectTimeout = HttpFetcher.DEFAULT_CONNECT_TIMEOUT;
+        private Duration requestTimeout = HttpFetcher.DEFAULT_REQUEST_TIMEOUT;
+        private int maxAttempts = HttpFetcher.DEFAULT_MAX_ATTEMPTS;
+        private Duration baseBackoff = HttpFetcher.DEFAULT_BASE_BACKOFF;
+        private int failureThreshold = HttpFetcher.DEFAULT_FAILURE_THRESHOLD;
+        private Duration openDuration = HttpFetcher.DEFAULT_OPEN_DURATION;
+        private PriceSource source;
+
+        private Builder() {}
+
+        /** Aktiverar eller stänger av minnes- och disk-cachning. */
+        public Builder caching(boolean enabled) {
+            this.caching = enabled;
+            return this;
+        }
+
+        /** Katalog för disk-cachens segmentfiler. */
+        public Builder diskCacheDir(Path dir) {
+            this.diskCacheDir = Objects.requireNonNull(dir);
+            return this;
+        }
+
+        /** Hur många (datum, prisklass)-poster minnes-cachen högst får hålla. */
+        public Builder maxCachedDays(int maxCachedDays) {
+            if (maxCachedDays <= 0) throw new IllegalArgumentException("maxCachedDays måste vara positivt");
+            this.maxCachedDays = maxCachedDays;
+            return this;
+        }
+
+        /** Klockan som avgör vad som är "idag" och när cachade poster går ut. */
+        public Builder clock(Clock clock) {
+            this.clock = Objects.requireNonNull(clock);
+            return this;
+        }
+
+        /** Hur många nätverkshämtningar som högst får pågå samtidigt. */
+        public Builder maxConcurrentFetches(int maxConcurrentFetches) {
+            if (maxConcurrentFetches <= 0) throw new IllegalArgumentException("maxConcurrentFetches måste vara positivt");
+            this.maxConcurrentFetches = maxConcurrentFetches;
+            return this;
+        }
+
+        /**
+         * Mätpunkter för cache, hämtning och tolkning, t.ex. {@link MetricsInstrumentation}
+         * eller {@link ElpriserInstrumentation#logging}.
+         */
+        public Builder instrumentation(ElpriserInstrumentation instrumentation) {
+            this.instrumentation = Objects.requireNonNull(instrumentation);
+            return this;
+        }
+
+        /** Bas-URL för API:t, t.ex. en lokal testserver. Standard är elprisetjustnu.se. */
+        public Builder baseUrl(String baseUrl) {
+            this.baseUrl = Objects.requireNonNull(baseUrl);
+            return this;
+        }
+
+        /** Hur länge en ny anslutning får ta att upprätta. */
+        public Builder connectTimeout(Duration timeout) {
+            this.connectTimeout = requirePositive(timeout, "connectTimeout");
+            return this;
+        }
+
+        /** Hur länge ett enskilt anrop får ta, från skickad förfrågan till mottagna huvuden. */
+        public Builder requestTimeout(Duration timeout) {
+            this.requestTimeout = requirePositive(timeout, "requestTimeout");
+            return this;
+        }
+
+        /**
+         * Omförsök vid 5xx, 429 och nätverksfel.
+         * @param maxAttempts Totalt antal försök per dag, minst 1 (1 betyder inga omförsök).
+         * @param baseBackoff Övre gräns för den första pausen; fördubblas för varje försök.
+         */
+        public Builder retries(int maxAttempts, Duration baseBackoff) {
+            if (maxAttempts <= 0) throw new IllegalArgumentException("maxAttempts måste vara positivt");
+            this.maxAttempts = maxAttempts;
+            this.baseBackoff = Objects.requireNonNull(baseBackoff);
+            return this;
+        }
+
+        /**
+         * Kretsbrytare: efter {@code failureThreshold} misslyckade anrop i rad görs inga nya
+         * anrop under {@code openDuration}. Under tiden används utgångna poster i minnes-cachen.
+         */
+        public Builder circuitBreaker(int failureThreshold, Duration openDuration) {
+            if (failureThreshold <= 0) throw new IllegalArgumentException("failureThreshold måste vara positivt");
+            this.failureThreshold = failureThreshold;
+            this.openDuration = Objects.requireNonNull(openDuration);
+            return this;
+        }
+
+        /**
+         * Hämtar priser från en annan källa än API:t, t.ex. {@link PriceSource#replay} eller
+         * {@link PriceSource#synthetic}. Bas-URL, tidsgränser, omförsök och kretsbrytare gäller
+         * bara standardkällan, liksom {@link #setMockResponse}. Disk-cachen används bara om
+         * källan är {@linkplain PriceSource#persistent() persistent}.
+         */
+        public Builder source(PriceSource source) {
+            this.source = Objects.requireNonNull(source);
+            return this;
+        }
+
+        private static Duration requirePositive(Duration d, String namn) {
+            if (d.isNegative() || d.isZero()) throw new IllegalArgumentException(namn + " måste vara positivt");
+            return d;
+        }
+
+        public ElpriserAPI build() {
+            return new ElpriserAPI(this);
+        }
     }
 
     /**
@@ -141,161 +349,428 @@ public final class ElpriserAPI {
      * @return En lista av {@link Elpris}-objekt, eller en tom lista om data inte kunde hämtas.
      */
     public List<Elpris> getPriser(LocalDate datum, Prisklass prisklass) {
-        String cacheKey = getCacheKey(datum, prisklass);
-
         // Steg 1: Kolla minnes-cachen
-        if (cachingEnabled && inMemoryCache.containsKey(cacheKey)) {
-            System.out.println("Hämtar från minnes-cache för " + cacheKey);
-            return inMemoryCache.get(cacheKey);
+        if (cachingEnabled) {
+            List<Elpris> cachade = inMemoryCache.get(datum, prisklass);
+            if (cachade != null) {
+                instrumentation.cacheHit(Tier.MEMORY, datum, prisklass);
+                return cachade;
+            }
+            instrumentation.cacheMiss(datum, prisklass);
         }
+        return fetchShared(datum, prisklass, true);
+    }
 
-        // Steg 2: Försök ladda från disk-cache (framtida implementation)
-        var priserFrånDisk = loadFromDiskCache(cacheKey);
-        if (cachingEnabled && priserFrånDisk != null && !priserFrånDisk.isEmpty()) {
-             System.out.println("Hämtar från disk-cache för " + cacheKey);
-             inMemoryCache.put(cacheKey, priserFrånDisk); // Lägg i minnes-cachen för snabbare åtkomst nästa gång
-             return priserFrånDisk;
+    /**
+     * Som {@link #getPriser(LocalDate, Prisklass)}, men ett sparat 404-svar räknas som en
+     * miss, så att dagen frågas efter igen. Används av {@link PrefetchScheduler} för att
+     * hitta nya priser så snart de publicerats.
+     */
+    List<Elpris> refresh(LocalDate datum, Prisklass prisklass) {
+        if (cachingEnabled) {
+            List<Elpris> cachade = inMemoryCache.get(datum, prisklass);
+            if (cachade != null && !cachade.isEmpty()) {
+                instrumentation.cacheHit(Tier.MEMORY, datum, prisklass);
+                return cachade;
+            }
+            instrumentation.cacheMiss(datum, prisklass);
+        }
+        return fetchShared(datum, prisklass, false);
+    }
+
+    /** {@link #refresh} på en virtuell tråd. */
+    CompletableFuture<List<Elpris>> refreshAsync(LocalDate datum, Prisklass prisklass) {
+        return CompletableFuture.supplyAsync(() -> refresh(datum, prisklass), executor);
+    }
+
+    /**
+     * Samtidiga missar för samma dag och prisklass delar på en enda hämtning:
+     * den första tråden hämtar, övriga väntar på dess resultat.
+     * @param trustUnpublished Om ett sparat 404-svar får besvara anropet.
+     */
+    private List<Elpris> fetchShared(LocalDate datum, Prisklass prisklass, boolean trustUnpublished) {
+        long key = PriceCache.key(datum, prisklass);
+        CompletableFuture<List<Elpris>> egen = new CompletableFuture<>();
+        CompletableFuture<List<Elpris>> pågående = inFlight.putIfAbsent(key, egen);
+        if (pågående != null) {
+            instrumentation.fetchCoalesced(datum, prisklass);
+            try {
+                return pågående.join();
+            } catch (CompletionException e) {
+                // Ge väntande trådar samma fel som den hämtande tråden fick
+                if (e.getCause() instanceof RuntimeException re) throw re;
+                throw e;
+            }
+        }
+        try {
+            // En annan tråd kan ha hunnit fylla cachen innan vi registrerade hämtningen; missen
+            // är redan räknad av anroparen
+            List<Elpris> priser = cachingEnabled ? inMemoryCache.lookup(datum, prisklass) : null;
+            if (priser == null || (priser.isEmpty() && !trustUnpublished)) {
+                priser = fetch(datum, prisklass, trustUnpublished);
+            }
+            egen.complete(priser);
+            return priser;
+        } catch (RuntimeException | Error e) {
+            egen.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, egen);
         }
+    }
 
+    /**
+     * Hämtar en dag som inte fanns i minnes-cachen: från mock-data, disk-cachen eller
+     * källan, i den ordningen. Anropas av högst en tråd åt gången per dag och prisklass.
+     */
+    private List<Elpris> fetch(LocalDate datum, Prisklass prisklass, boolean trustUnpublished) {
         // Check for a mock response before making a network call ---
-        if (mockResponseSupplier != null || !datedMockResponses.isEmpty()) {
-            System.out.println("!!! ANVÄNDER MOCK-DATA FÖR TEST !!!");
-            String mockJson = datedMockResponses.getOrDefault(datum, mockResponseSupplier == null ? null : mockResponseSupplier.get());
+        // Mock-data går förbi disk-cachen så att tester inte påverkas av tidigare körningar
+        Supplier<String> mock = mockResponseSupplier;
+        if (mocksActive()) {
+            instrumentation.mockResponse(datum, prisklass);
+            String mockJson = datedMockResponses.getOrDefault(datum, mock == null ? null : mock.get());
             if (mockJson == null || mockJson.isBlank()) {
                 return Collections.emptyList();
             }
-            List<Elpris> priser = parseSimpleJson(mockJson);
+            List<Elpris> priser = HttpPriceSource.parse(mockJson.getBytes(StandardCharsets.UTF_8), instrumentation);
             if (cachingEnabled && !priser.isEmpty()) {
-                inMemoryCache.put(cacheKey, priser);
+                inMemoryCache.put(datum, prisklass, priser);
             }
             return priser;
         }
         // --- End of mock check ---
 
-        // Steg 3: Hämta från nätverket om det inte finns i cachen
-        System.out.println("Hämtar från nätverket för " + cacheKey);
-        String url = buildUrl(datum, prisklass);
+        // En utgången post i minnes-cachen valideras om mot API:t och används om API:t inte svarar
+        PriceCache.Entry gammal = cachingEnabled ? inMemoryCache.peek(datum, prisklass) : null;
+        if (gammal != null && gammal.priser().isEmpty()) {
+            gammal = null; // En utgången "ej publicerad"-post har inget att validera eller falla tillbaka på
+        }
+
+        // Steg 2: Försök ladda från disk-cache
+        boolean disk = cachingEnabled && source.persistent();
+        if (disk && gammal == null) {
+            List<Elpris> priserFrånDisk = fromDiskCache(datum, prisklass, trustUnpublished);
+            if (priserFrånDisk != null) {
+                return priserFrånDisk;
+            }
+        }
+
+        // Steg 3: Hämta från källan om det inte finns i cachen
+        PriceSource.Validators validators = gammal != null ? gammal.validators() : PriceSource.Validators.NONE;
+        PriceSource.Response response;
         try {
-            HttpRequest request = HttpRequest.newBuilder().uri(URI.create(url)).GET().build();
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            response = source.fetch(datum, prisklass, validators);
+        } catch (IOException e) {
+            System.err.println("Ett fel inträffade vid hämtning av elpriser: " + e.getMessage());
+            return stale(datum, prisklass, gammal);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt(); // Bra praxis vid InterruptedException
+            return stale(datum, prisklass, gammal);
+        }
 
-            // Om sidan inte finns (t.ex. priser för morgondagen) returneras 404
-            if (response.statusCode() == 404) {
-                System.out.println("Inga priser hittades för " + cacheKey + " (HTTP 404).");
+        // Oförändrad sedan förra hämtningen: behåll raderna och förnya livslängden
+        if (response.status() == PriceSource.Status.NOT_MODIFIED) {
+            if (gammal == null) {
                 return Collections.emptyList();
             }
-            if (response.statusCode() != 200) {
-                 System.err.println("Misslyckades med att hämta priser. Statuskod: " + response.statusCode());
-                 return Collections.emptyList();
+            inMemoryCache.put(datum, prisklass, gammal.priser(), response.validators());
+            return gammal.priser();
+        }
+        // Om dagen inte finns (t.ex. priser för morgondagen) svarar API:t 404. Det sparas
+        // fram till förväntad publicering så att nya frågor inte går till nätverket
+        if (response.status() == PriceSource.Status.NOT_PUBLISHED) {
+            if (cachingEnabled) {
+                long giltigTill = inMemoryCache.unpublishedExpiry(datum);
+                inMemoryCache.putUnpublished(datum, prisklass, giltigTill);
+                if (disk) {
+                    saveUnpublishedToDiskCache(datum, prisklass, giltigTill);
+                }
             }
+            return Collections.emptyList();
+        }
 
-            List<Elpris> priser = parseSimpleJson(response.body());
+        List<Elpris> priser = response.priser();
 
-            // Steg 4: Spara i cache om cachning är på
-            if (cachingEnabled && !priser.isEmpty()) {
-                inMemoryCache.put(cacheKey, priser);
-                saveToDiskCache(cacheKey, response.body()); // Spara rådata till disk (framtida implementation)
+        // Steg 4: Spara i cache om cachning är på
+        if (cachingEnabled && !priser.isEmpty()) {
+            inMemoryCache.put(datum, prisklass, priser, response.validators());
+            if (disk) {
+                saveToDiskCache(datum, prisklass, priser); // Spara de tolkade raderna binärt på disk
             }
-            return priser;
+        }
+        return priser;
+    }
 
-        } catch (IOException | InterruptedException e) {
-            System.err.println("Ett fel inträffade vid hämtning av elpriser: " + e.getMessage());
-            // I ett produktionssystem skulle man vilja logga detta fel mer utförligt
-            Thread.currentThread().interrupt(); // Bra praxis vid InterruptedException
+    /**
+     * Läser en dag ur disk-cachen och lägger den i minnes-cachen.
+     * @return Priserna, en tom lista för ett sparat 404-svar som fortfarande gäller, eller null.
+     */
+    private List<Elpris> fromDiskCache(LocalDate datum, Prisklass prisklass, boolean trustUnpublished) {
+        var priserFrånDisk = loadFromDiskCache(datum, prisklass);
+        if (priserFrånDisk != null && !priserFrånDisk.isEmpty()) {
+            instrumentation.cacheHit(Tier.DISK, datum, prisklass);
+            inMemoryCache.put(datum, prisklass, priserFrånDisk); // Lägg i minnes-cachen för snabbare åtkomst nästa gång
+            return priserFrånDisk;
+        }
+        // En tidigare process kan ha fått 404 för dagen alldeles nyss
+        long ejPubliceradTill = trustUnpublished ? loadUnpublishedFromDiskCache(datum, prisklass) : 0;
+        if (ejPubliceradTill > clock.millis()) {
+            instrumentation.cacheHit(Tier.DISK, datum, prisklass);
+            inMemoryCache.putUnpublished(datum, prisklass, ejPubliceradTill);
             return Collections.emptyList();
         }
+        return null;
     }
 
-    // --- Privata hjälpmetoder ---
+    // Mock-data ersätter bara standardkällan
+    private boolean mocksActive() {
+        return defaultSource && (mockResponseSupplier != null || !datedMockResponses.isEmpty());
+    }
 
-    private String buildUrl(LocalDate datum, Prisklass prisklass) {
-        String formattedDate = datum.format(URL_DATE_FORMATTER);
-        return String.format("%s/%s_%s.json", API_BASE_URL, formattedDate, prisklass.name());
+    /**
+     * Svar när API:t inte gick att nå: den utgångna posten om det finns en, annars en tom lista.
+     */
+    private List<Elpris> stale(LocalDate datum, Prisklass prisklass, PriceCache.Entry gammal) {
+        if (gammal == null) {
+            return Collections.emptyList();
+        }
+        instrumentation.staleServed(datum, prisklass);
+        return gammal.priser();
     }
-    
-    private String getCacheKey(LocalDate datum, Prisklass prisklass) {
-        return datum.format(DateTimeFormatter.ISO_LOCAL_DATE) + "_" + prisklass.name();
+
+    /**
+     * Priser som redan finns i minnes- eller disk-cachen, utan att källan anropas och utan
+     * att några trådar startas. Används av korta körningar som {@code Main} för att svara
+     * direkt från cachen och bara hämta det som saknas.
+     *
+     * @return Priserna, en tom lista om dagen är sparad som ej publicerad, eller null om
+     *         dagen inte finns i cachen.
+     */
+    public List<Elpris> getCachedPriser(LocalDate datum, Prisklass prisklass) {
+        if (!cachingEnabled) {
+            return null;
+        }
+        // En miss räknas bara om disken svarar; annars räknas den när anroparen hämtar dagen
+        List<Elpris> cachade = inMemoryCache.lookup(datum, prisklass);
+        if (cachade != null) {
+            inMemoryCache.record(true);
+            instrumentation.cacheHit(Tier.MEMORY, datum, prisklass);
+            return cachade;
+        }
+        if (!source.persistent() || mocksActive() || inMemoryCache.peek(datum, prisklass) != null) {
+            return null; // En utgången post ska valideras om mot källan, inte ersättas från disk
+        }
+        List<Elpris> priserFrånDisk = fromDiskCache(datum, prisklass, true);
+        if (priserFrånDisk != null) {
+            inMemoryCache.record(false);
+            instrumentation.cacheMiss(datum, prisklass);
+        }
+        return priserFrånDisk;
     }
 
     /**
-     * En mycket enkel JSON-parser som är skräddarsydd för just detta API:s svarsformat.
-     * Denna metod är inte en generell JSON-parser och är känslig för ändringar i formatet.
+     * Hämtar elpriser asynkront. En träff i minnes-cachen ger en redan färdig future;
+     * annars körs hämtningen på en virtuell tråd.
+     *
+     * @param datum Dagen att hämta priser för.
+     * @param prisklass Elprisområdet (SE1, SE2, SE3 eller SE4).
+     * @return En future med priserna, eller en tom lista om data inte kunde hämtas.
      */
-    private List<Elpris> parseSimpleJson(String json) {
-        List<Elpris> priser = new ArrayList<>();
-        // Ta bort yttre [ och ], samt eventuella blanksteg
-        String trimmedJson = json.trim();
-        if (!trimmedJson.startsWith("[") || !trimmedJson.endsWith("]")) {
-            return Collections.emptyList();
+    public CompletableFuture<List<Elpris>> getPriserAsync(LocalDate datum, Prisklass prisklass) {
+        if (cachingEnabled) {
+            List<Elpris> cachade = inMemoryCache.get(datum, prisklass);
+            if (cachade != null) {
+                instrumentation.cacheHit(Tier.MEMORY, datum, prisklass);
+                return CompletableFuture.completedFuture(cachade);
+            }
+            instrumentation.cacheMiss(datum, prisklass);
         }
-        String content = trimmedJson.substring(1, trimmedJson.length() - 1).trim();
-        if (content.isEmpty()) {
-            return Collections.emptyList();
+        // Haka på en redan pågående hämtning; copy() hindrar anroparen från att fullborda den
+        CompletableFuture<List<Elpris>> pågående = inFlight.get(PriceCache.key(datum, prisklass));
+        if (pågående != null) {
+            instrumentation.fetchCoalesced(datum, prisklass);
+            return pågående.copy();
         }
+        // Missen är redan räknad, så gå direkt till hämtningen i stället för via getPriser
+        return CompletableFuture.supplyAsync(() -> fetchShared(datum, prisklass, true), executor);
+    }
 
-        // Dela upp i enskilda JSON-objekt
-        String[] objects = content.split("}\\s*,\\s*\\{");
+    /**
+     * Hämtar priser för alla dagar i ett intervall och för flera prisklasser. Dagarna hämtas
+     * parallellt, men aldrig fler samtidiga nätverksanrop än klientens gräns.
+     *
+     * @param intervall Dagarna att hämta, båda ändpunkterna inräknade.
+     * @param prisklasser Elprisområdena att hämta.
+     * @return Priserna per prisklass i tidsordning. Dagar som inte kunde hämtas saknas i listan.
+     */
+    public Map<Prisklass, List<Elpris>> getPriser(DateRange intervall, Set<Prisklass> prisklasser) {
+        Map<Prisklass, List<CompletableFuture<List<Elpris>>>> futures = new EnumMap<>(Prisklass.class);
+        for (Prisklass prisklass : prisklasser) {
+            List<CompletableFuture<List<Elpris>>> perDag = new ArrayList<>(intervall.days());
+            intervall.stream().forEach(datum -> perDag.add(getPriserAsync(datum, prisklass)));
+            futures.put(prisklass, perDag);
+        }
+        Map<Prisklass, List<Elpris>> resultat = new EnumMap<>(Prisklass.class);
+        futures.forEach((prisklass, perDag) -> {
+            List<Elpris> priser = new ArrayList<>(perDag.size() * 24);
+            for (CompletableFuture<List<Elpris>> dag : perDag) {
+                priser.addAll(dag.join());
+            }
+            resultat.put(prisklass, priser);
+        });
+        return resultat;
+    }
 
-        for (String objStr : objects) {
-            // Rensa bort resterande { och }
-            String cleanObjStr = objStr.replace("{", "").replace("}", "");
-            
-            try {
-                // Skapa en temporär map för att hålla värdena för ett objekt
-                Map<String, String> valueMap = new java.util.HashMap<>();
-                String[] pairs = cleanObjStr.split(",");
-                for (String pair : pairs) {
-                    String[] keyValue = pair.split(":", 2);
-                    String key = keyValue[0].trim().replace("\"", "");
-                    String value = keyValue[1].trim().replace("\"", "");
-                    valueMap.put(key, value);
-                }
+    /**
+     * Hämtar ett intervall för en prisklass som en kolumnvis {@link PriceSeries}. Dagarna
+     * hämtas parallellt och varje dags serie återanvänds från cachen, se
+     * {@link #getPriceSeries(LocalDate, Prisklass)}.
+     */
+    public PriceSeries getPriceSeries(DateRange intervall, Prisklass prisklass) {
+        List<LocalDate> dagar = intervall.stream().toList();
+        List<CompletableFuture<List<Elpris>>> perDag = new ArrayList<>(dagar.size());
+        for (LocalDate datum : dagar) {
+            perDag.add(getPriserAsync(datum, prisklass));
+        }
+        List<PriceSeries> delar = new ArrayList<>(dagar.size());
+        int upplösning = 0;
+        boolean blandad = false;
+        for (int i = 0; i < dagar.size(); i++) {
+            PriceSeries del = series(dagar.get(i), prisklass, perDag.get(i).join());
+            if (del.isEmpty()) continue;
+            blandad |= upplösning != 0 && del.intervalSeconds() != upplösning;
+            upplösning = del.intervalSeconds();
+            delar.add(del);
+        }
+        if (blandad) {
+            // T.ex. timpriser före och kvartspriser efter ett byte: dela upp allt på den finaste upplösningen
+            List<Elpris> priser = new ArrayList<>();
+            for (CompletableFuture<List<Elpris>> dag : perDag) {
+                priser.addAll(dag.join());
+            }
+            return PriceSeries.of(priser);
+        }
+        return PriceSeries.concat(delar);
+    }
+
+    /**
+     * Hämtar en dag som en kolumnvis {@link PriceSeries}. Serien byggs en gång per cachad
+     * dag och delas sedan av alla anrop, så uppslag på tid i samma dag kostar O(1).
+     */
+    public PriceSeries getPriceSeries(LocalDate datum, Prisklass prisklass) {
+        return series(datum, prisklass, getPriser(datum, prisklass));
+    }
+
+    /**
+     * SEK-priset som gäller vid en tidpunkt, t.ex. "kl. 17:45 i SE3". Dagen hämtas vid
+     * behov; därefter är uppslaget O(1).
+     *
+     * @return Priset per kWh, eller tomt om dagen saknas eller inte täcker tidpunkten.
+     */
+    public OptionalDouble sekPerKWhAt(Instant tidpunkt, Prisklass prisklass) {
+        PriceSeries serie = getPriceSeries(LocalDate.ofInstant(tidpunkt, STOCKHOLM), prisklass);
+        int i = serie.indexAt(tidpunkt.getEpochSecond());
+        return i < 0 ? OptionalDouble.empty() : OptionalDouble.of(serie.sekPerKWh(i));
+    }
+
+    /**
+     * Summan av SEK-priserna för perioderna som börjar i {@code [från, till)}, dag för dag
+     * ur de cachade serierna. Perioder som saknas bidrar inte.
+     */
+    public double sumSekBetween(Instant från, Instant till, Prisklass prisklass) {
+        if (!till.isAfter(från)) {
+            return 0;
+        }
+        LocalDate sista = LocalDate.ofInstant(till.minusSeconds(1), STOCKHOLM);
+        double summa = 0;
+        for (LocalDate datum = LocalDate.ofInstant(från, STOCKHOLM); !datum.isAfter(sista); datum = datum.plusDays(1)) {
+            summa += getPriceSeries(datum, prisklass).sumSekBetween(från.getEpochSecond(), till.getEpochSecond());
+        }
+        return summa;
+    }
+
+    /**
+     * Returnerar en ögonblicksbild av minnes-cachens träffar, missar och undanträngningar.
+     */
+    public CacheStats cacheStats() {
+        return inMemoryCache.stats();
+    }
+
+    /**
+     * Avbryter pågående asynkrona hämtningar och väntar tills klientens trådar har stannat.
+     * Cacharna och synkrona anrop påverkas inte, men asynkrona anrop och intervall som måste
+     * hämtas ger {@link java.util.concurrent.RejectedExecutionException} efteråt.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        try {
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
 
-                // Skapa ett Elpris-objekt från värdena i mappen
-                priser.add(new Elpris(
-                    Double.parseDouble(valueMap.get("SEK_per_kWh")),
-                    Double.parseDouble(valueMap.get("EUR_per_kWh")),
-                    Double.parseDouble(valueMap.get("EXR")),
-                    ZonedDateTime.parse(valueMap.get("time_start")),
-                    ZonedDateTime.parse(valueMap.get("time_end"))
-                ));
-            } catch (Exception e) {
-                // Hoppa över objekt som inte kan parsas, logga ett fel
-                System.err.println("Kunde inte tolka ett elpris-objekt: " + cleanObjStr + " - Fel: " + e.getMessage());
+    // --- Privata hjälpmetoder ---
+
+    // Serien byggs en gång per cachepost, så länge posten är den som gav listan
+    private PriceSeries series(LocalDate datum, Prisklass prisklass, List<Elpris> priser) {
+        if (cachingEnabled) {
+            PriceCache.Entry entry = inMemoryCache.peek(datum, prisklass);
+            if (entry != null && entry.priser() == priser) {
+                return entry.series();
             }
         }
-        return priser;
+        return PriceSeries.of(priser);
     }
-    
-    // --- Stub-metoder för disk-cache ---
-    
+
+    // --- Disk-cache ---
+
     /**
-     * STUB: Spara data till en fil i en dold katalog i användarens hemkatalog.
-     * Oimplementerad tills vidare.
+     * Sparar redan tolkade priser i prisklassens segment i disk-cachen.
+     * Fel loggas men stoppar aldrig anropet; disk-cachen är bara en optimering.
      */
-    private void saveToDiskCache(String cacheKey, String jsonData) {
-        // Framtida implementation:
-        // Path cacheDir = Paths.get(System.getProperty("user.home"), ".elpriser_cache");
-        // Files.createDirectories(cacheDir);
-        // Path cacheFile = cacheDir.resolve(cacheKey + ".json");
-        // Files.writeString(cacheFile, jsonData);
-        // System.out.println("Simulerar: Sparar " + cacheKey + " till disk.");
+    private void saveToDiskCache(LocalDate datum, Prisklass prisklass, List<Elpris> priser) {
+        try {
+            diskCache.save(datum, prisklass, priser);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Kunde inte spara till disk-cache: " + e.getMessage());
+        }
+    }
+
+    private void saveUnpublishedToDiskCache(LocalDate datum, Prisklass prisklass, long giltigTill) {
+        try {
+            diskCache.saveUnpublished(datum, prisklass, giltigTill);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Kunde inte spara till disk-cache: " + e.getMessage());
+        }
     }
 
     /**
-     * STUB: Läs data från en fil i en dold katalog i användarens hemkatalog.
-     * Oimplementerad tills vidare.
-     * @return En lista av Elpris-objekt om filen finns och kan läsas, annars null.
+     * Läser hur länge ett sparat 404-svar för dagen gäller.
+     * @return Epoch-millisekunder, eller 0 om inget finns eller inte kan läsas.
      */
-    private List<Elpris> loadFromDiskCache(String cacheKey) {
-        // Framtida implementation:
-        // Path cacheFile = Paths.get(System.getProperty("user.home"), ".elpriser_cache", cacheKey + ".json");
-        // if (Files.exists(cacheFile)) {
-        //     String jsonData = Files.readString(cacheFile);
-        //     return parseSimpleJson(jsonData);
-        // }
-        // System.out.println("Simulerar: Försöker läsa " + cacheKey + " från disk. Fanns ej.");
-        return null;
+    private long loadUnpublishedFromDiskCache(LocalDate datum, Prisklass prisklass) {
+        try {
+            return diskCache.unpublishedUntil(datum, prisklass);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Kunde inte läsa från disk-cache: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Läser priser för en dag ur disk-cachen.
+     * @return En lista av Elpris-objekt om dagen finns och kan läsas, annars null.
+     */
+    private List<Elpris> loadFromDiskCache(LocalDate datum, Prisklass prisklass) {
+        try {
+            return diskCache.load(datum, prisklass);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Kunde inte läsa från disk-cache: " + e.getMessage());
+            return null;
+        }
     }
 
 
@@ -303,10 +778,13 @@ public final class ElpriserAPI {
 
     public static void main(String[] args) {
         System.out.println("--- Testar Elpriser API ---");
-        ElpriserAPI api = new ElpriserAPI(); // Cachning är på som standard
+        // Cachning är på som standard; loggningen visar varifrån varje svar kommer
+        ElpriserAPI api = ElpriserAPI.builder()
+                .instrumentation(ElpriserInstrumentation.logging(System.out))
+                .build();
 
         // Hämta dagens priser för SE3 med LocalDate
-        LocalDate idag = LocalDate.now();
+        LocalDate idag = LocalDate.now(STOCKHOLM);
         List<Elpris> dagensPriser = api.getPriser(idag, Prisklass.SE3);
 
         if (dagensPriser.isEmpty()) {
@@ -331,5 +809,6 @@ public final class ElpriserAPI {
         if (framtidaPriser.isEmpty()) {
             System.out.println("Inga priser hittades (som förväntat).");
         }
+        api.close();
     }
 }
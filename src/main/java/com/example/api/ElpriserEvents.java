@@ -0,0 +1,58 @@
+package com.example.api;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR-händelser för hämtningar och tolkning. De kostar nästan inget när inspelning är
+ * avslagen och kan slås på med t.ex. {@code -XX:StartFlightRecording}.
+ */
+final class ElpriserEvents {
+
+    private ElpriserEvents() {}
+
+    @Name("com.example.elpriser.Fetch")
+    @Label("Elpris-hämtning")
+    @Category({"Elpriser"})
+    static final class Fetch extends Event {
+        @Label("Datum")
+        String datum;
+
+        @Label("Prisklass")
+        String prisklass;
+
+        @Label("HTTP-status")
+        @Description("0 om inget svar kom")
+        int statusCode;
+
+        @Label("Försök")
+        int attempt;
+
+        @Label("Storlek")
+        @DataAmount
+        long bytes;
+
+        @Label("Fel")
+        @Description("Nätverksfelet när inget svar kom")
+        String error;
+    }
+
+    @Name("com.example.elpriser.Parse")
+    @Label("Elpris-tolkning")
+    @Category({"Elpriser"})
+    static final class Parse extends Event {
+        @Label("Rader")
+        int rows;
+
+        @Label("Storlek")
+        @DataAmount
+        long bytes;
+
+        @Label("Lyckades")
+        boolean success;
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.api;
+
+import com.example.api.ElpriserAPI.Prisklass;
+
+import java.io.PrintStream;
+import java.time.LocalDate;
+
+/**
+ * Mätpunkter i {@link ElpriserAPI}. Alla metoder har tomma standardimplementationer, så en
+ * implementation behöver bara ta med det den är intresserad av.
+ * <p>
+ * Metoderna anropas synkront i den tråd som gör uppslaget, ibland på träffvägen i
+ * minnes-cachen, och måste därför vara snabba och trådsäkra. Standard är {@link #NOOP}.
+ */
+public interface ElpriserInstrumentation {
+
+    /** Var en cacheträff kom ifrån. */
+    enum Tier { MEMORY, DISK }
+
+    /** Gör ingenting; används när inget annat anges. */
+    ElpriserInstrumentation NOOP = new ElpriserInstrumentation() {};
+
+    /** En dag hittades i en cache. */
+    default void cacheHit(Tier tier, LocalDate datum, Prisklass prisklass) {}
+
+    /** En dag fanns inte i minnes-cachen. */
+    default void cacheMiss(LocalDate datum, Prisklass prisklass) {}
+
+    /** Ett anrop hakade på en redan pågående hämtning av samma dag. */
+    default void fetchCoalesced(LocalDate datum, Prisklass prisklass) {}
+
+    /** En dag besvarades med mock-data i stället för nätverket. */
+    default void mockResponse(LocalDate datum, Prisklass prisklass) {}
+
+    /**
+     * Ett HTTP-anrop mot API:t fick svar.
+     * @param nanos Hur lång tid anropet tog, inklusive väntan på en ledig anslutning.
+     */
+    default void fetchCompleted(LocalDate datum, Prisklass prisklass, int statusCode, long nanos) {}
+
+    /** Ett HTTP-anrop mot API:t misslyckades utan svar, t.ex. på grund av ett nätverksfel. */
+    default void fetchFailed(LocalDate datum, Prisklass prisklass, Throwable error, long nanos) {}
+
+    /**
+     * Ett misslyckat anrop görs om efter en paus.
+     * @param attempt Numret på försöket som misslyckades, från 1.
+     */
+    default void fetchRetried(LocalDate datum, Prisklass prisklass, int attempt, long delayMillis) {}
+
+    /** API:t gick inte att nå, så en utgången post ur minnes-cachen användes i stället. */
+    default void staleServed(LocalDate datum, Prisklass prisklass) {}
+
+    /** Ett svar tolkades. */
+    default void parseCompleted(int rows, int bytes, long nanos) {}
+
+    /** Ett svar kunde inte tolkas. */
+    default void parseFailed(ElprisParseException error, int bytes) {}
+
+    /**
+     * En implementation som skriver samma meddelanden som klienten tidigare skrev till
+     * {@code System.out}, för felsökning från kommandoraden.
+     */
+    static ElpriserInstrumentation logging(PrintStream out) {
+        return new ElpriserInstrumentation() {
+            @Override
+            public void cacheHit(Tier tier, LocalDate datum, Prisklass prisklass) {
+                out.println((tier == Tier.MEMORY ? "Hämtar från minnes-cache för " : "Hämtar från disk-cache för ")
+                        + datum + "_" + prisklass);
+            }
+
+            @Override
+            public void mockResponse(LocalDate datum, Prisklass prisklass) {
+                out.println("!!! ANVÄNDER MOCK-DATA FÖR TEST !!!");
+            }
+
+            @Override
+            public void fetchCompleted(LocalDate datum, Prisklass prisklass, int statusCode, long nanos) {
+                out.printf("Hämtade %s_%s från nätverket: HTTP %d på %d ms%n", datum, prisklass, statusCode, nanos / 1_000_000);
+            }
+
+            @Override
+            public void fetchRetried(LocalDate datum, Prisklass prisklass, int attempt, long delayMillis) {
+                out.printf("Försök %d för %s_%s misslyckades, försöker igen om %d ms%n", attempt, datum, prisklass, delayMillis);
+            }
+
+            @Override
+            public void staleServed(LocalDate datum, Prisklass prisklass) {
+                out.println("API:t svarar inte, använder äldre data för " + datum + "_" + prisklass);
+            }
+        };
+    }
+}
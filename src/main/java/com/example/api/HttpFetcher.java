@@ -0,0 +1,220 @@
+package com.example.api;
+
+import com.example.api.ElpriserAPI.Prisklass;
+import com.example.api.PriceSource.Validators;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * HTTP-lagret mot elprisetjustnu.se: ett anrop per dag och prisklass med tidsgränser,
+ * omförsök med exponentiell backoff och slumpad utspridning vid 5xx, 429 och nätverksfel,
+ * villkorliga anrop ({@code If-None-Match}/{@code If-Modified-Since}) och gzip.
+ * <p>
+ * En {@link CircuitBreaker} slutar anropa API:t efter upprepade fel, så att anroparen
+ * kan svara med gammal data direkt i stället för att vänta ut tidsgränser och omförsök.
+ */
+final class HttpFetcher {
+
+    static final String DEFAULT_BASE_URL = "https://www.elprisetjustnu.se/api/v1/prices";
+    static final Duration DEFAULT_CONNECT_TIMEOUT = Duration.ofSeconds(5);
+    static final Duration DEFAULT_REQUEST_TIMEOUT = Duration.ofSeconds(10);
+    static final int DEFAULT_MAX_ATTEMPTS = 3;
+    static final Duration DEFAULT_BASE_BACKOFF = Duration.ofMillis(250);
+    static final int DEFAULT_FAILURE_THRESHOLD = 5;
+    static final Duration DEFAULT_OPEN_DURATION = Duration.ofSeconds(30);
+
+    // Övre gräns för en enskild väntan, även när servern ber om längre med Retry-After
+    private static final long MAX_BACKOFF_MILLIS = 10_000;
+    private static final DateTimeFormatter URL_DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy/MM-dd");
+
+    /**
+     * Ett slutligt svar. {@code body} är avkodad från gzip och tom vid 304.
+     */
+    record Response(int statusCode, byte[] body, Validators validators) {}
+
+    /** Kastas utan nätverksanrop när kretsbrytaren är öppen. */
+    static final class CircuitOpenException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        CircuitOpenException() {
+            super("API:t svarar inte; nya anrop pausas tillfälligt");
+        }
+    }
+
+    private final HttpClient httpClient;
+    private final String baseUrl;
+    private final Duration requestTimeout;
+    private final int maxAttempts;
+    private final Duration baseBackoff;
+    private final CircuitBreaker circuitBreaker;
+    private final Semaphore permits;
+    private final ElpriserInstrumentation instrumentation;
+
+    HttpFetcher(HttpClient httpClient, String baseUrl, Duration requestTimeout, int maxAttempts,
+                Duration baseBackoff, CircuitBreaker circuitBreaker, Semaphore permits,
+                ElpriserInstrumentation instrumentation) {
+        this.httpClient = httpClient;
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.requestTimeout = requestTimeout;
+        this.maxAttempts = maxAttempts;
+        this.baseBackoff = baseBackoff;
+        this.circuitBreaker = circuitBreaker;
+        this.permits = permits;
+        this.instrumentation = instrumentation;
+    }
+
+    URI uri(LocalDate datum, Prisklass prisklass) {
+        return URI.create(baseUrl + "/" + datum.format(URL_DATE_FORMATTER) + "_" + prisklass.name() + ".json");
+    }
+
+    /**
+     * Hämtar en dag. Svar med 5xx eller 429 och nätverksfel försöks om; det sista svaret
+     * returneras oavsett statuskod, medan ett sista nätverksfel kastas.
+     *
+     * @param validators Värden från ett tidigare svar; ger 304 om datan inte ändrats.
+     * @throws CircuitOpenException om kretsbrytaren är öppen.
+     */
+    Response fetch(LocalDate datum, Prisklass prisklass, Validators validators)
+            throws IOException, InterruptedException {
+        HttpRequest request = request(uri(datum, prisklass), validators);
+        for (int attempt = 1; ; attempt++) {
+            if (!circuitBreaker.tryAcquire()) {
+                throw new CircuitOpenException();
+            }
+            ElpriserEvents.Fetch event = new ElpriserEvents.Fetch();
+            event.begin();
+            long start = System.nanoTime();
+            HttpResponse<byte[]> response = null;
+            IOException fel = null;
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                circuitBreaker.abandon();
+                throw e;
+            }
+            try {
+                response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            } catch (IOException e) {
+                fel = e;
+            } catch (InterruptedException | RuntimeException e) {
+                // Inget utfall att rapportera, men ett halvöppet provanrop måste lämnas tillbaka
+                circuitBreaker.abandon();
+                throw e;
+            } finally {
+                permits.release();
+            }
+            // Tillståndet är släppt innan backoff, så att andra hämtningar inte väntar på pausen
+            if (fel != null) {
+                circuitBreaker.onFailure();
+                instrumentation.fetchFailed(datum, prisklass, fel, System.nanoTime() - start);
+                commit(event, datum, prisklass, 0, attempt, 0, fel);
+                if (attempt >= maxAttempts) {
+                    throw fel;
+                }
+                backoff(datum, prisklass, attempt, -1);
+                continue;
+            }
+            int status = response.statusCode();
+            instrumentation.fetchCompleted(datum, prisklass, status, System.nanoTime() - start);
+            commit(event, datum, prisklass, status, attempt, response.body().length, null);
+
+            if (isRetryable(status)) {
+                circuitBreaker.onFailure();
+                if (attempt < maxAttempts) {
+                    backoff(datum, prisklass, attempt, retryAfterMillis(response));
+                    continue;
+                }
+            } else {
+                circuitBreaker.onSuccess();
+            }
+            Validators nya = new Validators(
+                    response.headers().firstValue("ETag").orElse(validators.etag()),
+                    response.headers().firstValue("Last-Modified").orElse(validators.lastModified()));
+            return new Response(status, decode(response), nya);
+        }
+    }
+
+    private static void commit(ElpriserEvents.Fetch event, LocalDate datum, Prisklass prisklass, int status,
+                               int attempt, long bytes, IOException fel) {
+        if (event.shouldCommit()) {
+            event.datum = datum.toString();
+            event.prisklass = prisklass.name();
+            event.statusCode = status;
+            event.attempt = attempt;
+            event.bytes = bytes;
+            event.error = fel == null ? null : fel.toString();
+            event.commit();
+        }
+    }
+
+    private HttpRequest request(URI uri, Validators validators) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri)
+                .timeout(requestTimeout)
+                .header("Accept", "application/json")
+                .header("Accept-Encoding", "gzip")
+                .GET();
+        if (validators.etag() != null) {
+            builder.header("If-None-Match", validators.etag());
+        }
+        if (validators.lastModified() != null) {
+            builder.header("If-Modified-Since", validators.lastModified());
+        }
+        return builder.build();
+    }
+
+    private static boolean isRetryable(int status) {
+        return status >= 500 || status == 429;
+    }
+
+    /**
+     * Väntar före nästa försök: slumpat mellan noll och {@code baseBackoff * 2^(attempt-1)}
+     * ("full jitter"), så att flera klienter inte försöker om i takt. En Retry-After från
+     * servern används som golv.
+     */
+    private void backoff(LocalDate datum, Prisklass prisklass, int attempt, long retryAfterMillis)
+            throws InterruptedException {
+        long tak = Math.min(MAX_BACKOFF_MILLIS, baseBackoff.toMillis() << Math.min(attempt - 1, 20));
+        long delay = ThreadLocalRandom.current().nextLong(tak + 1);
+        if (retryAfterMillis > delay) {
+            delay = Math.min(retryAfterMillis, MAX_BACKOFF_MILLIS);
+        }
+        instrumentation.fetchRetried(datum, prisklass, attempt, delay);
+        Thread.sleep(delay);
+    }
+
+    // Endast formen med antal sekunder stöds; ett HTTP-datum ignoreras
+    private static long retryAfterMillis(HttpResponse<?> response) {
+        return response.headers().firstValue("Retry-After").map(v -> {
+            try {
+                return Long.parseLong(v.trim()) * 1000;
+            } catch (NumberFormatException e) {
+                return -1L;
+            }
+        }).orElse(-1L);
+    }
+
+    private static byte[] decode(HttpResponse<byte[]> response) throws IOException {
+        byte[] body = response.body();
+        boolean gzip = response.headers().firstValue("Content-Encoding")
+                .map(v -> v.trim().equalsIgnoreCase("gzip"))
+                .orElse(false);
+        if (!gzip || body.length == 0) {
+            return body;
+        }
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            return in.readAllBytes();
+        }
+    }
+}
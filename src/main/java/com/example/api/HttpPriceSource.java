@@ -0,0 +1,86 @@
+package com.example.api;
+
+import com.example.api.ElpriserAPI.Elpris;
+import com.example.api.ElpriserAPI.Prisklass;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Standardkällan: elprisetjustnu.se via {@link HttpFetcher}, med svaren tolkade av
+ * {@link ElprisJsonParser}. 404 betyder att dagen inte är publicerad; andra statuskoder
+ * än 200 och 304 blir ett {@link IOException}.
+ * <p>
+ * {@code HttpFetcher} och dess {@code HttpClient} skapas vid första hämtningen. En körning
+ * som klarar sig på cachen laddar då aldrig java.net.http eller TLS-stacken, vilket är
+ * den största delen av uppstartstiden för en kort CLI-körning.
+ */
+final class HttpPriceSource implements PriceSource {
+
+    private final Supplier<HttpFetcher> factory;
+    private final ElpriserInstrumentation instrumentation;
+    private volatile HttpFetcher httpFetcher;
+
+    HttpPriceSource(Supplier<HttpFetcher> factory, ElpriserInstrumentation instrumentation) {
+        this.factory = factory;
+        this.instrumentation = instrumentation;
+    }
+
+    private HttpFetcher httpFetcher() {
+        HttpFetcher fetcher = httpFetcher;
+        if (fetcher == null) {
+            synchronized (this) {
+                fetcher = httpFetcher;
+                if (fetcher == null) {
+                    httpFetcher = fetcher = factory.get();
+                }
+            }
+        }
+        return fetcher;
+    }
+
+    @Override
+    public Response fetch(LocalDate datum, Prisklass prisklass, Validators validators)
+            throws IOException, InterruptedException {
+        HttpFetcher.Response response = httpFetcher().fetch(datum, prisklass, validators);
+        return switch (response.statusCode()) {
+            case 200 -> Response.ok(parse(response.body(), instrumentation), response.validators());
+            case 304 -> Response.notModified(response.validators());
+            case 404 -> Response.notPublished();
+            default -> throw new IOException("Misslyckades med att hämta priser för " + datum + "_"
+                    + prisklass + ". Statuskod: " + response.statusCode());
+        };
+    }
+
+    @Override
+    public boolean persistent() {
+        return true;
+    }
+
+    /**
+     * Tolkar ett svar från API:t. Felaktigt formaterade svar loggas och ger en tom lista,
+     * i stället för att enskilda rader tyst hoppas över.
+     */
+    static List<Elpris> parse(byte[] json, ElpriserInstrumentation instrumentation) {
+        ElpriserEvents.Parse event = new ElpriserEvents.Parse();
+        event.begin();
+        long start = System.nanoTime();
+        try {
+            List<Elpris> priser = ElprisJsonParser.parse(json);
+            instrumentation.parseCompleted(priser.size(), json.length, System.nanoTime() - start);
+            event.rows = priser.size();
+            event.success = true;
+            return priser;
+        } catch (ElprisParseException e) {
+            instrumentation.parseFailed(e, json.length);
+            System.err.println("Kunde inte tolka svaret från elpris-API:t: " + e.getMessage());
+            return Collections.emptyList();
+        } finally {
+            event.bytes = json.length;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.api;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Trådsäkert latenshistogram med en hink per tvåpotens nanosekunder. Registrering är
+ * låsfri och allokerar inget; percentiler anges som hinkens övre gräns, dvs. med högst
+ * en faktor två i fel.
+ */
+public final class LatencyHistogram {
+
+    private final AtomicLongArray buckets = new AtomicLongArray(64);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+
+    public void record(long nanos) {
+        long n = Math.max(nanos, 1);
+        buckets.incrementAndGet(63 - Long.numberOfLeadingZeros(n));
+        count.increment();
+        totalNanos.add(n);
+    }
+
+    public long count() {
+        return count.sum();
+    }
+
+    /** Medelvärdet i nanosekunder, eller 0 om inget registrerats. */
+    public double meanNanos() {
+        long n = count.sum();
+        return n == 0 ? 0 : (double) totalNanos.sum() / n;
+    }
+
+    /**
+     * Övre gräns för percentilen {@code q} (0–1) i nanosekunder, eller 0 om inget registrerats.
+     */
+    public long percentileNanos(double q) {
+        long n = count.sum();
+        if (n == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(q * n);
+        long seen = 0;
+        for (int i = 0; i < 64; i++) {
+            seen += buckets.get(i);
+            if (seen >= rank && seen > 0) {
+                return i == 63 ? Long.MAX_VALUE : (1L << (i + 1)) - 1;
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("n=%d medel=%.1fµs p50<=%dµs p99<=%dµs",
+                count(), meanNanos() / 1000, percentileNanos(0.5) / 1000, percentileNanos(0.99) / 1000);
+    }
+}
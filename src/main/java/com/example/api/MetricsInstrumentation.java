@@ -0,0 +1,138 @@
+package com.example.api;
+
+import com.example.api.ElpriserAPI.Prisklass;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * En {@link ElpriserInstrumentation} som räknar händelser och mäter latenser i minnet.
+ * Räknarna är {@link LongAdder}s, så träffvägen förblir billig även med många trådar.
+ */
+public final class MetricsInstrumentation implements ElpriserInstrumentation {
+
+    private final LongAdder memoryHits = new LongAdder();
+    private final LongAdder diskHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder mockResponses = new LongAdder();
+    private final LongAdder fetchFailures = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder staleServed = new LongAdder();
+    private final LongAdder parseFailures = new LongAdder();
+    private final Map<Integer, LongAdder> statusCodes = new ConcurrentHashMap<>();
+    private final LatencyHistogram fetchLatency = new LatencyHistogram();
+    private final LatencyHistogram parseLatency = new LatencyHistogram();
+
+    @Override
+    public void cacheHit(Tier tier, LocalDate datum, Prisklass prisklass) {
+        (tier == Tier.MEMORY ? memoryHits : diskHits).increment();
+    }
+
+    @Override
+    public void cacheMiss(LocalDate datum, Prisklass prisklass) {
+        misses.increment();
+    }
+
+    @Override
+    public void fetchCoalesced(LocalDate datum, Prisklass prisklass) {
+        coalesced.increment();
+    }
+
+    @Override
+    public void mockResponse(LocalDate datum, Prisklass prisklass) {
+        mockResponses.increment();
+    }
+
+    @Override
+    public void fetchCompleted(LocalDate datum, Prisklass prisklass, int statusCode, long nanos) {
+        statusCodes.computeIfAbsent(statusCode, k -> new LongAdder()).increment();
+        fetchLatency.record(nanos);
+    }
+
+    @Override
+    public void fetchFailed(LocalDate datum, Prisklass prisklass, Throwable error, long nanos) {
+        fetchFailures.increment();
+        fetchLatency.record(nanos);
+    }
+
+    @Override
+    public void fetchRetried(LocalDate datum, Prisklass prisklass, int attempt, long delayMillis) {
+        retries.increment();
+    }
+
+    @Override
+    public void staleServed(LocalDate datum, Prisklass prisklass) {
+        staleServed.increment();
+    }
+
+    @Override
+    public void parseCompleted(int rows, int bytes, long nanos) {
+        parseLatency.record(nanos);
+    }
+
+    @Override
+    public void parseFailed(ElprisParseException error, int bytes) {
+        parseFailures.increment();
+    }
+
+    public long cacheHits(Tier tier) {
+        return (tier == Tier.MEMORY ? memoryHits : diskHits).sum();
+    }
+
+    public long cacheMisses() {
+        return misses.sum();
+    }
+
+    public long coalescedFetches() {
+        return coalesced.sum();
+    }
+
+    public long mockResponses() {
+        return mockResponses.sum();
+    }
+
+    public long fetchFailures() {
+        return fetchFailures.sum();
+    }
+
+    public long retries() {
+        return retries.sum();
+    }
+
+    public long staleServed() {
+        return staleServed.sum();
+    }
+
+    public long parseFailures() {
+        return parseFailures.sum();
+    }
+
+    /** Antal svar per HTTP-statuskod, sorterat på kod. */
+    public Map<Integer, Long> statusCodes() {
+        Map<Integer, Long> snapshot = new TreeMap<>();
+        statusCodes.forEach((code, n) -> snapshot.put(code, n.sum()));
+        return snapshot;
+    }
+
+    public LatencyHistogram fetchLatency() {
+        return fetchLatency;
+    }
+
+    public LatencyHistogram parseLatency() {
+        return parseLatency;
+    }
+
+    @Override
+    public String toString() {
+        return "träffar minne=" + memoryHits.sum() + " disk=" + diskHits.sum()
+                + ", missar=" + misses.sum() + ", sammanslagna=" + coalesced.sum()
+                + ", status=" + statusCodes() + ", hämtfel=" + fetchFailures.sum()
+                + ", omförsök=" + retries.sum() + ", gammal data=" + staleServed.sum()
+                + ", tolkfel=" + parseFailures.sum()
+                + "\n  hämtning: " + fetchLatency + "\n  tolkning: " + parseLatency;
+    }
+}
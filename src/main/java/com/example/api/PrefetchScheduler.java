@@ -0,0 +1,221 @@
+package com.example.api;
+
+import com.example.api.ElpriserAPI.Elpris;
+import com.example.api.ElpriserAPI.Prisklass;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Värmer cachen med morgondagens priser så snart de publiceras.
+ * <p>
+ * Före publiceringstiden (kl. 13 svensk tid) sover schemaläggaren till dess. Därefter
+ * frågar den efter morgondagen för alla prisklasser som ännu saknas, parallellt på
+ * virtuella trådar, och väntar allt längre mellan försöken tills alla har hittats. Då
+ * sover den till nästa dags publiceringstid. Priserna hamnar i klientens minnes- och
+ * disk-cache, så att första riktiga anropet blir en träff.
+ * <p>
+ * En omgång körs av {@link #runOnce()}, som använder den givna klockan och returnerar
+ * väntan till nästa omgång; {@link #start()} kör omgångarna på en egen tråd. Tester kan
+ * anropa {@code runOnce()} direkt med en fast klocka i stället för att vänta.
+ */
+public final class PrefetchScheduler implements AutoCloseable {
+
+    /** Första väntan efter ett misslyckat försök. */
+    public static final Duration DEFAULT_INITIAL_BACKOFF = Duration.ofMinutes(1);
+    /** Längsta väntan mellan försök efter publiceringstiden. */
+    public static final Duration DEFAULT_MAX_BACKOFF = Duration.ofMinutes(15);
+
+    private final ElpriserAPI api;
+    private final Clock clock;
+    private final Set<Prisklass> prisklasser;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+
+    // Omgångarna körs en i taget under roundLock; start/stop låser instansen
+    private final Object roundLock = new Object();
+    private LocalDate target;
+    private final Set<Prisklass> warmed = EnumSet.noneOf(Prisklass.class);
+    private int failedRounds;
+    private volatile LocalDate warmedDay;
+
+    private volatile ScheduledExecutorService scheduler;
+
+    /**
+     * Värmer alla prisklasser med standardinställningar.
+     * @param clock Klockan som avgör vad som är "imorgon" och när priserna publiceras.
+     */
+    public PrefetchScheduler(ElpriserAPI api, Clock clock) {
+        this(api, clock, EnumSet.allOf(Prisklass.class), DEFAULT_INITIAL_BACKOFF, DEFAULT_MAX_BACKOFF);
+    }
+
+    /**
+     * @param prisklasser Prisklasserna att värma.
+     * @param initialBackoff Väntan efter första misslyckade försöket; fördubblas sedan.
+     * @param maxBackoff Längsta väntan mellan två försök.
+     */
+    public PrefetchScheduler(ElpriserAPI api, Clock clock, Set<Prisklass> prisklasser,
+                             Duration initialBackoff, Duration maxBackoff) {
+        if (prisklasser.isEmpty()) throw new IllegalArgumentException("Minst en prisklass krävs");
+        if (initialBackoff.isNegative() || initialBackoff.isZero() || maxBackoff.compareTo(initialBackoff) < 0) {
+            throw new IllegalArgumentException("Ogiltig backoff: " + initialBackoff + " - " + maxBackoff);
+        }
+        this.api = Objects.requireNonNull(api);
+        this.clock = Objects.requireNonNull(clock);
+        this.prisklasser = EnumSet.copyOf(prisklasser);
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+    }
+
+    /**
+     * Startar schemaläggaren på en egen virtuell tråd. Första omgången körs direkt.
+     * Att starta en redan startad schemaläggare gör ingenting.
+     */
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofVirtual().name("elpriser-prefetch").factory());
+        scheduler.execute(this::loop);
+    }
+
+    /**
+     * Stoppar schemaläggaren och väntar tills en pågående omgång har avbrutits.
+     * Kan startas igen efteråt.
+     */
+    public synchronized void stop() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdownNow();
+        try {
+            scheduler.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        scheduler = null;
+    }
+
+    @Override
+    public void close() {
+        stop();
+    }
+
+    public synchronized boolean isRunning() {
+        return scheduler != null;
+    }
+
+    /** Senaste dagen som hittades för alla prisklasser, om någon. */
+    public Optional<LocalDate> warmedDay() {
+        return Optional.ofNullable(warmedDay);
+    }
+
+    private void loop() {
+        Duration delay;
+        synchronized (roundLock) {
+            try {
+                delay = round();
+            } catch (RuntimeException e) {
+                System.err.println("Förhämtning av elpriser misslyckades: " + e.getMessage());
+                delay = nextBackoff();
+            }
+        }
+        ScheduledExecutorService s = scheduler;
+        if (s != null && !Thread.currentThread().isInterrupted()) {
+            try {
+                s.schedule(this::loop, delay.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                // stop() hann stänga schemaläggaren
+            }
+        }
+    }
+
+    /**
+     * Kör en omgång: hämtar morgondagen för de prisklasser som saknas om publiceringstiden
+     * har passerat.
+     * @return Hur länge det är värt att vänta till nästa omgång.
+     */
+    public Duration runOnce() {
+        synchronized (roundLock) {
+            return round();
+        }
+    }
+
+    private Duration round() {
+        LocalDate idag = LocalDate.now(clock.withZone(ElpriserAPI.STOCKHOLM));
+        LocalDate imorgon = idag.plusDays(1);
+        if (!imorgon.equals(target)) {
+            target = imorgon;
+            warmed.clear();
+            failedRounds = 0;
+        }
+        if (warmed.size() == prisklasser.size()) {
+            return untilPublication(imorgon.plusDays(1));
+        }
+        Duration tillPublicering = untilPublication(imorgon);
+        if (!tillPublicering.isZero()) {
+            return tillPublicering;
+        }
+
+        Map<Prisklass, CompletableFuture<List<Elpris>>> futures = new EnumMap<>(Prisklass.class);
+        for (Prisklass prisklass : prisklasser) {
+            if (!warmed.contains(prisklass)) {
+                futures.put(prisklass, api.refreshAsync(imorgon, prisklass));
+            }
+        }
+        for (Map.Entry<Prisklass, CompletableFuture<List<Elpris>>> e : futures.entrySet()) {
+            try {
+                if (!e.getValue().get().isEmpty()) {
+                    warmed.add(e.getKey());
+                }
+            } catch (ExecutionException ex) {
+                System.err.println("Förhämtning av " + imorgon + "_" + e.getKey() + " misslyckades: "
+                        + ex.getCause().getMessage());
+            } catch (InterruptedException ex) {
+                // stop() avbryter omgången; det som redan hämtats ligger kvar i cachen
+                Thread.currentThread().interrupt();
+                return Duration.ZERO;
+            }
+        }
+
+        if (warmed.size() == prisklasser.size()) {
+            warmedDay = imorgon;
+            failedRounds = 0;
+            return untilPublication(imorgon.plusDays(1));
+        }
+        return nextBackoff();
+    }
+
+    /** Tid kvar till när {@code datum}s priser väntas publiceras, eller noll om den passerat. */
+    private Duration untilPublication(LocalDate datum) {
+        long publicering = datum.minusDays(1).atTime(PriceCache.PUBLICATION_TIME)
+                .atZone(ElpriserAPI.STOCKHOLM).toInstant().toEpochMilli();
+        return Duration.ofMillis(Math.max(0, publicering - clock.millis()));
+    }
+
+    /**
+     * Exponentiell backoff med slumpad utspridning: mellan halva och hela
+     * {@code initialBackoff * 2^n}, högst {@code maxBackoff}.
+     */
+    private Duration nextBackoff() {
+        long tak = Math.min(maxBackoff.toMillis(), initialBackoff.toMillis() << Math.min(failedRounds, 20));
+        failedRounds++;
+        return Duration.ofMillis(tak / 2 + ThreadLocalRandom.current().nextLong(tak / 2 + 1));
+    }
+}
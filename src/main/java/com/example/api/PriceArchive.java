@@ -0,0 +1,443 @@
+package com.example.api;
+
+import com.example.api.ElpriserAPI.Elpris;
+import com.example.api.ElpriserAPI.Prisklass;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Ett arkiv med många dagars priser för en eller flera prisklasser, lagrat kolumnvis.
+ * <p>
+ * Rader samlas i primitiva arrayer per prisklass, och kan fyllas från API:t, från sparade
+ * JSON-svar eller från en tidigare arkivfil. Hela arkivet finns aldrig som
+ * {@link Elpris}-objekt; vid tolkning av JSON lever varje objekt bara en rad. Arkivet
+ * kan skrivas som en kompakt binärfil eller som CSV, och varje prisklass kan läsas ut
+ * som en {@link PriceSeries}.
+ * <p>
+ * Binärformatet (big endian) har en sektion per prisklass med en kolumn i taget, så att
+ * läsning blir några få bulk-kopieringar från en minnesmappad fil:
+ * <pre>
+ *   filhuvud: magic(int) version(int) antalZoner(int)
+ *   sektion:  zon(int, ordinal) antal(int)
+ *             start(long[antal], epoch-sekunder) längd(int[antal], sek)
+ *             sek(double[antal]) eur(double[antal]) exr(double[antal])
+ * </pre>
+ * Raderna sparas med sin ursprungliga längd, så timpriser och kvartspriser kan blandas.
+ * Klassen är inte trådsäker.
+ */
+public final class PriceArchive {
+
+    private static final int MAGIC = 0x454C5041; // "ELPA"
+    private static final int VERSION = 1;
+    private static final int ROW_BYTES = 8 + 4 + 8 + 8 + 8;
+    private static final int BUFFER_BYTES = 1 << 16;
+
+    // Sparade API-svar: "2025-10-05_SE3.json" eller API:ts egen sökväg "2025/10-05_SE3.json"
+    private static final Pattern JSON_FILE = Pattern.compile("\\d{4}[-/]\\d{2}-\\d{2}_(SE[1-4])\\.json$");
+
+    private final Columns[] zones = new Columns[Prisklass.values().length];
+
+    /** Kolumner för en prisklass, i den ordning raderna lades till. */
+    private static final class Columns {
+        long[] start = new long[256];
+        int[] length = new int[256];
+        double[] sek = new double[256];
+        double[] eur = new double[256];
+        double[] exr = new double[256];
+        int size;
+        boolean sorted = true;
+
+        void add(long s, int l, double se, double eu, double ex) {
+            if (size == start.length) {
+                grow(size * 2);
+            }
+            if (size > 0 && s <= start[size - 1]) {
+                sorted = false;
+            }
+            start[size] = s;
+            length[size] = l;
+            sek[size] = se;
+            eur[size] = eu;
+            exr[size] = ex;
+            size++;
+        }
+
+        void grow(int capacity) {
+            start = Arrays.copyOf(start, capacity);
+            length = Arrays.copyOf(length, capacity);
+            sek = Arrays.copyOf(sek, capacity);
+            eur = Arrays.copyOf(eur, capacity);
+            exr = Arrays.copyOf(exr, capacity);
+        }
+
+        /**
+         * Sorterar på starttid. En rad med samma start som en tidigare tillagd ersätter
+         * den, så att en dag som importeras två gånger inte dubbleras.
+         */
+        void normalize() {
+            if (sorted) {
+                return;
+            }
+            // Indexsortering är stabil, så av två rader med samma start hamnar den senast tillagda sist
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) order[i] = i;
+            Arrays.sort(order, (a, b) -> Long.compare(start[a], start[b]));
+            long[] s = new long[size];
+            int[] l = new int[size];
+            double[] se = new double[size], eu = new double[size], ex = new double[size];
+            int n = 0;
+            for (int k = 0; k < size; k++) {
+                int i = order[k];
+                if (n > 0 && s[n - 1] == start[i]) {
+                    n--; // Samma period igen: den senare vinner
+                }
+                s[n] = start[i];
+                l[n] = length[i];
+                se[n] = sek[i];
+                eu[n] = eur[i];
+                ex[n] = exr[i];
+                n++;
+            }
+            start = s;
+            length = l;
+            sek = se;
+            eur = eu;
+            exr = ex;
+            size = n;
+            sorted = true;
+        }
+    }
+
+    /** Prisklasserna som har minst en rad. */
+    public Set<Prisklass> zones() {
+        Set<Prisklass> set = EnumSet.noneOf(Prisklass.class);
+        for (Prisklass zon : Prisklass.values()) {
+            if (zones[zon.ordinal()] != null && zones[zon.ordinal()].size > 0) set.add(zon);
+        }
+        return set;
+    }
+
+    /** Antal rader för en prisklass. */
+    public int size(Prisklass zon) {
+        Columns c = zones[zon.ordinal()];
+        if (c == null) return 0;
+        c.normalize();
+        return c.size;
+    }
+
+    // --- Import ---
+
+    /** Lägger till en rad. Raderna behöver inte komma i tidsordning. */
+    public void add(Prisklass zon, long startEpochSecond, int lengthSeconds,
+                    double sekPerKWh, double eurPerKWh, double exr) {
+        if (lengthSeconds <= 0) {
+            throw new IllegalArgumentException("Periodens längd måste vara positiv: " + lengthSeconds);
+        }
+        Columns c = zones[zon.ordinal()];
+        if (c == null) {
+            c = zones[zon.ordinal()] = new Columns();
+        }
+        c.add(startEpochSecond, lengthSeconds, sekPerKWh, eurPerKWh, exr);
+    }
+
+    /** Lägger till priser, t.ex. från {@link ElpriserAPI#getPriser}. */
+    public void addAll(Prisklass zon, List<Elpris> priser) {
+        for (Elpris pris : priser) {
+            add(zon, pris);
+        }
+    }
+
+    private void add(Prisklass zon, Elpris pris) {
+        long start = pris.timeStart().toEpochSecond();
+        add(zon, start, (int) (pris.timeEnd().toEpochSecond() - start), pris.sekPerKWh(), pris.eurPerKWh(), pris.exr());
+    }
+
+    /**
+     * Tolkar ett API-svar direkt in i arkivet.
+     * @throws ElprisParseException om svaret inte kan tolkas.
+     */
+    public void addJson(Prisklass zon, byte[] json) {
+        ElprisJsonParser.parse(json, 0, json.length, pris -> add(zon, pris));
+    }
+
+    /**
+     * Läser alla sparade API-svar i en katalog och dess underkataloger. Filerna ska heta
+     * som API:ts sökvägar, t.ex. {@code 2025/10-05_SE3.json}, eller {@code 2025-10-05_SE3.json};
+     * prisklassen tas från filnamnet. Andra filer hoppas över.
+     *
+     * @return Antal inlästa filer.
+     * @throws ElprisParseException om en fil inte kan tolkas; felet anger filen.
+     */
+    public int addJsonFiles(Path dir) throws IOException {
+        List<Path> filer;
+        try (Stream<Path> walk = Files.walk(dir)) {
+            filer = walk.filter(Files::isRegularFile).sorted().toList();
+        }
+        int antal = 0;
+        for (Path fil : filer) {
+            Matcher m = JSON_FILE.matcher(dir.relativize(fil).toString().replace('\\', '/'));
+            if (!m.find()) {
+                continue;
+            }
+            Prisklass zon = Prisklass.valueOf(m.group(1));
+            try {
+                addJson(zon, Files.readAllBytes(fil));
+            } catch (ElprisParseException e) {
+                throw e.withSource(fil.toString());
+            }
+            antal++;
+        }
+        return antal;
+    }
+
+    /**
+     * Hämtar ett intervall för flera prisklasser via klienten och lägger till det. Intervallet
+     * hämtas en kalendermånad i taget, med månadens dagar parallellt, och varje dags rader
+     * läggs direkt i kolumnerna med sin ursprungliga längd. Hela intervallet finns alltså
+     * aldrig som en lista, hur många år det än gäller.
+     */
+    public void addFromApi(ElpriserAPI api, DateRange intervall, Set<Prisklass> prisklasser) {
+        List<Prisklass> zoner = new ArrayList<>();
+        for (Prisklass zon : Prisklass.values()) {
+            if (prisklasser.contains(zon)) zoner.add(zon);
+        }
+        for (LocalDate från = intervall.from(); !från.isAfter(intervall.to()); ) {
+            LocalDate sista = YearMonth.from(från).atEndOfMonth();
+            if (sista.isAfter(intervall.to())) {
+                sista = intervall.to();
+            }
+            List<CompletableFuture<List<Elpris>>> perDag = new ArrayList<>();
+            for (Prisklass zon : zoner) {
+                for (LocalDate datum = från; !datum.isAfter(sista); datum = datum.plusDays(1)) {
+                    perDag.add(api.getPriserAsync(datum, zon));
+                }
+            }
+            int k = 0;
+            for (Prisklass zon : zoner) {
+                for (LocalDate datum = från; !datum.isAfter(sista); datum = datum.plusDays(1)) {
+                    addAll(zon, perDag.get(k++).join());
+                }
+            }
+            från = sista.plusDays(1);
+        }
+    }
+
+    // --- Utläsning ---
+
+    /** Prisklassens rader som en kolumnvis serie, eller en tom serie. */
+    public PriceSeries series(Prisklass zon) {
+        Columns c = zones[zon.ordinal()];
+        if (c == null) {
+            return PriceSeries.empty();
+        }
+        c.normalize();
+        return PriceSeries.ofRows(c.start, c.length, c.sek, c.eur, c.exr, c.size);
+    }
+
+    /**
+     * Sparar arkivet i en disk-cache för {@link ElpriserAPI}, en post per dag och prisklass,
+     * så att klienten kan svara på de dagarna utan nätverk. Dagar som redan finns ersätts.
+     *
+     * @param katalog Disk-cachens katalog, t.ex. den som anges med {@code elpriser.cache.dir}.
+     * @return Antal sparade dagar.
+     */
+    public int writeDiskCache(Path katalog) throws IOException {
+        DiskCache cache = new DiskCache(katalog);
+        SlotTimes lokal = new SlotTimes(ElpriserAPI.STOCKHOLM);
+        int dagar = 0;
+        for (Prisklass zon : zones()) {
+            // Direkt ur kolumnerna, så att varje rad sparas med sin egen längd; en serie är
+            // uppdelad på den finaste upplösningen och skulle göra timpriser till kvartar
+            Columns c = zones[zon.ordinal()];
+            c.normalize();
+            int från = 0;
+            while (från < c.size) {
+                long dag = lokal.epochDay(c.start[från]);
+                List<Elpris> priser = new ArrayList<>();
+                int i = från;
+                for (; i < c.size && lokal.epochDay(c.start[i]) == dag; i++) {
+                    priser.add(new Elpris(c.sek[i], c.eur[i], c.exr[i],
+                            ZonedDateTime.ofInstant(Instant.ofEpochSecond(c.start[i]), ElpriserAPI.STOCKHOLM),
+                            ZonedDateTime.ofInstant(Instant.ofEpochSecond(c.start[i] + c.length[i]), ElpriserAPI.STOCKHOLM)));
+                }
+                cache.save(LocalDate.ofEpochDay(dag), zon, priser);
+                dagar++;
+                från = i;
+            }
+        }
+        return dagar;
+    }
+
+    // --- Binärformat ---
+
+    /** Skriver arkivet till en binärfil, som ersätts om den finns. */
+    public void write(Path fil) throws IOException {
+        Set<Prisklass> zoner = zones();
+        try (FileChannel channel = FileChannel.open(fil, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES).order(ByteOrder.BIG_ENDIAN);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(zoner.size());
+            for (Prisklass zon : zoner) {
+                Columns c = zones[zon.ordinal()];
+                c.normalize();
+                ensure(channel, buffer, 8);
+                buffer.putInt(zon.ordinal()).putInt(c.size);
+                for (int i = 0; i < c.size; ) {
+                    ensure(channel, buffer, 8);
+                    int k = Math.min(c.size - i, buffer.remaining() / 8);
+                    buffer.asLongBuffer().put(c.start, i, k);
+                    buffer.position(buffer.position() + k * 8);
+                    i += k;
+                }
+                for (int i = 0; i < c.size; ) {
+                    ensure(channel, buffer, 4);
+                    int k = Math.min(c.size - i, buffer.remaining() / 4);
+                    buffer.asIntBuffer().put(c.length, i, k);
+                    buffer.position(buffer.position() + k * 4);
+                    i += k;
+                }
+                writeColumn(channel, buffer, c.sek, c.size);
+                writeColumn(channel, buffer, c.eur, c.size);
+                writeColumn(channel, buffer, c.exr, c.size);
+            }
+            flush(channel, buffer);
+        }
+    }
+
+    /**
+     * Läser en binärfil skriven av {@link #write(Path)}.
+     * @throws IOException om filen inte är ett arkiv eller är avkortad.
+     */
+    public static PriceArchive read(Path fil) throws IOException {
+        try (FileChannel channel = FileChannel.open(fil, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Arkivet är för stort: " + fil);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            buffer.order(ByteOrder.BIG_ENDIAN);
+            if (size < 12 || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IOException("Inte ett prisarkiv: " + fil);
+            }
+            PriceArchive archive = new PriceArchive();
+            int zoner = buffer.getInt();
+            for (int z = 0; z < zoner; z++) {
+                if (buffer.remaining() < 8) {
+                    throw new IOException("Arkivet är avkortat: " + fil);
+                }
+                int ordinal = buffer.getInt();
+                int n = buffer.getInt();
+                if (ordinal < 0 || ordinal >= Prisklass.values().length || n < 0
+                        || (long) n * ROW_BYTES > buffer.remaining()) {
+                    throw new IOException("Arkivet är skadat eller avkortat: " + fil);
+                }
+                Columns c = new Columns();
+                c.grow(Math.max(n, 1));
+                buffer.asLongBuffer().get(c.start, 0, n);
+                buffer.position(buffer.position() + n * 8);
+                buffer.asIntBuffer().get(c.length, 0, n);
+                buffer.position(buffer.position() + n * 4);
+                for (double[] kolumn : new double[][] {c.sek, c.eur, c.exr}) {
+                    buffer.asDoubleBuffer().get(kolumn, 0, n);
+                    buffer.position(buffer.position() + n * 8);
+                }
+                c.size = n;
+                for (int i = 1; i < n && c.sorted; i++) {
+                    c.sorted = c.start[i - 1] < c.start[i];
+                }
+                archive.zones[ordinal] = c;
+            }
+            return archive;
+        }
+    }
+
+    // --- CSV ---
+
+    /**
+     * Skriver arkivet som CSV med en rad per period och en rubrikrad:
+     * {@code zone,start,end,sek_per_kwh,eur_per_kwh,exr}. Tiderna anges i ISO-8601 med
+     * svensk offset och talen som i Mains CSV, se {@link Decimals#appendDecimal}.
+     */
+    public void writeCsv(Path fil) throws IOException {
+        try (FileChannel channel = FileChannel.open(fil, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            // Varje tecken läggs i bufferten för sig, vilket går snabbare i en heap-buffert
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES);
+            StringBuilder rad = new StringBuilder(128);
+            rad.append("zone,start,end,sek_per_kwh,eur_per_kwh,exr\n");
+            putAscii(channel, buffer, rad);
+            SlotTimes lokal = new SlotTimes(ElpriserAPI.STOCKHOLM);
+            for (Prisklass zon : zones()) {
+                Columns c = zones[zon.ordinal()];
+                c.normalize();
+                for (int i = 0; i < c.size; i++) {
+                    long start = c.start[i];
+                    rad.setLength(0);
+                    rad.append(zon.name()).append(',');
+                    lokal.appendIsoDateTime(rad, start);
+                    rad.append(',');
+                    lokal.appendIsoDateTime(rad, start + c.length[i]);
+                    Decimals.appendDecimal(rad.append(','), c.sek[i]);
+                    Decimals.appendDecimal(rad.append(','), c.eur[i]);
+                    Decimals.appendDecimal(rad.append(','), c.exr[i]).append('\n');
+                    putAscii(channel, buffer, rad);
+                }
+            }
+            flush(channel, buffer);
+        }
+    }
+
+    // --- Buffring ---
+
+    private static void writeColumn(FileChannel channel, ByteBuffer buffer, double[] kolumn, int n) throws IOException {
+        for (int i = 0; i < n; ) {
+            ensure(channel, buffer, 8);
+            int k = Math.min(n - i, buffer.remaining() / 8);
+            buffer.asDoubleBuffer().put(kolumn, i, k);
+            buffer.position(buffer.position() + k * 8);
+            i += k;
+        }
+    }
+
+    // CSV-raderna innehåller bara ASCII, så varje tecken blir en byte
+    private static void putAscii(FileChannel channel, ByteBuffer buffer, CharSequence text) throws IOException {
+        ensure(channel, buffer, text.length());
+        for (int i = 0; i < text.length(); i++) {
+            buffer.put((byte) text.charAt(i));
+        }
+    }
+
+    private static void ensure(FileChannel channel, ByteBuffer buffer, int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush(channel, buffer);
+        }
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
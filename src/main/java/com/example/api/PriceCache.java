@@ -0,0 +1,239 @@
+package com.example.api;
+
+import com.example.api.ElpriserAPI.Elpris;
+import com.example.api.ElpriserAPI.Prisklass;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Storleksbegränsad minnes-cache för dagars priser med livslängd per post.
+ * <p>
+ * Nyckeln är datum och prisklass packade i en {@code long}, så ett uppslag skapar inga
+ * strängar. Dagar som redan passerat är slutgiltiga och lever tills de trängs undan;
+ * idag och framåt får en begränsad livslängd så att de hämtas om efter en stund.
+ * En utgången post ger en miss men ligger kvar tills den ersätts eller trängs undan,
+ * så att den kan valideras om med sina {@link PriceSource.Validators} eller användas
+ * när API:t inte svarar, se {@link #peek}.
+ * <p>
+ * Dagar som ännu inte publicerats sparas som tomma poster ({@link #putUnpublished}) som
+ * lever till den förväntade publiceringstiden ({@link #unpublishedExpiry}), så att upprepade frågor om morgondagen
+ * före kl. 13 inte går till nätverket.
+ * <p>
+ * Uppslag är låsfria och stämplar bara posten med en åtkomsttid. När cachen blir
+ * full tas den minst nyligen använda tiondelen bort i ett svep (ungefärlig LRU), så
+ * kostnaden för undanträngning fördelas över många insättningar.
+ */
+final class PriceCache {
+
+    /** Standardstorlek: fyra prisklasser i drygt två år. */
+    static final int DEFAULT_MAX_ENTRIES = 4 * 800;
+    /** Standardlivslängd för idag och framtida dagar. */
+    static final Duration DEFAULT_RECENT_TTL = Duration.ofHours(1);
+    /** Ungefär när nästa dags priser publiceras, i svensk tid. */
+    static final LocalTime PUBLICATION_TIME = LocalTime.of(13, 0);
+    /** Hur ofta en opublicerad dag frågas efter igen när publiceringstiden har passerat. */
+    static final Duration UNPUBLISHED_RETRY = Duration.ofMinutes(10);
+
+    private static final long NO_EXPIRY = Long.MAX_VALUE;
+
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final int maxEntries;
+    private final Duration recentTtl;
+    private final Clock clock;
+    private final Object evictionLock = new Object();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    static final class Entry {
+        final List<Elpris> priser;
+        final PriceSource.Validators validators;
+        final long expiresAtMillis;
+        volatile long lastAccess;
+        // Sätts första gången posten ses utgången, så att den bara räknas en gång
+        volatile boolean expired;
+        // Byggs vid första tidsuppslaget; två trådar kan bygga den samtidigt, men resultatet blir lika
+        private volatile PriceSeries series;
+
+        Entry(List<Elpris> priser, PriceSource.Validators validators, long expiresAtMillis, long lastAccess) {
+            this.priser = priser;
+            this.validators = validators;
+            this.expiresAtMillis = expiresAtMillis;
+            this.lastAccess = lastAccess;
+        }
+
+        List<Elpris> priser() {
+            return priser;
+        }
+
+        PriceSource.Validators validators() {
+            return validators;
+        }
+
+        /** Priserna som en {@link PriceSeries}, för uppslag på tid utan att gå igenom listan. */
+        PriceSeries series() {
+            PriceSeries s = series;
+            if (s == null) {
+                s = PriceSeries.of(priser);
+                series = s;
+            }
+            return s;
+        }
+    }
+
+    PriceCache(int maxEntries, Duration recentTtl, Clock clock) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries måste vara positivt: " + maxEntries);
+        }
+        this.maxEntries = maxEntries;
+        this.recentTtl = recentTtl;
+        this.clock = clock;
+    }
+
+    /** Packar datum och prisklass till en nyckel: epoch-dag i de höga bitarna, zon i de låga. */
+    static long key(LocalDate datum, Prisklass prisklass) {
+        return (datum.toEpochDay() << 8) | prisklass.ordinal();
+    }
+
+    /**
+     * Hämtar en dags priser.
+     * @return Priserna, en tom lista om dagen ännu inte publicerats, eller null om de
+     *         saknas eller har gått ut.
+     */
+    List<Elpris> get(LocalDate datum, Prisklass prisklass) {
+        List<Elpris> priser = lookup(datum, prisklass);
+        record(priser != null);
+        return priser;
+    }
+
+    /**
+     * Som {@link #get}, men utan att räknas som träff eller miss. För en andra kontroll
+     * inom ett uppslag som redan räknats, så att varje uppslag räknas en gång.
+     */
+    List<Elpris> lookup(LocalDate datum, Prisklass prisklass) {
+        Entry entry = entries.get(key(datum, prisklass));
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAtMillis != NO_EXPIRY && clock.millis() >= entry.expiresAtMillis) {
+            if (!entry.expired) {
+                entry.expired = true;
+                expirations.increment();
+            }
+            return null;
+        }
+        entry.lastAccess = System.nanoTime();
+        return entry.priser;
+    }
+
+    /** Räknar ett uppslag som gjordes med {@link #lookup} som träff eller miss. */
+    void record(boolean hit) {
+        (hit ? hits : misses).increment();
+    }
+
+    /**
+     * Hämtar en post även om den har gått ut, utan att räknas som träff eller miss.
+     * @return Posten, eller null om den saknas.
+     */
+    Entry peek(LocalDate datum, Prisklass prisklass) {
+        return entries.get(key(datum, prisklass));
+    }
+
+    void put(LocalDate datum, Prisklass prisklass, List<Elpris> priser) {
+        put(datum, prisklass, priser, PriceSource.Validators.NONE);
+    }
+
+    void put(LocalDate datum, Prisklass prisklass, List<Elpris> priser, PriceSource.Validators validators) {
+        long expiresAt = datum.isBefore(LocalDate.now(clock))
+                ? NO_EXPIRY
+                : clock.millis() + recentTtl.toMillis();
+        entries.put(key(datum, prisklass), new Entry(priser, validators, expiresAt, System.nanoTime()));
+        if (entries.size() > maxEntries) {
+            evict();
+        }
+    }
+
+    /**
+     * Hur länge ett 404-svar för dagen ska gälla. Före den förväntade publiceringstiden
+     * (kl. 13 dagen innan) gäller det till dess; efter den frågas det igen med korta
+     * intervall tills priserna dyker upp. Dagar som redan passerat frågas efter igen som
+     * andra färska poster.
+     * @return Epoch-millisekunder.
+     */
+    long unpublishedExpiry(LocalDate datum) {
+        long now = clock.millis();
+        if (datum.isBefore(LocalDate.now(clock))) {
+            return now + recentTtl.toMillis();
+        }
+        long publicering = datum.minusDays(1).atTime(PUBLICATION_TIME)
+                .atZone(ElpriserAPI.STOCKHOLM).toInstant().toEpochMilli();
+        return now < publicering ? publicering : now + UNPUBLISHED_RETRY.toMillis();
+    }
+
+    /**
+     * Sparar att en dag saknas hos API:t, som en tom post som gäller till {@code expiresAtMillis}.
+     */
+    void putUnpublished(LocalDate datum, Prisklass prisklass, long expiresAtMillis) {
+        entries.put(key(datum, prisklass),
+                new Entry(List.of(), PriceSource.Validators.NONE, expiresAtMillis, System.nanoTime()));
+        if (entries.size() > maxEntries) {
+            evict();
+        }
+    }
+
+    void invalidate(LocalDate datum, Prisklass prisklass) {
+        entries.remove(key(datum, prisklass));
+    }
+
+    CacheStats stats() {
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), expirations.sum(), entries.size());
+    }
+
+    /**
+     * Tar bort utgångna poster och sedan de minst nyligen använda tills cachen är nere
+     * på 90 % av maxstorleken.
+     */
+    private void evict() {
+        synchronized (evictionLock) {
+            if (entries.size() <= maxEntries) {
+                return;
+            }
+            long now = clock.millis();
+            // Åtkomststämplarna kopieras så att sorteringen ser stabila värden
+            record Candidate(Long key, Entry entry, long lastAccess) {}
+            List<Candidate> candidates = new ArrayList<>(entries.size());
+            for (Map.Entry<Long, Entry> e : entries.entrySet()) {
+                if (e.getValue().expiresAtMillis <= now) {
+                    if (entries.remove(e.getKey(), e.getValue()) && !e.getValue().expired) {
+                        expirations.increment();
+                    }
+                } else {
+                    candidates.add(new Candidate(e.getKey(), e.getValue(), e.getValue().lastAccess));
+                }
+            }
+            int target = maxEntries - maxEntries / 10;
+            int toRemove = entries.size() - target;
+            if (toRemove <= 0) {
+                return;
+            }
+            candidates.sort(Comparator.comparingLong(Candidate::lastAccess));
+            for (int i = 0; i < toRemove && i < candidates.size(); i++) {
+                Candidate c = candidates.get(i);
+                if (entries.remove(c.key(), c.entry())) {
+                    evictions.increment();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,370 @@
+package com.example.api;
+
+import com.example.api.ElpriserAPI.Elpris;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * En tidsserie av elpriser lagrad kolumnvis i primitiva arrayer.
+ * <p>
+ * Varje rad har en starttid i epoch-sekunder och priser i SEK, EUR och växelkurs. Alla
+ * rader har samma längd ({@link #intervalSeconds()}); rader med grövre upplösning delas
+ * upp vid konstruktionen, så en serie som blandar timpriser och kvartspriser får
+ * kvartsupplösning genomgående. Luckor (t.ex. saknade dagar) är tillåtna, eftersom
+ * starttiden lagras per rad.
+ * <p>
+ * Serien är oföränderlig. {@link #slice(int, int)} skapar en vy över samma arrayer utan
+ * att kopiera något, så statistik och fönstersökningar kan köras direkt på delintervall.
+ * <p>
+ * Uppslag på tid är O(1) när serien saknar luckor (raden räknas fram ur starttiden) och
+ * annars en binärsökning. Prefixsummor av SEK-priserna byggs vid konstruktionen och delas
+ * av alla vyer, så summan över ett godtyckligt intervall är också O(1).
+ */
+public final class PriceSeries {
+
+    private static final PriceSeries EMPTY = new PriceSeries(new long[0], new double[0], new double[0], new double[0],
+            new double[1], 3600, 0, 0);
+
+    private final long[] starts;
+    private final double[] sek;
+    private final double[] eur;
+    private final double[] exr;
+    // prefixSek[i] = summan av sek[0..i), över hela den underliggande arrayen
+    private final double[] prefixSek;
+    private final int intervalSeconds;
+    private final int offset;
+    private final int length;
+    // Sant om raderna följer på varandra utan luckor, så att rad = (tid - start) / intervall
+    private final boolean contiguous;
+
+    private PriceSeries(long[] starts, double[] sek, double[] eur, double[] exr, double[] prefixSek,
+                        int intervalSeconds, int offset, int length) {
+        this.starts = starts;
+        this.sek = sek;
+        this.eur = eur;
+        this.exr = exr;
+        this.prefixSek = prefixSek;
+        this.intervalSeconds = intervalSeconds;
+        this.offset = offset;
+        this.length = length;
+        // Starttiderna är strikt växande med minst ett intervall emellan, så det räcker att jämföra ändarna
+        this.contiguous = length < 2
+                || starts[offset + length - 1] - starts[offset] == (long) (length - 1) * intervalSeconds;
+    }
+
+    private PriceSeries(long[] starts, double[] sek, double[] eur, double[] exr, int intervalSeconds, int length) {
+        this(starts, sek, eur, exr, prefixSums(sek), intervalSeconds, 0, length);
+    }
+
+    private static double[] prefixSums(double[] values) {
+        double[] prefix = new double[values.length + 1];
+        for (int i = 0; i < values.length; i++) {
+            prefix[i + 1] = prefix[i] + values[i];
+        }
+        return prefix;
+    }
+
+    public static PriceSeries empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Skapar en serie från en lista av priser. Listan behöver inte vara sorterad, men får
+     * inte innehålla överlappande perioder.
+     *
+     * @throws IllegalArgumentException om två perioder överlappar eller om en periods
+     *         längd inte är en multipel av den kortaste periodlängden.
+     */
+    public static PriceSeries of(List<Elpris> priser) {
+        if (priser.isEmpty()) {
+            return EMPTY;
+        }
+        int n = priser.size();
+        long[] rowStart = new long[n];
+        int[] rowLength = new int[n];
+        double[] sek = new double[n];
+        double[] eur = new double[n];
+        double[] exr = new double[n];
+        int interval = Integer.MAX_VALUE;
+        boolean sorted = true;
+        for (int i = 0; i < n; i++) {
+            Elpris pris = priser.get(i);
+            rowStart[i] = pris.timeStart().toEpochSecond();
+            sek[i] = pris.sekPerKWh();
+            eur[i] = pris.eurPerKWh();
+            exr[i] = pris.exr();
+            rowLength[i] = (int) (pris.timeEnd().toEpochSecond() - rowStart[i]);
+            if (rowLength[i] <= 0) {
+                throw new IllegalArgumentException("Periodens slut ligger inte efter dess start: " + pris);
+            }
+            interval = Math.min(interval, rowLength[i]);
+            sorted &= i == 0 || rowStart[i - 1] < rowStart[i];
+        }
+        if (!sorted) {
+            Integer[] order = new Integer[n];
+            for (int i = 0; i < n; i++) order[i] = i;
+            Arrays.sort(order, (a, b) -> Long.compare(rowStart[a], rowStart[b]));
+            long[] s = new long[n];
+            int[] l = new int[n];
+            double[] se = new double[n], eu = new double[n], ex = new double[n];
+            for (int k = 0; k < n; k++) {
+                int i = order[k];
+                s[k] = rowStart[i];
+                l[k] = rowLength[i];
+                se[k] = sek[i];
+                eu[k] = eur[i];
+                ex[k] = exr[i];
+            }
+            return ofRows(s, l, se, eu, ex, n, interval);
+        }
+        return ofRows(rowStart, rowLength, sek, eur, exr, n, interval);
+    }
+
+    /**
+     * Skapar en serie från kolumner med en rad per period, sorterade på starttid. Rader
+     * längre än den kortaste delas upp. Arrayerna kopieras och kan återanvändas.
+     *
+     * @throws IllegalArgumentException om två perioder överlappar eller om en periods
+     *         längd inte är en multipel av den kortaste periodlängden.
+     */
+    static PriceSeries ofRows(long[] rowStart, int[] rowLength, double[] rowSek, double[] rowEur,
+                              double[] rowExr, int n) {
+        if (n == 0) {
+            return EMPTY;
+        }
+        int interval = Integer.MAX_VALUE;
+        for (int i = 0; i < n; i++) {
+            if (rowLength[i] <= 0) {
+                throw new IllegalArgumentException("Periodens längd måste vara positiv vid " + Instant.ofEpochSecond(rowStart[i]));
+            }
+            interval = Math.min(interval, rowLength[i]);
+        }
+        return ofRows(rowStart, rowLength, rowSek, rowEur, rowExr, n, interval);
+    }
+
+    private static PriceSeries ofRows(long[] rowStart, int[] rowLength, double[] rowSek, double[] rowEur,
+                                      double[] rowExr, int n, int interval) {
+        int total = 0;
+        for (int i = 0; i < n; i++) {
+            if (rowLength[i] % interval != 0) {
+                throw new IllegalArgumentException("Periodlängd " + rowLength[i] + " s går inte att dela i " + interval + " s");
+            }
+            total += rowLength[i] / interval;
+        }
+        long[] starts = new long[total];
+        double[] sek = new double[total];
+        double[] eur = new double[total];
+        double[] exr = new double[total];
+        int row = 0;
+        long previousEnd = Long.MIN_VALUE;
+        for (int i = 0; i < n; i++) {
+            if (rowStart[i] < previousEnd) {
+                throw new IllegalArgumentException("Överlappande perioder vid "
+                        + Instant.ofEpochSecond(rowStart[i]).atZone(ElpriserAPI.STOCKHOLM));
+            }
+            previousEnd = rowStart[i] + rowLength[i];
+            for (int part = 0; part < rowLength[i] / interval; part++, row++) {
+                starts[row] = rowStart[i] + (long) part * interval;
+                sek[row] = rowSek[i];
+                eur[row] = rowEur[i];
+                exr[row] = rowExr[i];
+            }
+        }
+        return new PriceSeries(starts, sek, eur, exr, interval, total);
+    }
+
+    /**
+     * Slår ihop serier till en. Serierna ska komma i tidsordning utan överlapp och ha
+     * samma upplösning.
+     */
+    public static PriceSeries concat(List<PriceSeries> delar) {
+        int total = 0;
+        int interval = 0;
+        for (PriceSeries del : delar) {
+            if (del.length == 0) continue;
+            if (interval != 0 && del.intervalSeconds != interval) {
+                throw new IllegalArgumentException("Serierna har olika upplösning: " + interval + " s och " + del.intervalSeconds + " s");
+            }
+            interval = del.intervalSeconds;
+            total += del.length;
+        }
+        if (total == 0) {
+            return EMPTY;
+        }
+        long[] starts = new long[total];
+        double[] sek = new double[total];
+        double[] eur = new double[total];
+        double[] exr = new double[total];
+        int pos = 0;
+        for (PriceSeries del : delar) {
+            if (del.length == 0) continue;
+            if (pos > 0 && del.starts[del.offset] < starts[pos - 1] + interval) {
+                throw new IllegalArgumentException("Serierna överlappar eller är inte i tidsordning");
+            }
+            System.arraycopy(del.starts, del.offset, starts, pos, del.length);
+            System.arraycopy(del.sek, del.offset, sek, pos, del.length);
+            System.arraycopy(del.eur, del.offset, eur, pos, del.length);
+            System.arraycopy(del.exr, del.offset, exr, pos, del.length);
+            pos += del.length;
+        }
+        return new PriceSeries(starts, sek, eur, exr, interval, total);
+    }
+
+    public int size() {
+        return length;
+    }
+
+    public boolean isEmpty() {
+        return length == 0;
+    }
+
+    /** Längden på varje period i sekunder, t.ex. 3600 eller 900. */
+    public int intervalSeconds() {
+        return intervalSeconds;
+    }
+
+    public long startEpochSecond(int i) {
+        return starts[index(i)];
+    }
+
+    public long endEpochSecond(int i) {
+        return starts[index(i)] + intervalSeconds;
+    }
+
+    public double sekPerKWh(int i) {
+        return sek[index(i)];
+    }
+
+    public double eurPerKWh(int i) {
+        return eur[index(i)];
+    }
+
+    public double exr(int i) {
+        return exr[index(i)];
+    }
+
+    /**
+     * Returnerar en vy över raderna {@code [from, to)} utan att kopiera data.
+     */
+    public PriceSeries slice(int from, int to) {
+        Objects.checkFromToIndex(from, to, length);
+        if (from == 0 && to == length) {
+            return this;
+        }
+        return new PriceSeries(starts, sek, eur, exr, prefixSek, intervalSeconds, offset + from, to - from);
+    }
+
+    /**
+     * Raden som innehåller tidpunkten; O(1) utan luckor, annars en binärsökning.
+     * @return Radens index, eller -1 om tidpunkten inte täcks av serien.
+     */
+    public int indexAt(long epochSecond) {
+        if (length == 0 || epochSecond < starts[offset]) {
+            return -1;
+        }
+        if (contiguous) {
+            long i = (epochSecond - starts[offset]) / intervalSeconds;
+            return i < length ? (int) i : -1;
+        }
+        int i = ceilingIndex(epochSecond + 1) - 1;
+        if (i < 0 || epochSecond >= starts[offset + i] + intervalSeconds) {
+            return -1;
+        }
+        return i;
+    }
+
+    /**
+     * Första raden som börjar vid eller efter tidpunkten; O(1) utan luckor, annars en binärsökning.
+     * @return Radens index, eller {@link #size()} om ingen rad börjar så sent.
+     */
+    public int ceilingIndex(long epochSecond) {
+        if (length == 0 || epochSecond <= starts[offset]) {
+            return 0;
+        }
+        if (contiguous) {
+            long i = Math.ceilDiv(epochSecond - starts[offset], (long) intervalSeconds);
+            return (int) Math.min(i, length);
+        }
+        int i = Arrays.binarySearch(starts, offset, offset + length, epochSecond);
+        return (i >= 0 ? i : -i - 1) - offset;
+    }
+
+    /** Summan av SEK-priserna för raderna {@code [from, to)}, ur prefixsummorna i O(1). */
+    public double sumSek(int from, int to) {
+        Objects.checkFromToIndex(from, to, length);
+        return prefixSek[offset + to] - prefixSek[offset + from];
+    }
+
+    /**
+     * Summan av SEK-priserna för raderna som börjar i {@code [fromEpochSecond, toEpochSecond)}.
+     * Med en rad per kWh-period är det kostnaden för att förbruka 1 kWh i varje period.
+     */
+    public double sumSekBetween(long fromEpochSecond, long toEpochSecond) {
+        if (toEpochSecond <= fromEpochSecond) {
+            return 0;
+        }
+        return sumSek(ceilingIndex(fromEpochSecond), ceilingIndex(toEpochSecond));
+    }
+
+    /**
+     * SEK-priset vid en tidpunkt.
+     * @return Priset, eller {@link Double#NaN} om tidpunkten inte täcks av serien.
+     */
+    public double sekPerKWhAt(long epochSecond) {
+        int i = indexAt(epochSecond);
+        return i < 0 ? Double.NaN : sek[offset + i];
+    }
+
+    /** Sant om raderna {@code [from, to)} följer direkt på varandra utan luckor. */
+    public boolean isContiguous(int from, int to) {
+        Objects.checkFromToIndex(from, to, length);
+        if (contiguous || to - from < 2) {
+            return true;
+        }
+        return starts[offset + to - 1] - starts[offset + from] == (long) (to - from - 1) * intervalSeconds;
+    }
+
+    /** Kopierar SEK-kolumnen för serien. */
+    public double[] sekPerKWhArray() {
+        return Arrays.copyOfRange(sek, offset, offset + length);
+    }
+
+    /** Kopierar startkolumnen för serien. */
+    public long[] startEpochSecondArray() {
+        return Arrays.copyOfRange(starts, offset, offset + length);
+    }
+
+    /** Skapar ett {@link Elpris} för en rad, med tider i den angivna tidszonen. */
+    public Elpris toElpris(int i, ZoneId zone) {
+        int j = index(i);
+        return new Elpris(sek[j], eur[j], exr[j],
+                ZonedDateTime.ofInstant(Instant.ofEpochSecond(starts[j]), zone),
+                ZonedDateTime.ofInstant(Instant.ofEpochSecond(starts[j] + intervalSeconds), zone));
+    }
+
+    /** Skapar en lista av {@link Elpris} för hela serien. */
+    public List<Elpris> toList(ZoneId zone) {
+        List<Elpris> priser = new ArrayList<>(length);
+        for (int i = 0; i < length; i++) {
+            priser.add(toElpris(i, zone));
+        }
+        return priser;
+    }
+
+    private int index(int i) {
+        return offset + Objects.checkIndex(i, length);
+    }
+
+    @Override
+    public String toString() {
+        return "PriceSeries[size=" + length + ", intervalSeconds=" + intervalSeconds
+                + (length == 0 ? "" : ", from=" + Instant.ofEpochSecond(starts[offset])
+                + ", to=" + Instant.ofEpochSecond(starts[offset + length - 1] + intervalSeconds)) + "]";
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.api;
+
+import com.example.api.ElpriserAPI.Elpris;
+import com.example.api.ElpriserAPI.Prisklass;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Varifrån en {@link ElpriserAPI} hämtar en dags priser när de inte finns i cachen.
+ * <p>
+ * Standard är elprisetjustnu.se över HTTP. En annan källa anges per instans med
+ * {@link ElpriserAPI.Builder#source}, så att flera klienter med olika källor kan köras i
+ * samma JVM utan delat tillstånd, t.ex. för lasttester mot cache- och analyslagren:
+ * <ul>
+ *   <li>{@link #replay(Path)} spelar upp sparade API-svar eller ett {@link PriceArchive}.</li>
+ *   <li>{@link #synthetic(long, Duration)} genererar deterministiska priser för alla dagar.</li>
+ * </ul>
+ * Implementationer anropas från flera trådar samtidigt och måste vara trådsäkra. Klienten
+ * ser till att högst ett anrop åt gången pågår per dag och prisklass.
+ */
+public interface PriceSource {
+
+    /**
+     * Hämtar en dag.
+     *
+     * @param validators Värden från ett tidigare svar för samma dag, eller {@link Validators#NONE}.
+     *                   En källa som stödjer dem kan svara {@link Status#NOT_MODIFIED}.
+     * @return Svaret; en dag som inte finns ger {@link Status#NOT_PUBLISHED}.
+     * @throws IOException om källan inte gick att nå. Klienten svarar då med gammal data om den har någon.
+     */
+    Response fetch(LocalDate datum, Prisklass prisklass, Validators validators)
+            throws IOException, InterruptedException;
+
+    /**
+     * Om svaren ska läsas från och sparas i disk-cachen. Bara källor med riktiga priser bör
+     * göra det, så att uppspelad eller genererad data inte blandas med API:ts.
+     */
+    default boolean persistent() {
+        return false;
+    }
+
+    /** Hur ett anrop till källan gick. */
+    enum Status {
+        /** Dagens priser finns i {@link Response#priser()}. */
+        OK,
+        /** Datan har inte ändrats sedan svaret som gav {@code validators}. */
+        NOT_MODIFIED,
+        /** Dagen finns inte (ännu), t.ex. morgondagen före kl. 13. */
+        NOT_PUBLISHED
+    }
+
+    /** Valideringsvärden från ett tidigare svar, för villkorliga anrop. Båda kan vara null. */
+    record Validators(String etag, String lastModified) {
+        public static final Validators NONE = new Validators(null, null);
+
+        public boolean isEmpty() {
+            return etag == null && lastModified == null;
+        }
+    }
+
+    /** Ett svar från källan. {@code priser} är tom utom vid {@link Status#OK}. */
+    record Response(Status status, List<Elpris> priser, Validators validators) {
+
+        public Response {
+            Objects.requireNonNull(status, "status");
+            Objects.requireNonNull(priser, "priser");
+            Objects.requireNonNull(validators, "validators");
+        }
+
+        public static Response ok(List<Elpris> priser) {
+            return new Response(Status.OK, priser, Validators.NONE);
+        }
+
+        public static Response ok(List<Elpris> priser, Validators validators) {
+            return new Response(Status.OK, priser, validators);
+        }
+
+        public static Response notModified(Validators validators) {
+            return new Response(Status.NOT_MODIFIED, List.of(), validators);
+        }
+
+        public static Response notPublished() {
+            return new Response(Status.NOT_PUBLISHED, List.of(), Validators.NONE);
+        }
+    }
+
+    /**
+     * Spelar upp sparade priser. Är {@code path} en katalog läses API-svar som heter som
+     * API:ts sökvägar, t.ex. {@code 2025/10-05_SE3.json} eller {@code 2025-10-05_SE3.json};
+     * annars läses filen som ett {@link PriceArchive}. Dagar som saknas ger
+     * {@link Status#NOT_PUBLISHED}.
+     *
+     * @throws IOException om arkivfilen inte kan läsas.
+     */
+    static PriceSource replay(Path path) throws IOException {
+        return new ReplayPriceSource(path);
+    }
+
+    /**
+     * Genererar priser med dygnsrytm, skillnader mellan prisklasserna och slumpbrus, utan
+     * nätverk eller filer. Samma frö, dag och prisklass ger alltid samma priser.
+     *
+     * @param upplösning Periodlängd, t.ex. en timme eller 15 minuter; måste dela ett dygn jämnt.
+     */
+    static PriceSource synthetic(long seed, Duration upplösning) {
+        return new SyntheticPriceSource(seed, upplösning);
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.api;
+
+import com.example.api.ElpriserAPI.Prisklass;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Spelar upp sparade priser, se {@link PriceSource#replay(Path)}.
+ * <p>
+ * En katalog läses fil för fil vid varje anrop; klientens cache ser till att varje dag
+ * bara läses en gång. Ett arkiv läses in helt när källan skapas och varje dag blir sedan
+ * en vy över arkivets kolumner. Har arkivet blandad upplösning delas alla rader på den
+ * finaste, som i {@link PriceArchive#series}.
+ */
+final class ReplayPriceSource implements PriceSource {
+
+    private static final DateTimeFormatter API_PATH = DateTimeFormatter.ofPattern("yyyy/MM-dd");
+
+    private final Path dir;
+    private final Map<Prisklass, PriceSeries> arkiv;
+
+    ReplayPriceSource(Path path) throws IOException {
+        if (Files.isDirectory(path)) {
+            this.dir = path;
+            this.arkiv = null;
+        } else {
+            PriceArchive archive = PriceArchive.read(path);
+            this.dir = null;
+            this.arkiv = new EnumMap<>(Prisklass.class);
+            for (Prisklass zon : archive.zones()) {
+                arkiv.put(zon, archive.series(zon));
+            }
+        }
+    }
+
+    @Override
+    public Response fetch(LocalDate datum, Prisklass prisklass, Validators validators) throws IOException {
+        return dir != null ? fromDirectory(datum, prisklass) : fromArchive(datum, prisklass);
+    }
+
+    private Response fromDirectory(LocalDate datum, Prisklass prisklass) throws IOException {
+        String namn = "_" + prisklass.name() + ".json";
+        for (Path fil : new Path[] {dir.resolve(datum.format(API_PATH) + namn), dir.resolve(datum + namn)}) {
+            byte[] json;
+            try {
+                json = Files.readAllBytes(fil);
+            } catch (NoSuchFileException e) {
+                continue;
+            }
+            try {
+                return Response.ok(ElprisJsonParser.parse(json));
+            } catch (ElprisParseException e) {
+                throw new IOException(e.withSource(fil.toString()).getMessage(), e);
+            }
+        }
+        return Response.notPublished();
+    }
+
+    private Response fromArchive(LocalDate datum, Prisklass prisklass) {
+        PriceSeries serie = arkiv.get(prisklass);
+        if (serie == null) {
+            return Response.notPublished();
+        }
+        long start = datum.atStartOfDay(ElpriserAPI.STOCKHOLM).toEpochSecond();
+        long slut = datum.plusDays(1).atStartOfDay(ElpriserAPI.STOCKHOLM).toEpochSecond();
+        int från = serie.ceilingIndex(start);
+        int till = serie.ceilingIndex(slut);
+        if (från == till) {
+            return Response.notPublished();
+        }
+        return Response.ok(serie.slice(från, till).toList(ElpriserAPI.STOCKHOLM));
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.api;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+
+/**
+ * Lokal tid för perioder som lagras som epoch-sekunder, t.ex. raderna i en {@link PriceSeries}.
+ * <p>
+ * All logik räknar i epoch-sekunder med en uttrycklig periodlängd; lokal tid behövs bara
+ * för gruppering och utskrift. Offseten som gäller och intervallet den gäller för sparas,
+ * så tidszonsreglerna slås bara upp igen vid en sommartidsövergång och inga
+ * {@code ZonedDateTime} skapas per rad. Dygn med 23 eller 25 timmar blir därmed rätt av sig självt.
+ * <p>
+ * En instans är inte trådsäker; skapa en per tråd eller per genomgång.
+ */
+public final class SlotTimes {
+
+    private final ZoneRules rules;
+
+    // Senast använda offset och intervallet [offsetValidFrom, offsetValidUntil) den gäller för
+    private int cachedOffset;
+    private long offsetValidFrom = Long.MAX_VALUE;
+    private long offsetValidUntil = Long.MIN_VALUE;
+
+    public SlotTimes(ZoneId zone) {
+        this.rules = zone.getRules();
+    }
+
+    /** Offset mot UTC i sekunder vid tidpunkten. */
+    public int offsetSeconds(long epochSecond) {
+        if (epochSecond < offsetValidFrom || epochSecond >= offsetValidUntil) {
+            Instant instant = Instant.ofEpochSecond(epochSecond);
+            cachedOffset = rules.getOffset(instant).getTotalSeconds();
+            ZoneOffsetTransition previous = rules.previousTransition(instant.plusSeconds(1));
+            ZoneOffsetTransition next = rules.nextTransition(instant);
+            offsetValidFrom = previous == null ? Long.MIN_VALUE : previous.toEpochSecond();
+            offsetValidUntil = next == null ? Long.MAX_VALUE : next.toEpochSecond();
+        }
+        return cachedOffset;
+    }
+
+    /** Lokal kalenderdag som epoch-dag. */
+    public long epochDay(long epochSecond) {
+        return Math.floorDiv(epochSecond + offsetSeconds(epochSecond), 86_400);
+    }
+
+    /** Lokal kalenderdag. */
+    public LocalDate date(long epochSecond) {
+        return LocalDate.ofEpochDay(epochDay(epochSecond));
+    }
+
+    /** Sekunder sedan lokal midnatt, 0–86399. */
+    public int secondOfDay(long epochSecond) {
+        return (int) Math.floorMod(epochSecond + offsetSeconds(epochSecond), 86_400L);
+    }
+
+    /** Lokal timme, 0–23. */
+    public int hour(long epochSecond) {
+        return secondOfDay(epochSecond) / 3600;
+    }
+
+    /** Lokal minut inom timmen, 0–59. */
+    public int minute(long epochSecond) {
+        return secondOfDay(epochSecond) / 60 % 60;
+    }
+
+    /**
+     * Lägger till tidpunkten som {@link DateTimeFormatter#ISO_OFFSET_DATE_TIME} skriver den för
+     * hela sekunder, t.ex. {@code 2025-10-05T00:00:00+02:00}, utan att skapa några objekt.
+     */
+    public StringBuilder appendIsoDateTime(StringBuilder sb, long epochSecond) {
+        appendDate(sb, epochSecond).append('T');
+        int sekund = secondOfDay(epochSecond);
+        twoDigits(sb, sekund / 3600).append(':');
+        twoDigits(sb, sekund / 60 % 60).append(':');
+        twoDigits(sb, sekund % 60);
+        int offset = offsetSeconds(epochSecond);
+        if (offset == 0) {
+            return sb.append('Z');
+        }
+        sb.append(offset < 0 ? '-' : '+');
+        int abs = Math.abs(offset);
+        twoDigits(sb, abs / 3600).append(':');
+        return twoDigits(sb, abs / 60 % 60);
+    }
+
+    /** Lägger till den lokala dagen som {@code yyyy-MM-dd}. */
+    public StringBuilder appendDate(StringBuilder sb, long epochSecond) {
+        // Gregorianskt datum ur epoch-dagen utan att skapa en LocalDate, räknat i 400-årscykler
+        // med året från 1 mars så att skottdagen hamnar sist
+        long dag = epochDay(epochSecond) + 719_468;        // Dagar sedan 0000-03-01
+        long cykel = Math.floorDiv(dag, 146_097);
+        int iCykel = (int) (dag - cykel * 146_097);         // 0–146096
+        int år = (iCykel - iCykel / 1460 + iCykel / 36_524 - iCykel / 146_096) / 365;
+        int iÅret = iCykel - (365 * år + år / 4 - år / 100);  // 0–365, från 1 mars
+        int m = (5 * iÅret + 2) / 153;                       // 0 = mars … 11 = februari
+        int dagIMånaden = iÅret - (153 * m + 2) / 5 + 1;
+        int månad = m < 10 ? m + 3 : m - 9;
+        sb.append(cykel * 400 + år + (månad <= 2 ? 1 : 0)).append('-');
+        twoDigits(sb, månad).append('-');
+        return twoDigits(sb, dagIMånaden);
+    }
+
+    /** Lägger till det lokala klockslaget som {@code HH:mm}. */
+    public StringBuilder appendClock(StringBuilder sb, long epochSecond) {
+        int sekund = secondOfDay(epochSecond);
+        twoDigits(sb, sekund / 3600).append(':');
+        return twoDigits(sb, sekund / 60 % 60);
+    }
+
+    private static StringBuilder twoDigits(StringBuilder sb, int value) {
+        return sb.append((char) ('0' + value / 10)).append((char) ('0' + value % 10));
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.api;
+
+import com.example.api.ElpriserAPI.Elpris;
+import com.example.api.ElpriserAPI.Prisklass;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Genererade priser, se {@link PriceSource#synthetic(long, Duration)}.
+ * <p>
+ * Priset är en nivå per prisklass gånger en årstidsfaktor, en dygnsprofil med topp på
+ * morgonen och kvällen, en slumpad nivå för dagen och brus per period. Slumpen seedas
+ * med fröet, dagen och prisklassen, så varje anrop är oberoende och trådsäkert. Perioderna
+ * räknas från lokal midnatt till nästa, så sommartidsdygn får 23 eller 25 timmar.
+ */
+final class SyntheticPriceSource implements PriceSource {
+
+    // Ungefärlig medelnivå i SEK per kWh; norr är billigare än söder
+    private static final double[] NIVÅ = {0.35, 0.40, 0.85, 1.10};
+    private static final double EUR_SEK = 11.0;
+
+    private final long seed;
+    private final Duration upplösning;
+
+    SyntheticPriceSource(long seed, Duration upplösning) {
+        long sekunder = upplösning.getSeconds();
+        if (sekunder <= 0 || upplösning.getNano() != 0 || 86_400 % sekunder != 0) {
+            throw new IllegalArgumentException("Upplösningen måste dela ett dygn jämnt: " + upplösning);
+        }
+        this.seed = seed;
+        this.upplösning = upplösning;
+    }
+
+    @Override
+    public Response fetch(LocalDate datum, Prisklass prisklass, Validators validators) {
+        SplittableRandom slump = new SplittableRandom(seed ^ (PriceCache.key(datum, prisklass) * 0x9E3779B97F4A7C15L));
+        double årstid = 1 + 0.35 * Math.cos(2 * Math.PI * (datum.getDayOfYear() - 15) / 365.0);
+        double dag = NIVÅ[prisklass.ordinal()] * årstid * (0.6 + 0.8 * slump.nextDouble());
+        double exr = Math.round((EUR_SEK + slump.nextDouble(-0.3, 0.3)) * 10_000) / 10_000.0;
+
+        ZonedDateTime tid = datum.atStartOfDay(ElpriserAPI.STOCKHOLM);
+        ZonedDateTime slut = datum.plusDays(1).atStartOfDay(ElpriserAPI.STOCKHOLM);
+        List<Elpris> priser = new ArrayList<>(100);
+        while (tid.isBefore(slut)) {
+            ZonedDateTime nästa = tid.plus(upplösning);
+            double timme = tid.getHour() + tid.getMinute() / 60.0;
+            double sek = dag * profil(timme) * (1 + 0.08 * slump.nextGaussian());
+            sek = Math.round(sek * 100_000) / 100_000.0;
+            priser.add(new Elpris(sek, Math.round(sek / exr * 100_000) / 100_000.0, exr, tid, nästa));
+            tid = nästa;
+        }
+        return Response.ok(List.copyOf(priser));
+    }
+
+    /** Relativ nivå över dygnet: låg på natten, toppar kring 08 och 18. */
+    private static double profil(double timme) {
+        double morgon = Math.exp(-(timme - 8) * (timme - 8) / 4);
+        double kväll = Math.exp(-(timme - 18) * (timme - 18) / 6);
+        double natt = Math.exp(-(timme - 3) * (timme - 3) / 8);
+        return 0.8 + 0.45 * morgon + 0.6 * kväll - 0.35 * natt;
+    }
+}
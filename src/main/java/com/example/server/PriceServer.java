@@ -0,0 +1,300 @@
+package com.example.server;
+
+import com.example.analysis.ChargingOptimizer;
+import com.example.analysis.ChargingWindow;
+import com.example.analysis.PriceStatistics;
+import com.example.api.DateRange;
+import com.example.api.ElpriserAPI;
+import com.example.api.ElpriserAPI.Elpris;
+import com.example.api.ElpriserAPI.Prisklass;
+import com.example.api.PriceSeries;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * En liten lokal HTTP-tjänst ovanpå en varm {@link ElpriserAPI}, för klienter som frågar
+ * ofta, t.ex. styrningar för hemautomation. Alla svar är JSON:
+ * <pre>
+ *   GET /prices?zone=SE3[&amp;date=2025-10-05]    dagens (eller datumets) priser
+ *   GET /stats?zone=SE3[&amp;date=2025-10-05]     min, max, medel och percentiler
+ *   GET /charging?zone=SE3&amp;hours=4            billigaste fönster från nu, idag och imorgon
+ *   GET /health                              status och cache-statistik
+ * </pre>
+ * Varje anrop hanteras på en egen virtuell tråd. Ett cachat dygn serialiseras bara en gång:
+ * så länge klienten returnerar samma lista återanvänds den färdiga JSON:en.
+ */
+public final class PriceServer implements AutoCloseable {
+
+    // Högst så här många färdigserialiserade dygn sparas innan de kastas
+    private static final int MAX_RENDERED = 1024;
+
+    // Samma format som PriceRenderer, med sekunder även när de är noll
+    private static final DateTimeFormatter ISO = DateTimeFormatter.ISO_OFFSET_DATE_TIME;
+
+    private final ElpriserAPI api;
+    private final Clock clock;
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<String, Rendered> rendered = new ConcurrentHashMap<>();
+
+    // JSON för en lista priser, giltig så länge klienten ger ut samma lista
+    private record Rendered(List<Elpris> källa, byte[] json) {}
+
+    /** Felaktiga parametrar; blir ett 400-svar. */
+    static final class BadRequest extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        BadRequest(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Skapar servern utan att starta den.
+     * @param address Adress att lyssna på; port 0 väljer en ledig port.
+     * @param clock Klockan som avgör "idag" och "nu".
+     */
+    public PriceServer(ElpriserAPI api, InetSocketAddress address, Clock clock) throws IOException {
+        this.api = Objects.requireNonNull(api);
+        this.clock = Objects.requireNonNull(clock);
+        // Utan TCP_NODELAY skickas huvud och kropp i separata paket som väntar in en
+        // fördröjd ACK, vilket ger ~40 ms per anrop. Egenskapen läses när den första
+        // servern skapas, så ett värde från kommandoraden vinner
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        this.server = HttpServer.create(address, 0);
+        server.setExecutor(executor);
+        server.createContext("/prices", exchange -> handle(exchange, this::prices));
+        server.createContext("/stats", exchange -> handle(exchange, this::stats));
+        server.createContext("/charging", exchange -> handle(exchange, this::charging));
+        server.createContext("/health", exchange -> handle(exchange, params -> health()));
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    /** Adressen servern lyssnar på, med den faktiska porten. */
+    public InetSocketAddress address() {
+        return server.getAddress();
+    }
+
+    /** Stoppar servern och väntar högst en sekund på pågående anrop. */
+    @Override
+    public void close() {
+        server.stop(1);
+        executor.shutdownNow();
+    }
+
+    private interface Handler {
+        byte[] handle(Map<String, String> params);
+    }
+
+    private void handle(HttpExchange exchange, Handler handler) throws IOException {
+        try (exchange) {
+            int status = 200;
+            byte[] body;
+            if (!exchange.getRequestMethod().equals("GET")) {
+                status = 405;
+                body = error("Endast GET stöds");
+            } else {
+                try {
+                    body = handler.handle(query(exchange));
+                } catch (BadRequest e) {
+                    status = 400;
+                    body = error(e.getMessage());
+                } catch (RuntimeException e) {
+                    status = 500;
+                    body = error("Internt fel: " + e.getMessage());
+                }
+            }
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    // --- Ändpunkter ---
+
+    private byte[] prices(Map<String, String> params) {
+        Prisklass prisklass = zone(params);
+        LocalDate datum = date(params);
+        List<Elpris> priser = api.getPriser(datum, prisklass);
+        String key = datum + "_" + prisklass;
+        Rendered cachad = rendered.get(key);
+        if (cachad != null && cachad.källa() == priser) {
+            return cachad.json();
+        }
+        StringBuilder json = new StringBuilder(64 + priser.size() * 140);
+        json.append("{\"zone\":\"").append(prisklass).append("\",\"date\":\"").append(datum).append("\",\"prices\":[");
+        for (int i = 0; i < priser.size(); i++) {
+            Elpris p = priser.get(i);
+            if (i > 0) json.append(',');
+            json.append("{\"start\":\"").append(ISO.format(p.timeStart()))
+                    .append("\",\"end\":\"").append(ISO.format(p.timeEnd()))
+                    .append("\",\"sekPerKWh\":").append(p.sekPerKWh())
+                    .append(",\"eurPerKWh\":").append(p.eurPerKWh())
+                    .append(",\"exr\":").append(p.exr())
+                    .append('}');
+        }
+        json.append("]}");
+        byte[] bytes = json.toString().getBytes(StandardCharsets.UTF_8);
+        if (rendered.size() >= MAX_RENDERED) {
+            rendered.clear();
+        }
+        rendered.put(key, new Rendered(priser, bytes));
+        return bytes;
+    }
+
+    private byte[] stats(Map<String, String> params) {
+        Prisklass prisklass = zone(params);
+        LocalDate datum = date(params);
+        PriceSeries serie = api.getPriceSeries(datum, prisklass);
+        StringBuilder json = new StringBuilder(256);
+        json.append("{\"zone\":\"").append(prisklass).append("\",\"date\":\"").append(datum)
+                .append("\",\"count\":").append(serie.size());
+        if (!serie.isEmpty()) {
+            PriceStatistics stats = new PriceStatistics();
+            stats.addAll(serie);
+            json.append(",\"min\":").append(stats.min())
+                    .append(",\"minStart\":\"").append(instant(stats.minEpochSecond()))
+                    .append("\",\"max\":").append(stats.max())
+                    .append(",\"maxStart\":\"").append(instant(stats.maxEpochSecond()))
+                    .append("\",\"mean\":").append(stats.mean())
+                    .append(",\"stddev\":").append(stats.standardDeviation())
+                    .append(",\"p10\":").append(stats.percentile(0.10))
+                    .append(",\"p50\":").append(stats.percentile(0.50))
+                    .append(",\"p90\":").append(stats.percentile(0.90));
+        }
+        return json.append('}').toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private byte[] charging(Map<String, String> params) {
+        Prisklass prisklass = zone(params);
+        String timmar = params.get("hours");
+        if (timmar == null) {
+            throw new BadRequest("hours krävs, t.ex. hours=4");
+        }
+        Duration laddtid;
+        try {
+            int h = Integer.parseInt(timmar.endsWith("h") ? timmar.substring(0, timmar.length() - 1) : timmar);
+            if (h <= 0) throw new NumberFormatException();
+            laddtid = Duration.ofHours(h);
+        } catch (NumberFormatException e) {
+            throw new BadRequest("Ogiltigt värde för hours: " + timmar);
+        }
+
+        // Från nu och framåt över idag och imorgon, hämtade parallellt
+        LocalDate idag = LocalDate.now(clock.withZone(ElpriserAPI.STOCKHOLM));
+        PriceSeries serie = api.getPriceSeries(new DateRange(idag, idag.plusDays(1)), prisklass);
+        long nu = clock.instant().getEpochSecond();
+        // Pågående intervall räknas med, så att man kan börja ladda direkt
+        int pågående = serie.indexAt(nu);
+        long tidigast = pågående >= 0 ? serie.startEpochSecond(pågående) : nu;
+        Optional<ChargingWindow> fönster = serie.isEmpty()
+                ? Optional.empty()
+                : ChargingOptimizer.cheapestWindow(serie, laddtid, tidigast, ChargingOptimizer.UNBOUNDED_DEADLINE);
+
+        StringBuilder json = new StringBuilder(128);
+        json.append("{\"zone\":\"").append(prisklass).append("\",\"hours\":").append(laddtid.toHours());
+        if (fönster.isPresent()) {
+            ChargingWindow w = fönster.get();
+            json.append(",\"start\":\"").append(instant(serie.startEpochSecond(w.from())))
+                    .append("\",\"end\":\"").append(instant(serie.endEpochSecond(w.to() - 1)))
+                    .append("\",\"meanSekPerKWh\":").append(w.meanSek())
+                    .append(",\"totalSek\":").append(w.totalSek());
+        } else {
+            json.append(",\"start\":null");
+        }
+        return json.append('}').toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private byte[] health() {
+        var stats = api.cacheStats();
+        return ("{\"status\":\"ok\",\"cache\":{\"size\":" + stats.size()
+                + ",\"hits\":" + stats.hits() + ",\"misses\":" + stats.misses()
+                + ",\"hitRate\":" + stats.hitRate() + "}}").getBytes(StandardCharsets.UTF_8);
+    }
+
+    // --- Parametrar och hjälpmetoder ---
+
+    private static Map<String, String> query(HttpExchange exchange) {
+        return query(exchange.getRequestURI().getRawQuery());
+    }
+
+    /** Tolkar en rå query-sträng; en trasig procentkod ger {@link BadRequest}. */
+    static Map<String, String> query(String raw) {
+        Map<String, String> params = new HashMap<>();
+        if (raw == null || raw.isEmpty()) {
+            return params;
+        }
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            String name = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            try {
+                params.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+            } catch (IllegalArgumentException e) {
+                // T.ex. en trasig procentkod som "%zz"
+                throw new BadRequest("Ogiltig parameter: " + pair);
+            }
+        }
+        return params;
+    }
+
+    private static Prisklass zone(Map<String, String> params) {
+        String zone = params.get("zone");
+        if (zone == null) {
+            throw new BadRequest("zone krävs, t.ex. zone=SE3");
+        }
+        try {
+            return Prisklass.valueOf(zone.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new BadRequest("Ogiltig zon: " + zone);
+        }
+    }
+
+    private LocalDate date(Map<String, String> params) {
+        String datum = params.get("date");
+        if (datum == null) {
+            return LocalDate.now(clock.withZone(ElpriserAPI.STOCKHOLM));
+        }
+        try {
+            return LocalDate.parse(datum);
+        } catch (DateTimeParseException e) {
+            throw new BadRequest("Ogiltigt datumformat (YYYY-MM-DD krävs): " + datum);
+        }
+    }
+
+    private static String instant(long epochSecond) {
+        return ISO.format(Instant.ofEpochSecond(epochSecond).atZone(ElpriserAPI.STOCKHOLM));
+    }
+
+    private static byte[] error(String message) {
+        String escaped = message.replace("\\", "\\\\").replace("\"", "\\\"");
+        return ("{\"error\":\"" + escaped + "\"}").getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,65 @@
+package com.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class PriceRendererTest {
+
+    static final Locale SVENSKA = Locale.forLanguageTag("sv-SE");
+
+    @Test
+    void oereMatchesStringFormat() throws Exception {
+        double[] kanter = {0, -0.0, 0.00005, -0.00005, 0.000049999, 0.00125, 0.00135, 0.005, 0.015, 0.125,
+                1.005, 2.675, -1.005, 0.56245, 0.56255, 9.99995, 99.999949, 123456.789, 1e9, 1e13, 1e300,
+                -1e300, Double.MIN_VALUE, Double.MAX_VALUE, Double.NaN, Double.POSITIVE_INFINITY};
+        for (double sek : kanter) {
+            assertThat(oere(sek)).as("%s", sek).isEqualTo(String.format(SVENSKA, "%.2f", sek * 100));
+        }
+        SplittableRandom slump = new SplittableRandom(42);
+        for (int i = 0; i < 200_000; i++) {
+            // Priser med API:ts fem decimaler och godtyckliga medelvärden
+            double sek = i % 2 == 0
+                    ? Math.round(slump.nextDouble(-1, 10) * 100_000) / 100_000.0
+                    : slump.nextDouble(-5, 50);
+            assertThat(oere(sek)).as("%s", sek).isEqualTo(String.format(SVENSKA, "%.2f", sek * 100));
+        }
+    }
+
+    @Test
+    void decimalNeverUsesExponent() throws Exception {
+        assertThat(decimal(0.0001)).isEqualTo("0.0001");
+        assertThat(decimal(1.0E-5)).isEqualTo("0.00001");
+        assertThat(decimal(-2.5E-4)).isEqualTo("-0.00025");
+        assertThat(decimal(1.0E7)).isEqualTo("10000000.0");
+        assertThat(decimal(11.0)).isEqualTo("11.0");
+        assertThat(decimal(0.1 + 0.2)).isEqualTo("0.3");
+        assertThat(decimal(0.12345)).isEqualTo("0.12345");
+        SplittableRandom slump = new SplittableRandom(7);
+        for (int i = 0; i < 100_000; i++) {
+            double värde = slump.nextDouble(-1, 1) * Math.pow(10, slump.nextInt(-5, 8));
+            String text = decimal(värde);
+            assertThat(text).as("%s", värde).doesNotContain("E").matches("-?\\d+\\.\\d{1,6}");
+            assertThat(Double.parseDouble(text)).isCloseTo(värde, within(5.0000001e-7));
+        }
+    }
+
+    private static String oere(double sek) throws Exception {
+        StringWriter ut = new StringWriter();
+        PriceRenderer renderer = new PriceRenderer(PriceRenderer.Format.TABLE, ut);
+        renderer.oere(sek).flush();
+        return ut.toString();
+    }
+
+    private static String decimal(double värde) throws Exception {
+        StringWriter ut = new StringWriter();
+        PriceRenderer renderer = new PriceRenderer(PriceRenderer.Format.JSON, ut);
+        renderer.decimal(värde).flush();
+        return ut.toString();
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.analysis;
+
+import com.example.api.ElpriserAPI;
+import com.example.api.ElpriserAPI.Elpris;
+import com.example.api.PriceSeries;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class ChargingOptimizerTest {
+
+    static final int ROWS = 30;
+    static final int INSTANCES = 2000;
+
+    @Test
+    void cheapestWindowMatchesBruteForce() {
+        SplittableRandom slump = new SplittableRandom(7);
+        for (int t = 0; t < INSTANCES; t++) {
+            PriceSeries serie = series(slump);
+            long t0 = serie.startEpochSecond(0);
+            long t1 = serie.endEpochSecond(serie.size() - 1);
+            int timmar = 1 + slump.nextInt(6);
+            // Gränser som inte ligger på radgränser, och ibland ingen gräns alls
+            long tidigast = slump.nextInt(4) == 0 ? ChargingOptimizer.UNBOUNDED_START : slump.nextLong(t0 - 3600, t1);
+            long deadline = slump.nextInt(4) == 0 ? ChargingOptimizer.UNBOUNDED_DEADLINE : slump.nextLong(t0, t1 + 3600);
+
+            Optional<ChargingWindow> fönster = ChargingOptimizer.cheapestWindow(serie, Duration.ofHours(timmar), tidigast, deadline);
+
+            int väntat = bruteForceWindow(serie, timmar, i -> serie.startEpochSecond(i) >= tidigast
+                    && serie.endEpochSecond(i) <= deadline);
+            String instans = "instans " + t + ": " + timmar + " h, " + tidigast + "–" + deadline;
+            if (väntat < 0) {
+                assertThat(fönster).as(instans).isEmpty();
+                continue;
+            }
+            assertThat(fönster).as(instans).isPresent();
+            assertThat(fönster.get().from()).as(instans).isEqualTo(väntat);
+            assertThat(fönster.get().size()).as(instans).isEqualTo(timmar);
+            assertThat(fönster.get().totalSek()).as(instans).isCloseTo(sum(serie, väntat, väntat + timmar), within(1e-9));
+        }
+    }
+
+    @Test
+    void occupiedRowsBreakWindowsLikeGaps() {
+        SplittableRandom slump = new SplittableRandom(11);
+        for (int t = 0; t < INSTANCES; t++) {
+            PriceSeries serie = series(slump);
+            boolean[] upptagen = new boolean[serie.size()];
+            for (int i = 0; i < upptagen.length; i++) upptagen[i] = slump.nextInt(5) == 0;
+            int from = slump.nextInt(serie.size());
+            int to = from + slump.nextInt(serie.size() - from + 1);
+            int k = 1 + slump.nextInt(5);
+
+            Optional<ChargingWindow> fönster = ChargingOptimizer.cheapestWindow(serie, k, from, to, i -> !upptagen[i]);
+
+            int väntat = bruteForceWindow(serie, k, i -> i >= from && i < to && !upptagen[i]);
+            String instans = "instans " + t + ": k " + k + " [" + from + ", " + to + ") " + Arrays.toString(upptagen);
+            assertThat(fönster.map(ChargingWindow::from).orElse(-1)).as(instans).isEqualTo(väntat);
+        }
+    }
+
+    @Test
+    void cheapestSlotsMatchesSortedSelection() {
+        SplittableRandom slump = new SplittableRandom(13);
+        for (int t = 0; t < INSTANCES; t++) {
+            PriceSeries serie = series(slump);
+            boolean[] upptagen = new boolean[serie.size()];
+            for (int i = 0; i < upptagen.length; i++) upptagen[i] = slump.nextInt(4) == 0;
+            int from = slump.nextInt(serie.size());
+            int to = from + slump.nextInt(serie.size() - from + 1);
+            int antal = 1 + slump.nextInt(8);
+
+            int[] valda = ChargingOptimizer.cheapestSlots(serie, antal, from, to, i -> !upptagen[i]);
+
+            // Billigast först och vid lika pris tidigast, sedan i tidsordning
+            int[] väntat = IntStream.range(from, to)
+                    .filter(i -> !upptagen[i])
+                    .boxed()
+                    .sorted(Comparator.<Integer>comparingDouble(serie::sekPerKWh).thenComparingInt(i -> i))
+                    .limit(antal)
+                    .mapToInt(Integer::intValue)
+                    .sorted()
+                    .toArray();
+            assertThat(valda).as("instans %d", t).containsExactly(väntat);
+        }
+    }
+
+    @Test
+    void deadlineIndexIsFirstRowEndingAfterDeadline() {
+        SplittableRandom slump = new SplittableRandom(17);
+        for (int t = 0; t < 200; t++) {
+            PriceSeries serie = series(slump);
+            long t0 = serie.startEpochSecond(0);
+            for (long deadline = t0 - 3600; deadline <= serie.endEpochSecond(serie.size() - 1) + 3600; deadline += 900) {
+                int väntat = 0;
+                while (väntat < serie.size() && serie.endEpochSecond(väntat) <= deadline) väntat++;
+                assertThat(ChargingOptimizer.deadlineIndex(serie, deadline)).as("deadline %d", deadline).isEqualTo(väntat);
+            }
+        }
+    }
+
+    @Test
+    void slotsForRoundsUpToSeriesResolution() {
+        ZonedDateTime start = LocalDate.of(2025, 10, 6).atStartOfDay(ElpriserAPI.STOCKHOLM);
+        PriceSeries kvartar = PriceSeries.of(List.of(
+                new Elpris(1, 0.1, 11, start, start.plusMinutes(15)),
+                new Elpris(1, 0.1, 11, start.plusMinutes(15), start.plusMinutes(30))));
+
+        assertThat(ChargingOptimizer.slotsFor(kvartar, Duration.ofHours(2))).isEqualTo(8);
+        assertThat(ChargingOptimizer.slotsFor(kvartar, Duration.ofMinutes(16))).isEqualTo(2);
+        assertThat(ChargingOptimizer.slotsFor(kvartar, Duration.ofMinutes(15))).isEqualTo(1);
+    }
+
+    /**
+     * Tidigaste start för det billigaste fönstret om {@code k} rader som alla är {@code tillåten}
+     * och ligger intill varandra i tid, eller -1.
+     */
+    static int bruteForceWindow(PriceSeries serie, int k, IntPredicate tillåten) {
+        int bäst = -1;
+        double bästSumma = Double.POSITIVE_INFINITY;
+        for (int a = 0; a + k <= serie.size(); a++) {
+            boolean ok = true;
+            for (int i = a; i < a + k; i++) {
+                ok &= tillåten.test(i) && (i == a || serie.startEpochSecond(i) == serie.endEpochSecond(i - 1));
+            }
+            if (!ok) continue;
+            double summa = sum(serie, a, a + k);
+            // Priserna ligger på hela ören, så olika summor skiljer sig långt mer än avrundningen
+            if (summa < bästSumma - 1e-6) {
+                bästSumma = summa;
+                bäst = a;
+            }
+        }
+        return bäst;
+    }
+
+    private static double sum(PriceSeries serie, int from, int to) {
+        double summa = 0;
+        for (int i = from; i < to; i++) summa += serie.sekPerKWh(i);
+        return summa;
+    }
+
+    // Upp till ROWS timpriser med luckor, på hela ören mellan 0 och 50 så att lika priser är vanliga
+    private static PriceSeries series(SplittableRandom slump) {
+        ZonedDateTime start = LocalDate.of(2025, 3, 10).atStartOfDay(ElpriserAPI.STOCKHOLM);
+        List<Elpris> priser = new ArrayList<>();
+        for (int h = 0; h < ROWS; h++) {
+            if (h > 0 && slump.nextInt(8) == 0) continue;
+            double sek = slump.nextInt(51) / 100.0;
+            priser.add(new Elpris(sek, sek / 11.5, 11.5, start.plusHours(h), start.plusHours(h + 1)));
+        }
+        return PriceSeries.of(priser);
+    }
+}
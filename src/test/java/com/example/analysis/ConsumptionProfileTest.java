@@ -0,0 +1,50 @@
+package com.example.analysis;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class ConsumptionProfileTest {
+
+    static final double EPSILON = 1e-12;
+
+    @Test
+    void hourlyValuesSpreadOverQuartersAndQuartersAddUpToHours() {
+        double[] timmar = new double[24];
+        double[] kvartar = new double[96];
+        for (int h = 0; h < 24; h++) timmar[h] = h + 1;
+        for (int q = 0; q < 96; q++) kvartar[q] = q;
+        ConsumptionProfile tim = ConsumptionProfile.of("tim", timmar);
+        ConsumptionProfile kvart = ConsumptionProfile.of("kvart", kvartar);
+
+        // En kvartsrad får en fjärdedel av sin timme
+        assertThat(tim.kWh(5 * 3600 + 900, 900)).isCloseTo(6 / 4.0, within(EPSILON));
+        // En timrad får summan av sina fyra kvartar
+        assertThat(kvart.kWh(5 * 3600, 3600)).isCloseTo(20 + 21 + 22 + 23, within(EPSILON));
+        // En rad som går över en gräns i profilen delas
+        assertThat(tim.kWh(5 * 3600 + 1800, 3600)).isCloseTo(6 / 2.0 + 7 / 2.0, within(EPSILON));
+
+        double summa = 0;
+        for (int s = 0; s < 86_400; s += 900) {
+            summa += tim.kWh(s, 900);
+        }
+        assertThat(summa).isCloseTo(tim.kWhPerDay(), within(1e-9));
+    }
+
+    @Test
+    void arrayIsCopiedAndComparedByContent() {
+        double[] timmar = new double[24];
+        timmar[3] = 1.5;
+        ConsumptionProfile a = ConsumptionProfile.of("hus", timmar).withCharging(20, 11, 22, 6);
+        ConsumptionProfile b = ConsumptionProfile.of("hus", timmar.clone()).withCharging(20, 11, 22, 6);
+
+        timmar[3] = 99;
+        a.kWhPerSlot()[3] = 99;
+
+        assertThat(a.kWhPerSlot()[3]).isEqualTo(1.5);
+        assertThat(a).isEqualTo(b).hasSameHashCodeAs(b);
+        assertThat(a).isNotEqualTo(b.withCharging(20, 11, 23, 6));
+        assertThat(a.toString()).contains("1.5");
+    }
+}
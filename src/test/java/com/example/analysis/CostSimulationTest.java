@@ -0,0 +1,262 @@
+package com.example.analysis;
+
+import com.example.analysis.CostSimulation.Cost;
+import com.example.analysis.CostSimulation.Result;
+import com.example.api.DateRange;
+import com.example.api.ElpriserAPI;
+import com.example.api.ElpriserAPI.Elpris;
+import com.example.api.ElpriserAPI.Prisklass;
+import com.example.api.PriceSeries;
+import com.example.api.PriceSource;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class CostSimulationTest {
+
+    static final double EPSILON = 1e-9;
+
+    // Mars har ett dygn på 23 timmar (30/3) och oktober ett på 25 (26/10)
+    static final List<YearMonth> DST_MONTHS = List.of(YearMonth.of(2025, 3), YearMonth.of(2025, 10));
+
+    static final List<ConsumptionProfile> PROFILES = List.of(
+            hourly("tim").withCharging(30, 11, 22, 6),
+            quarters("kvart").withCharging(10, 7.4, 1, 5),
+            ConsumptionProfile.of("sexTimmar", new double[] {2, 3, 5, 7}).withCharging(15, 3.7, 1, 7),
+            ConsumptionProfile.flat("platt", 12));
+
+    @Test
+    void matchesNaiveLoopInDstMonths() {
+        for (Duration upplösning : List.of(Duration.ofHours(1), Duration.ofMinutes(15))) {
+            ElpriserAPI api = api(upplösning);
+            for (YearMonth månad : DST_MONTHS) {
+                LocalDate först = månad.atDay(1);
+                LocalDate sist = månad.atEndOfMonth();
+                PriceSeries serie = api.getPriceSeries(new DateRange(först, sist.plusDays(1)), Prisklass.SE3);
+
+                Cost[] kostnad = CostSimulation.simulate(serie, först, sist, PROFILES);
+
+                for (int p = 0; p < PROFILES.size(); p++) {
+                    String fall = upplösning + " " + månad + " " + PROFILES.get(p).name();
+                    assertClose(fall, kostnad[p], naive(serie, först, sist, PROFILES.get(p)));
+                    assertThat(kostnad[p].missedCharges()).as(fall).isZero();
+                    assertThat(kostnad[p].days()).as(fall).isEqualTo(månad.lengthOfMonth());
+                }
+            }
+        }
+    }
+
+    @Test
+    void smartNeverCostsMoreThanImmediate() {
+        SplittableRandom slump = new SplittableRandom(24);
+        for (Duration upplösning : List.of(Duration.ofHours(1), Duration.ofMinutes(15))) {
+            ElpriserAPI api = api(upplösning);
+            LocalDate först = LocalDate.of(2025, 3, 25);
+            LocalDate sist = LocalDate.of(2025, 4, 4);
+            PriceSeries serie = api.getPriceSeries(new DateRange(först, sist.plusDays(1)), Prisklass.SE4);
+            for (int t = 0; t < 200; t++) {
+                // Udda energi, så att sista raden oftast bara laddas delvis
+                ConsumptionProfile profil = ConsumptionProfile.flat("p" + t, 10)
+                        .withCharging(slump.nextDouble(0.5, 40), slump.nextDouble(1.4, 22),
+                                16 + slump.nextInt(8), slump.nextInt(9));
+                for (LocalDate d = först; !d.isAfter(sist); d = d.plusDays(1)) {
+                    Cost natt = CostSimulation.simulate(serie, d, d, List.of(profil))[0];
+                    String fall = upplösning + " " + d + " " + profil;
+                    assertThat(natt.smartChargingSek()).as(fall).isLessThanOrEqualTo(natt.immediateChargingSek() + EPSILON);
+                    assertClose(fall, natt, naive(serie, d, d, profil));
+                }
+            }
+        }
+    }
+
+    @Test
+    void monthlyPartsAddUpToOneLongPart() {
+        ElpriserAPI api = api(Duration.ofMinutes(15));
+        DateRange intervall = new DateRange(LocalDate.of(2025, 2, 20), LocalDate.of(2025, 4, 10));
+        Set<Prisklass> zoner = EnumSet.of(Prisklass.SE1, Prisklass.SE3);
+
+        List<Result> resultat = CostSimulation.run(api, intervall, zoner, PROFILES);
+
+        assertThat(resultat).hasSize(PROFILES.size() * zoner.size());
+        for (Prisklass zon : zoner) {
+            PriceSeries hela = api.getPriceSeries(new DateRange(intervall.from(), intervall.to().plusDays(1)), zon);
+            Cost[] väntat = CostSimulation.simulate(hela, intervall.from(), intervall.to(), PROFILES);
+            for (int p = 0; p < PROFILES.size(); p++) {
+                Result r = find(resultat, PROFILES.get(p), zon);
+                String fall = zon + " " + PROFILES.get(p).name();
+                assertClose(fall, r.total(), väntat[p]);
+                assertThat(r.total().days()).as(fall).isEqualTo(50);
+                assertThat(r.perMonth().keySet()).as(fall)
+                        .containsExactly(YearMonth.of(2025, 2), YearMonth.of(2025, 3), YearMonth.of(2025, 4));
+                // Natten 28/2–1/3 hör till februari, med priser från mars
+                assertThat(r.perMonth().get(YearMonth.of(2025, 2)).missedCharges()).as(fall).isZero();
+                Cost summa = r.perMonth().values().stream().reduce(Cost.ZERO, Cost::plus);
+                assertClose(fall, summa, r.total());
+            }
+        }
+    }
+
+    @Test
+    void chargeFillingWholeRowsUsesNoExtraRow() {
+        // 1,1 / 0,1 blir 11,000000000000002 i flyttal; natten 20–07 har precis 11 timrader
+        ConsumptionProfile profil = ConsumptionProfile.flat("elbil", 0).withCharging(1.1, 0.1, 20, 7);
+        LocalDate först = LocalDate.of(2025, 3, 10);
+        LocalDate sist = LocalDate.of(2025, 3, 12);
+        PriceSeries serie = flat(först, sist.plusDays(1), Set.of());
+
+        Cost kostnad = CostSimulation.simulate(serie, först, sist, List.of(profil))[0];
+
+        assertThat(kostnad.missedCharges()).isZero();
+        assertThat(kostnad.chargingKWh()).isCloseTo(3 * 1.1, within(EPSILON));
+        assertThat(kostnad.immediateChargingSek()).isCloseTo(3 * 1.1, within(EPSILON));
+    }
+
+    @Test
+    void nightsWithoutPricesAreMissed() {
+        ConsumptionProfile profil = ConsumptionProfile.flat("elbil", 24).withCharging(22, 11, 22, 6);
+        LocalDate först = LocalDate.of(2025, 3, 10);
+        LocalDate sist = LocalDate.of(2025, 3, 13);
+        long hål = LocalDate.of(2025, 3, 12).atTime(3, 0).atZone(ElpriserAPI.STOCKHOLM).toEpochSecond();
+
+        // En timme saknas natten 11–12, och 14/3 finns inte alls
+        Cost lucka = CostSimulation.simulate(flat(först, sist, Set.of(hål)), först, sist, List.of(profil))[0];
+
+        assertThat(lucka.days()).isEqualTo(4);
+        assertThat(lucka.missingDays()).isZero();
+        assertThat(lucka.missedCharges()).isEqualTo(2);
+        assertThat(lucka.chargingKWh()).isCloseTo(2 * 22, within(EPSILON));
+        assertThat(lucka.baseKWh()).isCloseTo(4 * 24 - 1, within(EPSILON));
+
+        // Hela 12/3 saknas, så båda nätterna kring den dagen missas
+        Set<Long> dag = new HashSet<>();
+        for (int h = 0; h < 24; h++) {
+            dag.add(LocalDate.of(2025, 3, 12).atStartOfDay(ElpriserAPI.STOCKHOLM).plusHours(h).toEpochSecond());
+        }
+        Cost utanDag = CostSimulation.simulate(flat(först, sist.plusDays(1), dag), först, sist, List.of(profil))[0];
+
+        assertThat(utanDag.days()).isEqualTo(3);
+        assertThat(utanDag.missingDays()).isEqualTo(1);
+        assertThat(utanDag.missedCharges()).isEqualTo(2);
+        assertThat(utanDag.chargingKWh()).isCloseTo(2 * 22, within(EPSILON));
+    }
+
+    /** Samma kostnad rad för rad och natt för natt, utan prefixsummor eller index. */
+    static Cost naive(PriceSeries serie, LocalDate först, LocalDate sist, ConsumptionProfile profil) {
+        double[] förbrukning = profil.kWhPerSlot();
+        int delLängd = 86_400 / förbrukning.length;
+        int längd = serie.intervalSeconds();
+        Set<LocalDate> dagar = new HashSet<>();
+        double basKWh = 0;
+        double basSek = 0;
+        for (int i = 0; i < serie.size(); i++) {
+            ZonedDateTime t = Instant.ofEpochSecond(serie.startEpochSecond(i)).atZone(ElpriserAPI.STOCKHOLM);
+            if (t.toLocalDate().isBefore(först) || t.toLocalDate().isAfter(sist)) continue;
+            dagar.add(t.toLocalDate());
+            int sekund = t.toLocalTime().toSecondOfDay();
+            for (int s = sekund; s < sekund + längd; s += 60) {
+                double kWh = förbrukning[s / delLängd] * 60 / delLängd;
+                basKWh += kWh;
+                basSek += kWh * serie.sekPerKWh(i);
+            }
+        }
+
+        double laddKWh = 0;
+        double direktSek = 0;
+        double smartSek = 0;
+        int missade = 0;
+        if (profil.charges()) {
+            double perRad = profil.chargerKw() * längd / 3600.0;
+            int k = (int) Math.ceil(profil.chargeKWhPerDay() / perRad - EPSILON);
+            for (LocalDate d = först; !d.isAfter(sist); d = d.plusDays(1)) {
+                long in = d.atTime(profil.plugInHour(), 0).atZone(ElpriserAPI.STOCKHOLM).toEpochSecond();
+                LocalDate utDag = profil.plugOutHour() > profil.plugInHour() ? d : d.plusDays(1);
+                long ut = utDag.atTime(profil.plugOutHour(), 0).atZone(ElpriserAPI.STOCKHOLM).toEpochSecond();
+                List<Double> natt = new ArrayList<>();
+                long nästa = in;
+                for (int i = 0; i < serie.size(); i++) {
+                    if (serie.startEpochSecond(i) == nästa && serie.endEpochSecond(i) <= ut) {
+                        natt.add(serie.sekPerKWh(i));
+                        nästa = serie.endEpochSecond(i);
+                    }
+                }
+                if (nästa != ut || natt.size() < k) {
+                    missade++;
+                    continue;
+                }
+                double bäst = Double.POSITIVE_INFINITY;
+                double direkt = 0;
+                for (int a = 0; a + k <= natt.size(); a++) {
+                    double sek = 0;
+                    for (int x = 0; x < k; x++) {
+                        double kWh = x < k - 1 ? perRad : profil.chargeKWhPerDay() - (k - 1) * perRad;
+                        sek += kWh * natt.get(a + x);
+                    }
+                    if (a == 0) direkt = sek;
+                    bäst = Math.min(bäst, sek);
+                }
+                laddKWh += profil.chargeKWhPerDay();
+                direktSek += direkt;
+                smartSek += bäst;
+            }
+        }
+        int alla = (int) (sist.toEpochDay() - först.toEpochDay() + 1);
+        return new Cost(dagar.size(), alla - dagar.size(), basKWh, basSek, laddKWh, direktSek, smartSek, missade);
+    }
+
+    private static void assertClose(String fall, Cost faktisk, Cost väntad) {
+        assertThat(faktisk.days()).as(fall).isEqualTo(väntad.days());
+        assertThat(faktisk.missingDays()).as(fall).isEqualTo(väntad.missingDays());
+        assertThat(faktisk.missedCharges()).as(fall).isEqualTo(väntad.missedCharges());
+        assertThat(faktisk.baseKWh()).as(fall).isCloseTo(väntad.baseKWh(), within(1e-6));
+        assertThat(faktisk.baseSek()).as(fall).isCloseTo(väntad.baseSek(), within(1e-6));
+        assertThat(faktisk.chargingKWh()).as(fall).isCloseTo(väntad.chargingKWh(), within(1e-6));
+        assertThat(faktisk.immediateChargingSek()).as(fall).isCloseTo(väntad.immediateChargingSek(), within(1e-6));
+        assertThat(faktisk.smartChargingSek()).as(fall).isCloseTo(väntad.smartChargingSek(), within(1e-6));
+    }
+
+    private static Result find(List<Result> resultat, ConsumptionProfile profil, Prisklass zon) {
+        return resultat.stream().filter(r -> r.profile().equals(profil) && r.zone() == zon).findFirst().orElseThrow();
+    }
+
+    private static ElpriserAPI api(Duration upplösning) {
+        return ElpriserAPI.builder().source(PriceSource.synthetic(7, upplösning)).build();
+    }
+
+    // Timpriser på 1 kr/kWh för dagarna [från, till], utom timmarna som börjar i utan
+    private static PriceSeries flat(LocalDate från, LocalDate till, Set<Long> utan) {
+        List<Elpris> priser = new ArrayList<>();
+        ZonedDateTime t = från.atStartOfDay(ElpriserAPI.STOCKHOLM);
+        ZonedDateTime slut = till.plusDays(1).atStartOfDay(ElpriserAPI.STOCKHOLM);
+        for (; t.isBefore(slut); t = t.plusHours(1)) {
+            if (utan.contains(t.toEpochSecond())) continue;
+            priser.add(new Elpris(1.0, 1.0 / 11.5, 11.5, t, t.plusHours(1)));
+        }
+        return PriceSeries.of(priser);
+    }
+
+    // Förbrukning som varierar timme för timme respektive kvart för kvart
+    private static ConsumptionProfile hourly(String name) {
+        double[] timmar = new double[24];
+        for (int h = 0; h < 24; h++) timmar[h] = 0.3 + (h % 7) * 0.1;
+        return ConsumptionProfile.of(name, timmar);
+    }
+
+    private static ConsumptionProfile quarters(String name) {
+        double[] kvartar = new double[96];
+        for (int q = 0; q < 96; q++) kvartar[q] = 0.05 + (q % 5) * 0.02;
+        return ConsumptionProfile.of(name, kvartar);
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.analysis;
+
+import com.example.api.ElpriserAPI;
+import com.example.api.ElpriserAPI.Elpris;
+import com.example.api.ElpriserAPI.Prisklass;
+import com.example.api.PriceSeries;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class ZoneComparisonTest {
+
+    static final ZonedDateTime T0 = LocalDate.of(2025, 10, 6).atStartOfDay(ElpriserAPI.STOCKHOLM);
+
+    @Test
+    void zonesWithoutCommonTimeHaveNoSpread() {
+        ZoneComparison jämförelse = ZoneComparison.of(Map.of(
+                Prisklass.SE1, series(0, 60, 0.1, 0.2, 0.3, 0.4),
+                Prisklass.SE3, series(240, 60, 0.5, 0.6, 0.7, 0.8)));
+
+        assertThat(jämförelse.zone(Prisklass.SE1).count()).isEqualTo(4);
+        assertThat(jämförelse.zone(Prisklass.SE3).count()).isEqualTo(4);
+        assertThat(jämförelse.spread().isEmpty()).isTrue();
+        assertThat(jämförelse.spread(Prisklass.SE1, Prisklass.SE3).isEmpty()).isTrue();
+        assertThat(jämförelse.cheapestPerSlot()).isEmpty();
+        assertThat(jämförelse.cheapestCount(Prisklass.SE1)).isZero();
+        assertThat(jämförelse.cheapestCount(Prisklass.SE3)).isZero();
+    }
+
+    @Test
+    void partialOverlapComparesOnlyCommonSlots() {
+        // SE1 timme 0–5, SE3 timme 2–7; bara timme 2–5 har båda
+        ZoneComparison jämförelse = ZoneComparison.of(Map.of(
+                Prisklass.SE1, series(0, 60, 0.9, 0.9, 0.5, 0.6, 0.7, 0.8),
+                Prisklass.SE3, series(120, 60, 0.6, 0.4, 0.9, 1.2, 0.1, 0.1)));
+
+        assertThat(jämförelse.zone(Prisklass.SE1).count()).isEqualTo(6);
+        assertThat(jämförelse.zone(Prisklass.SE3).count()).isEqualTo(6);
+        PriceStatistics spridning = jämförelse.spread();
+        assertThat(spridning.count()).isEqualTo(4);
+        assertThat(spridning.min()).isCloseTo(0.1, within(1e-12));
+        assertThat(spridning.max()).isCloseTo(0.4, within(1e-12));
+        assertThat(spridning.maxEpochSecond()).isEqualTo(T0.plusHours(5).toEpochSecond());
+        assertThat(jämförelse.spread(Prisklass.SE1, Prisklass.SE3).mean()).isCloseTo((0.1 - 0.2 + 0.2 + 0.4) / 4, within(1e-12));
+
+        List<ZoneComparison.CheapestSlot> billigast = jämförelse.cheapestPerSlot();
+        assertThat(billigast).extracting(ZoneComparison.CheapestSlot::zone)
+                .containsExactly(Prisklass.SE1, Prisklass.SE3, Prisklass.SE1, Prisklass.SE1);
+        assertThat(billigast.get(0).startEpochSecond()).isEqualTo(T0.plusHours(2).toEpochSecond());
+        assertThat(billigast.get(3).endEpochSecond()).isEqualTo(T0.plusHours(6).toEpochSecond());
+        assertThat(jämförelse.cheapestCount(Prisklass.SE1)).isEqualTo(3);
+        assertThat(jämförelse.cheapestCount(Prisklass.SE3)).isEqualTo(1);
+    }
+
+    @Test
+    void hourAgainstQuarterIsComparedPerQuarter() {
+        // SE1 har timpriser, SE4 kvartspriser över samma två timmar
+        ZoneComparison jämförelse = ZoneComparison.of(Map.of(
+                Prisklass.SE1, series(0, 60, 0.50, 0.30),
+                Prisklass.SE4, series(0, 15, 0.40, 0.60, 0.50, 0.70, 0.20, 0.30, 0.40, 0.10)));
+
+        assertThat(jämförelse.zone(Prisklass.SE1).count()).isEqualTo(8);
+        assertThat(jämförelse.zone(Prisklass.SE1).mean()).isCloseTo(0.40, within(1e-12));
+        List<ZoneComparison.CheapestSlot> billigast = jämförelse.cheapestPerSlot();
+        assertThat(billigast).hasSize(8);
+        assertThat(billigast).allSatisfy(slot -> assertThat(slot.endEpochSecond() - slot.startEpochSecond()).isEqualTo(900));
+        // Lika pris i tredje kvarten: SE1 kommer först
+        assertThat(billigast).extracting(ZoneComparison.CheapestSlot::zone).containsExactly(
+                Prisklass.SE4, Prisklass.SE1, Prisklass.SE1, Prisklass.SE1,
+                Prisklass.SE4, Prisklass.SE1, Prisklass.SE1, Prisklass.SE4);
+        assertThat(jämförelse.spread().count()).isEqualTo(8);
+        assertThat(jämförelse.spread().max()).isCloseTo(0.20, within(1e-12));
+        assertThat(jämförelse.spread().min()).isCloseTo(0.0, within(1e-12));
+    }
+
+    // Rader på {@code minuter} minuter från T0 + {@code frånMinut}
+    private static PriceSeries series(int frånMinut, int minuter, double... sek) {
+        List<Elpris> priser = new ArrayList<>();
+        ZonedDateTime start = T0.plusMinutes(frånMinut);
+        for (int i = 0; i < sek.length; i++) {
+            priser.add(new Elpris(sek[i], sek[i] / 11.5, 11.5,
+                    start.plusMinutes((long) i * minuter), start.plusMinutes((long) (i + 1) * minuter)));
+        }
+        return PriceSeries.of(priser);
+    }
+}
@@ -0,0 +1,185 @@
+package com.example.api;
+
+import com.example.api.ElpriserAPI.Elpris;
+import com.example.api.ElpriserAPI.Prisklass;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DiskCacheTest {
+
+    static final LocalDate DAY = LocalDate.of(2025, 1, 15);
+    // Blockhuvud och 24 rader
+    static final int BLOCK_BYTES = 16 + 24 * 40;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void roundTripsDaysAcrossInstances() throws IOException {
+        writeThreeDays();
+
+        DiskCache reopened = new DiskCache(dir);
+        for (int d = 0; d < 3; d++) {
+            assertThat(reopened.load(DAY.plusDays(d), Prisklass.SE3)).isEqualTo(day(DAY.plusDays(d), d));
+        }
+        assertThat(reopened.load(DAY.plusDays(3), Prisklass.SE3)).isNull();
+    }
+
+    @Test
+    void truncatesTornTailAndKeepsEarlierDays() throws IOException {
+        long beforeLast = writeThreeDays();
+        Path segment = segment();
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 7); // Avbruten skrivning mitt i sista raden
+        }
+
+        DiskCache reopened = new DiskCache(dir);
+
+        assertThat(reopened.load(DAY, Prisklass.SE3)).isEqualTo(day(DAY, 0));
+        assertThat(reopened.load(DAY.plusDays(1), Prisklass.SE3)).isEqualTo(day(DAY.plusDays(1), 1));
+        assertThat(reopened.load(DAY.plusDays(2), Prisklass.SE3)).isNull();
+        assertThat(Files.size(segment)).isEqualTo(beforeLast);
+    }
+
+    @Test
+    void dropsBlockWithBadCrc() throws IOException {
+        long beforeLast = writeThreeDays();
+        Path segment = segment();
+        byte[] bytes = Files.readAllBytes(segment);
+        bytes[bytes.length - 3] ^= 0x40; // En bit i sista radens exr
+        Files.write(segment, bytes);
+
+        DiskCache reopened = new DiskCache(dir);
+
+        assertThat(reopened.load(DAY.plusDays(1), Prisklass.SE3)).isEqualTo(day(DAY.plusDays(1), 1));
+        assertThat(reopened.load(DAY.plusDays(2), Prisklass.SE3)).isNull();
+        assertThat(Files.size(segment)).isEqualTo(beforeLast);
+    }
+
+    @Test
+    void appendsAfterTruncatedTail() throws IOException {
+        writeThreeDays();
+        try (FileChannel channel = FileChannel.open(segment(), StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 7);
+        }
+
+        DiskCache reopened = new DiskCache(dir);
+        reopened.save(DAY.plusDays(2), Prisklass.SE3, day(DAY.plusDays(2), 9));
+
+        assertThat(new DiskCache(dir).load(DAY.plusDays(2), Prisklass.SE3)).isEqualTo(day(DAY.plusDays(2), 9));
+    }
+
+    @Test
+    void resetsSegmentWithUnknownHeader() throws IOException {
+        writeThreeDays();
+        Path segment = segment();
+        byte[] bytes = Files.readAllBytes(segment);
+        bytes[7] = 99; // Okänd version
+        Files.write(segment, bytes);
+
+        DiskCache reopened = new DiskCache(dir);
+
+        assertThat(reopened.load(DAY, Prisklass.SE3)).isNull();
+        assertThat(Files.size(segment)).isEqualTo(8);
+        reopened.save(DAY, Prisklass.SE3, day(DAY, 0));
+        assertThat(new DiskCache(dir).load(DAY, Prisklass.SE3)).isEqualTo(day(DAY, 0));
+    }
+
+    @Test
+    void skipsAppendWhenDayIsUnchanged() throws IOException {
+        writeThreeDays();
+        long size = Files.size(segment());
+        DiskCache cache = new DiskCache(dir);
+
+        cache.save(DAY, Prisklass.SE3, day(DAY, 0));
+        cache.save(DAY.plusDays(2), Prisklass.SE3, day(DAY.plusDays(2), 2));
+
+        assertThat(Files.size(segment())).isEqualTo(size);
+
+        cache.save(DAY, Prisklass.SE3, day(DAY, 5));
+
+        assertThat(Files.size(segment())).isEqualTo(size + BLOCK_BYTES);
+        assertThat(new DiskCache(dir).load(DAY, Prisklass.SE3)).isEqualTo(day(DAY, 5));
+    }
+
+    @Test
+    void compactsWhenSupersededBlocksOutnumberLiveOnes() throws IOException {
+        writeThreeDays();
+        DiskCache cache = new DiskCache(dir);
+        // Öppnad före omskrivningen, som en annan process
+        DiskCache annan = new DiskCache(dir);
+
+        // Tre ersatta block mot tre levande: ingen omskrivning än
+        for (int seed = 10; seed < 13; seed++) {
+            cache.save(DAY, Prisklass.SE3, day(DAY, seed));
+        }
+        assertThat(Files.size(segment())).isEqualTo(8 + 6 * BLOCK_BYTES);
+
+        // Det fjärde ersatta blocket gör dem fler än de levande
+        cache.save(DAY.plusDays(1), Prisklass.SE3, day(DAY.plusDays(1), 13));
+
+        assertThat(Files.size(segment())).isEqualTo(8 + 3 * BLOCK_BYTES);
+        assertThat(dir.toFile().list()).containsExactly("SE3.seg");
+        List<List<Elpris>> väntat = List.of(day(DAY, 12), day(DAY.plusDays(1), 13), day(DAY.plusDays(2), 2));
+        for (DiskCache c : List.of(cache, new DiskCache(dir))) {
+            for (int d = 0; d < 3; d++) {
+                assertThat(c.load(DAY.plusDays(d), Prisklass.SE3)).isEqualTo(väntat.get(d));
+            }
+        }
+
+        // Den andra instansen märker bytet och skriver till den nya filen
+        annan.save(DAY.plusDays(3), Prisklass.SE3, day(DAY.plusDays(3), 3));
+
+        assertThat(annan.load(DAY.plusDays(1), Prisklass.SE3)).isEqualTo(day(DAY.plusDays(1), 13));
+        assertThat(cache.load(DAY.plusDays(3), Prisklass.SE3)).isEqualTo(day(DAY.plusDays(3), 3));
+        assertThat(Files.size(segment())).isEqualTo(8 + 4 * BLOCK_BYTES);
+    }
+
+    @Test
+    void remembersUnpublishedDayOnlyForThatDay() throws IOException {
+        DiskCache cache = new DiskCache(dir);
+        cache.saveUnpublished(DAY, Prisklass.SE1, 12345L);
+
+        DiskCache reopened = new DiskCache(dir);
+        assertThat(reopened.unpublishedUntil(DAY, Prisklass.SE1)).isEqualTo(12345L);
+        assertThat(reopened.unpublishedUntil(DAY.plusDays(1), Prisklass.SE1)).isZero();
+        assertThat(reopened.unpublishedUntil(DAY, Prisklass.SE2)).isZero();
+    }
+
+    // Skriver tre dagar och returnerar segmentets storlek före den sista
+    private long writeThreeDays() throws IOException {
+        DiskCache cache = new DiskCache(dir);
+        cache.save(DAY, Prisklass.SE3, day(DAY, 0));
+        cache.save(DAY.plusDays(1), Prisklass.SE3, day(DAY.plusDays(1), 1));
+        long beforeLast = Files.size(segment());
+        cache.save(DAY.plusDays(2), Prisklass.SE3, day(DAY.plusDays(2), 2));
+        return beforeLast;
+    }
+
+    private Path segment() {
+        return dir.resolve("SE3.seg");
+    }
+
+    static List<Elpris> day(LocalDate datum, int seed) {
+        // Disk-cachen sparar offset, inte zon, så jämför med priser i fast offset som API:t ger
+        ZonedDateTime start = datum.atStartOfDay(ElpriserAPI.STOCKHOLM).toOffsetDateTime().toZonedDateTime();
+        List<Elpris> priser = new ArrayList<>();
+        for (int h = 0; h < 24; h++) {
+            double sek = 0.5 + seed * 0.1 + h * 0.01;
+            priser.add(new Elpris(sek, sek / 11.5, 11.5, start.plusHours(h), start.plusHours(h + 1)));
+        }
+        return priser;
+    }
+}
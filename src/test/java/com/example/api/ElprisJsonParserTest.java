@@ -0,0 +1,96 @@
+package com.example.api;
+
+import com.example.api.ElpriserAPI.Elpris;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ElprisJsonParserTest {
+
+    static final String JSON = """
+            [{"SEK_per_kWh":0.12345,"EUR_per_kWh":0.01085,"EXR":11.3778,
+              "time_start":"2025-09-04T00:00:00+02:00","time_end":"2025-09-04T01:00:00+02:00"},
+             {"time_end":"2025-09-03T23:00:00Z", "okänd":{"a":[1,"}",null]}, "SEK_per_kWh":-1.5e-3,
+              "EUR_per_kWh":0,"EXR":1.1E1,"time_start":"2025-09-03T22:00:00.000Z"}]
+            """;
+
+    @Test
+    void parsesRowsInOrder() {
+        List<Elpris> priser = ElprisJsonParser.parse(JSON);
+
+        assertThat(priser).hasSize(2);
+        Elpris första = priser.get(0);
+        assertThat(första.sekPerKWh()).isEqualTo(0.12345);
+        assertThat(första.eurPerKWh()).isEqualTo(0.01085);
+        assertThat(första.exr()).isEqualTo(11.3778);
+        assertThat(första.timeStart()).isEqualTo(ZonedDateTime.of(2025, 9, 4, 0, 0, 0, 0, ZoneOffset.ofHours(2)));
+        assertThat(första.timeEnd()).isEqualTo(ZonedDateTime.of(2025, 9, 4, 1, 0, 0, 0, ZoneOffset.ofHours(2)));
+        Elpris andra = priser.get(1);
+        assertThat(andra.sekPerKWh()).isEqualTo(-0.0015);
+        assertThat(andra.eurPerKWh()).isZero();
+        assertThat(andra.exr()).isEqualTo(11.0);
+        assertThat(andra.timeStart().toInstant()).isEqualTo(första.timeStart().toInstant());
+        assertThat(andra.timeEnd().toInstant()).isEqualTo(första.timeEnd().toInstant());
+        assertThat(ElprisJsonParser.parse(" [ ] ")).isEmpty();
+    }
+
+    @Test
+    void ignoresFractionalSecondsAndKeepsNegativeOffsets() {
+        Elpris pris = ElprisJsonParser.parse(row("0.5", "2025-01-01T10:15:30.123456-03:30")).get(0);
+
+        assertThat(pris.timeStart()).isEqualTo(ZonedDateTime.of(2025, 1, 1, 10, 15, 30, 0, ZoneOffset.ofHoursMinutes(-3, -30)));
+    }
+
+    @Test
+    void rejectsInvalidTimestamps() {
+        for (String tid : List.of("2025-01-01T10:00:00+19:00", "2025-01-01T10:00:00+05:99", "2025-01-01T10:00:00-18:60",
+                "2025-02-30T10:00:00+01:00", "2025-01-01T24:00:00+01:00", "2025-01-01T10:00:00.+01:00",
+                "2025-01-01T10:00:00", "2025-01-01 10:00:00+01:00", "2025-1-01T10:00:00+01:00")) {
+            assertThatThrownBy(() -> ElprisJsonParser.parse(row("0.5", tid))).as(tid)
+                    .isInstanceOf(ElprisParseException.class);
+        }
+    }
+
+    @Test
+    void rejectsNumbersOutsideJsonGrammar() {
+        for (String tal : List.of(".5", "-.5", "007", "-01", "00", "1.", "-", "+1", "1e", "1e+", "0x10", "NaN", "\"1\"")) {
+            assertThatThrownBy(() -> ElprisJsonParser.parse(row(tal, "2025-01-01T10:00:00+01:00"))).as(tal)
+                    .isInstanceOf(ElprisParseException.class);
+        }
+        for (String tal : List.of("0", "-0", "0.0", "10", "1e2", "0.000123", "123456789012345678901")) {
+            assertThat(ElprisJsonParser.parse(row(tal, "2025-01-01T10:00:00+01:00")).get(0).sekPerKWh()).as(tal)
+                    .isEqualTo(Double.parseDouble(tal));
+        }
+    }
+
+    @Test
+    void everyTruncationIsAParseError() {
+        byte[] json = JSON.strip().getBytes(StandardCharsets.UTF_8);
+        for (int längd = 0; längd < json.length; längd++) {
+            int n = längd;
+            assertThatThrownBy(() -> ElprisJsonParser.parse(json, 0, n, p -> {})).as("%d byte", n)
+                    .isInstanceOf(ElprisParseException.class);
+        }
+    }
+
+    @Test
+    void rejectsMissingFieldsAndTrailingContent() {
+        assertThatThrownBy(() -> ElprisJsonParser.parse("[{\"SEK_per_kWh\":1}]"))
+                .isInstanceOf(ElprisParseException.class)
+                .hasMessageContaining("EUR_per_kWh EXR time_start time_end");
+        assertThatThrownBy(() -> ElprisJsonParser.parse("[] []"))
+                .isInstanceOf(ElprisParseException.class);
+    }
+
+    // En rad med givet SEK-pris och starttid; övriga fält är giltiga
+    private static String row(String sek, String start) {
+        return "[{\"SEK_per_kWh\":" + sek + ",\"EUR_per_kWh\":0.1,\"EXR\":11,\"time_start\":\"" + start
+                + "\",\"time_end\":\"2025-01-01T11:00:00+01:00\"}]";
+    }
+}
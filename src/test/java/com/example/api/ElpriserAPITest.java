@@ -0,0 +1,167 @@
+package com.example.api;
+
+import com.example.api.ElpriserAPI.Elpris;
+import com.example.api.ElpriserAPI.Prisklass;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ElpriserAPITest {
+
+    static final LocalDate DAY = LocalDate.of(2025, 1, 15);
+    // Dagen efter DAY, så att DAY är passerad och aldrig går ut ur minnes-cachen
+    static final Clock CLOCK = Clock.fixed(DAY.plusDays(5).atTime(10, 0).atZone(ElpriserAPI.STOCKHOLM).toInstant(),
+            ElpriserAPI.STOCKHOLM);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void concurrentMissesShareOneFetch() throws Exception {
+        int callers = 16;
+        CountDownLatch release = new CountDownLatch(1);
+        CountingSource source = new CountingSource(release, false);
+        AtomicInteger coalesced = new AtomicInteger();
+        ElpriserAPI api = ElpriserAPI.builder()
+                .source(source)
+                .clock(CLOCK)
+                .instrumentation(new ElpriserInstrumentation() {
+                    @Override
+                    public void fetchCoalesced(LocalDate datum, Prisklass prisklass) {
+                        coalesced.incrementAndGet();
+                    }
+                })
+                .build();
+
+        List<Future<List<Elpris>>> results = new ArrayList<>();
+        try (ExecutorService pool = Executors.newFixedThreadPool(callers)) {
+            for (int i = 0; i < callers; i++) {
+                results.add(pool.submit(() -> api.getPriser(DAY, Prisklass.SE3)));
+            }
+            // Släpp hämtningen först när alla andra anrop väntar på den
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (coalesced.get() < callers - 1 && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            release.countDown();
+            List<Elpris> first = results.get(0).get(10, TimeUnit.SECONDS);
+            assertThat(first).hasSize(24);
+            for (Future<List<Elpris>> result : results) {
+                assertThat(result.get(10, TimeUnit.SECONDS)).isSameAs(first);
+            }
+        }
+
+        assertThat(coalesced.get()).isEqualTo(callers - 1);
+        assertThat(source.calls.get()).isEqualTo(1);
+        assertThat(api.cacheStats().misses()).isEqualTo(callers);
+        assertThat(api.cacheStats().hits()).isZero();
+    }
+
+    @Test
+    void missIsCountedOnceThroughGetPriser() {
+        ElpriserAPI api = ElpriserAPI.builder().source(new CountingSource(null, false)).clock(CLOCK).build();
+
+        api.getPriser(DAY, Prisklass.SE3);
+        api.getPriser(DAY, Prisklass.SE3);
+
+        assertThat(api.cacheStats().misses()).isEqualTo(1);
+        assertThat(api.cacheStats().hits()).isEqualTo(1);
+        assertThat(api.cacheStats().hitRate()).isEqualTo(0.5);
+    }
+
+    @Test
+    void missIsCountedOnceThroughGetPriserAsync() {
+        CountingSource source = new CountingSource(null, false);
+        ElpriserAPI api = ElpriserAPI.builder().source(source).clock(CLOCK).build();
+
+        api.getPriserAsync(DAY, Prisklass.SE3).join();
+        api.getPriserAsync(DAY, Prisklass.SE3).join();
+
+        assertThat(source.calls.get()).isEqualTo(1);
+        assertThat(api.cacheStats().misses()).isEqualTo(1);
+        assertThat(api.cacheStats().hits()).isEqualTo(1);
+    }
+
+    @Test
+    void missIsCountedOnceWhenCachedLookupFallsBackToFetch() {
+        CountingSource source = new CountingSource(null, true);
+        ElpriserAPI api = ElpriserAPI.builder().source(source).clock(CLOCK).diskCacheDir(dir).build();
+
+        // Som Main: först bara cachen, sedan en vanlig hämtning när dagen saknas
+        assertThat(api.getCachedPriser(DAY, Prisklass.SE3)).isNull();
+        CompletableFuture<List<Elpris>> hämtad = api.getPriserAsync(DAY, Prisklass.SE3);
+        assertThat(hämtad.join()).hasSize(24);
+        assertThat(api.cacheStats().misses()).isEqualTo(1);
+
+        // En ny instans hittar dagen på disk: en miss i minnet, ingen hämtning
+        ElpriserAPI kall = ElpriserAPI.builder().source(source).clock(CLOCK).diskCacheDir(dir).build();
+        assertThat(kall.getCachedPriser(DAY, Prisklass.SE3)).hasSize(24);
+        assertThat(kall.getCachedPriser(DAY, Prisklass.SE3)).hasSize(24);
+        assertThat(kall.cacheStats().misses()).isEqualTo(1);
+        assertThat(kall.cacheStats().hits()).isEqualTo(1);
+        assertThat(source.calls.get()).isEqualTo(1);
+    }
+
+    @Test
+    void closeInterruptsAsyncFetchesAndRejectsNewOnes() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountingSource source = new CountingSource(release, false);
+        ElpriserAPI api = ElpriserAPI.builder().source(source).clock(CLOCK).build();
+        CompletableFuture<List<Elpris>> hämtning = api.getPriserAsync(DAY, Prisklass.SE3);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (source.calls.get() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+
+        api.close();
+
+        // Hämtningen avbröts i stället för att vänta ut källans tio sekunder
+        assertThat(hämtning.get(5, TimeUnit.SECONDS)).isEmpty();
+        assertThatThrownBy(() -> api.getPriserAsync(DAY.plusDays(1), Prisklass.SE3))
+                .isInstanceOf(RejectedExecutionException.class);
+        release.countDown();
+        assertThat(api.getPriser(DAY.plusDays(1), Prisklass.SE3)).hasSize(24);
+    }
+
+    /** Räknar anropen och kan hålla kvar dem tills testet släpper dem. */
+    static final class CountingSource implements PriceSource {
+        final AtomicInteger calls = new AtomicInteger();
+        private final CountDownLatch release;
+        private final boolean persistent;
+
+        CountingSource(CountDownLatch release, boolean persistent) {
+            this.release = release;
+            this.persistent = persistent;
+        }
+
+        @Override
+        public Response fetch(LocalDate datum, Prisklass prisklass, Validators validators) throws InterruptedException {
+            calls.incrementAndGet();
+            if (release != null && !release.await(10, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("Släpptes aldrig");
+            }
+            return Response.ok(DiskCacheTest.day(datum, 0));
+        }
+
+        @Override
+        public boolean persistent() {
+            return persistent;
+        }
+    }
+}
@@ -0,0 +1,363 @@
+package com.example.api;
+
+import com.example.api.ElpriserAPI.Prisklass;
+import com.example.api.PriceSource.Validators;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpServer;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class HttpFetcherTest {
+
+    static final LocalDate DAY = LocalDate.of(2025, 1, 15);
+    static final byte[] BODY = "[]".getBytes(StandardCharsets.UTF_8);
+
+    /** Ett svar från stubben. */
+    record Stub(int status, Map<String, String> headers, byte[] body) {
+        static Stub of(int status) {
+            return new Stub(status, Map.of(), status == 304 ? new byte[0] : BODY);
+        }
+
+        static Stub of(int status, String header, String value) {
+            return new Stub(status, Map.of(header, value), status == 304 ? new byte[0] : BODY);
+        }
+    }
+
+    // Markör i kön: servern väntar på släpp innan den svarar
+    static final Stub HANG = new Stub(0, Map.of(), BODY);
+
+    @TempDir
+    Path dir;
+
+    final CountDownLatch mottagen = new CountDownLatch(1);
+    final CountDownLatch släpp = new CountDownLatch(1);
+
+    HttpServer server;
+    final Queue<Stub> svar = new ConcurrentLinkedQueue<>();
+    final List<Headers> requests = new CopyOnWriteArrayList<>();
+    final List<Long> delays = new CopyOnWriteArrayList<>();
+    final MutableClock clock = new MutableClock(Instant.parse("2025-01-15T10:00:00Z"));
+
+    @BeforeEach
+    void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            requests.add(exchange.getRequestHeaders());
+            Stub stub = svar.poll();
+            if (stub == null) {
+                stub = Stub.of(500);
+            }
+            if (stub == HANG) {
+                // Svarar inte förrän testet släpper, så att klienten hinner avbrytas
+                mottagen.countDown();
+                try {
+                    släpp.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                stub = Stub.of(200);
+            }
+            stub.headers().forEach(exchange.getResponseHeaders()::add);
+            exchange.sendResponseHeaders(stub.status(), stub.body().length == 0 ? -1 : stub.body().length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(stub.body());
+            }
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stop() {
+        släpp.countDown();
+        server.stop(0);
+    }
+
+    @Test
+    void retriesServerErrorsWithBoundedBackoff() throws Exception {
+        svar.addAll(List.of(Stub.of(503), Stub.of(502), Stub.of(200)));
+        HttpFetcher fetcher = fetcher(baseUrl(), 3, Duration.ofMillis(40), new CircuitBreaker(10, Duration.ofSeconds(30), clock));
+
+        HttpFetcher.Response response = fetcher.fetch(DAY, Prisklass.SE3, Validators.NONE);
+
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.body()).isEqualTo(BODY);
+        assertThat(requests).hasSize(3);
+        // Full jitter: första pausen högst basen, andra högst dubbla basen
+        assertThat(delays).hasSize(2);
+        assertThat(delays.get(0)).isBetween(0L, 40L);
+        assertThat(delays.get(1)).isBetween(0L, 80L);
+    }
+
+    @Test
+    void returnsLastResponseWhenAttemptsRunOut() throws Exception {
+        HttpFetcher fetcher = fetcher(baseUrl(), 3, Duration.ofMillis(1), new CircuitBreaker(10, Duration.ofSeconds(30), clock));
+
+        HttpFetcher.Response response = fetcher.fetch(DAY, Prisklass.SE3, Validators.NONE);
+
+        assertThat(response.statusCode()).isEqualTo(500);
+        assertThat(requests).hasSize(3);
+        assertThat(delays).hasSize(2);
+    }
+
+    @Test
+    void doesNotRetryClientErrors() throws Exception {
+        svar.add(Stub.of(404));
+        HttpFetcher fetcher = fetcher(baseUrl(), 3, Duration.ofMillis(1), new CircuitBreaker(10, Duration.ofSeconds(30), clock));
+
+        assertThat(fetcher.fetch(DAY, Prisklass.SE3, Validators.NONE).statusCode()).isEqualTo(404);
+        assertThat(requests).hasSize(1);
+    }
+
+    @Test
+    void honoursRetryAfterOnTooManyRequests() throws Exception {
+        svar.addAll(List.of(Stub.of(429, "Retry-After", "1"), Stub.of(200)));
+        HttpFetcher fetcher = fetcher(baseUrl(), 2, Duration.ofMillis(1), new CircuitBreaker(10, Duration.ofSeconds(30), clock));
+
+        long start = System.nanoTime();
+        HttpFetcher.Response response = fetcher.fetch(DAY, Prisklass.SE3, Validators.NONE);
+
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(delays).containsExactly(1000L);
+        assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(Duration.ofMillis(1000).toNanos());
+    }
+
+    @Test
+    void revalidatesWithEtagAndLastModified() throws Exception {
+        svar.addAll(List.of(
+                new Stub(200, Map.of("ETag", "\"v1\"", "Last-Modified", "Wed, 15 Jan 2025 12:00:00 GMT"), BODY),
+                Stub.of(304)));
+        HttpFetcher fetcher = fetcher(baseUrl(), 1, Duration.ofMillis(1), new CircuitBreaker(10, Duration.ofSeconds(30), clock));
+
+        HttpFetcher.Response första = fetcher.fetch(DAY, Prisklass.SE3, Validators.NONE);
+        HttpFetcher.Response andra = fetcher.fetch(DAY, Prisklass.SE3, första.validators());
+
+        assertThat(första.validators()).isEqualTo(new Validators("\"v1\"", "Wed, 15 Jan 2025 12:00:00 GMT"));
+        assertThat(requests.get(0).containsKey("If-None-Match")).isFalse();
+        assertThat(requests.get(1).getFirst("If-None-Match")).isEqualTo("\"v1\"");
+        assertThat(requests.get(1).getFirst("If-Modified-Since")).isEqualTo("Wed, 15 Jan 2025 12:00:00 GMT");
+        assertThat(andra.statusCode()).isEqualTo(304);
+        assertThat(andra.body()).isEmpty();
+        // Ett 304 utan nya huvuden behåller de gamla värdena
+        assertThat(andra.validators()).isEqualTo(första.validators());
+    }
+
+    @Test
+    void decodesGzip() throws Exception {
+        ByteArrayOutputStream komprimerad = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(komprimerad)) {
+            gzip.write(BODY);
+        }
+        svar.add(new Stub(200, Map.of("Content-Encoding", "gzip"), komprimerad.toByteArray()));
+        HttpFetcher fetcher = fetcher(baseUrl(), 1, Duration.ofMillis(1), new CircuitBreaker(10, Duration.ofSeconds(30), clock));
+
+        assertThat(fetcher.fetch(DAY, Prisklass.SE3, Validators.NONE).body()).isEqualTo(BODY);
+        assertThat(requests.get(0).getFirst("Accept-Encoding")).isEqualTo("gzip");
+    }
+
+    @Test
+    void circuitOpensAfterRepeatedFailuresAndHalfOpensAfterTimeout() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker(2, Duration.ofSeconds(30), clock);
+        HttpFetcher fetcher = fetcher(baseUrl(), 1, Duration.ofMillis(1), breaker);
+
+        assertThat(fetcher.fetch(DAY, Prisklass.SE3, Validators.NONE).statusCode()).isEqualTo(500);
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(fetcher.fetch(DAY, Prisklass.SE3, Validators.NONE).statusCode()).isEqualTo(500);
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+
+        // Öppen: inget anrop når servern
+        assertThatThrownBy(() -> fetcher.fetch(DAY, Prisklass.SE3, Validators.NONE))
+                .isInstanceOf(HttpFetcher.CircuitOpenException.class);
+        assertThat(requests).hasSize(2);
+
+        // Halvöppen efter väntetiden: ett misslyckat provanrop öppnar kretsen igen direkt
+        clock.advance(Duration.ofSeconds(30));
+        assertThat(fetcher.fetch(DAY, Prisklass.SE3, Validators.NONE).statusCode()).isEqualTo(500);
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThatThrownBy(() -> fetcher.fetch(DAY, Prisklass.SE3, Validators.NONE))
+                .isInstanceOf(HttpFetcher.CircuitOpenException.class);
+
+        // Ett lyckat provanrop stänger den
+        clock.advance(Duration.ofSeconds(30));
+        svar.add(Stub.of(200));
+        assertThat(fetcher.fetch(DAY, Prisklass.SE3, Validators.NONE).statusCode()).isEqualTo(200);
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(requests).hasSize(4);
+    }
+
+    @Test
+    void halfOpenCircuitLetsOnlyOneTrialThrough() {
+        CircuitBreaker breaker = new CircuitBreaker(1, Duration.ofSeconds(30), clock);
+        breaker.onFailure();
+        assertThat(breaker.tryAcquire()).isFalse();
+
+        clock.advance(Duration.ofSeconds(30));
+        assertThat(breaker.tryAcquire()).isTrue();
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        assertThat(breaker.tryAcquire()).isFalse();
+    }
+
+    @Test
+    void interruptedHalfOpenTrialDuringSendLetsNextCallThrough() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker(1, Duration.ofSeconds(30), clock);
+        HttpFetcher fetcher = fetcher(baseUrl(), 1, Duration.ofMillis(1), breaker);
+        assertThat(fetcher.fetch(DAY, Prisklass.SE3, Validators.NONE).statusCode()).isEqualTo(500);
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+        clock.advance(Duration.ofSeconds(30));
+
+        svar.add(HANG);
+        Throwable fel = interruptedFetch(fetcher, mottagen::await);
+        assertThat(fel).isInstanceOf(InterruptedException.class);
+        släpp.countDown();
+
+        svar.add(Stub.of(200));
+        assertThat(fetcher.fetch(DAY, Prisklass.SE3, Validators.NONE).statusCode()).isEqualTo(200);
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void interruptedHalfOpenTrialWaitingForPermitLetsNextCallThrough() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker(1, Duration.ofSeconds(30), clock);
+        breaker.onFailure();
+        clock.advance(Duration.ofSeconds(30));
+        Semaphore permits = new Semaphore(1);
+        HttpFetcher fetcher = new HttpFetcher(client(), baseUrl(), Duration.ofSeconds(5), 1, Duration.ofMillis(1),
+                breaker, permits, new ElpriserInstrumentation() {});
+
+        permits.acquire();
+        Throwable fel = interruptedFetch(fetcher, () -> {
+            // Vänta tills provanropet står i kö på tillståndet
+            while (!permits.hasQueuedThreads()) Thread.sleep(1);
+        });
+        assertThat(fel).isInstanceOf(InterruptedException.class);
+        permits.release();
+
+        svar.add(Stub.of(200));
+        assertThat(fetcher.fetch(DAY, Prisklass.SE3, Validators.NONE).statusCode()).isEqualTo(200);
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(permits.availablePermits()).isEqualTo(1);
+    }
+
+    /** Något att vänta på innan hämtningen avbryts. */
+    interface Wait {
+        void await() throws InterruptedException;
+    }
+
+    // Hämtar i en egen tråd, avbryter den när vänta är klar och returnerar vad hämtningen kastade
+    private static Throwable interruptedFetch(HttpFetcher fetcher, Wait vänta) throws Exception {
+        AtomicReference<Throwable> fel = new AtomicReference<>();
+        Thread tråd = new Thread(() -> {
+            try {
+                fetcher.fetch(DAY, Prisklass.SE3, Validators.NONE);
+            } catch (Throwable t) {
+                fel.set(t);
+            }
+        });
+        tråd.start();
+        vänta.await();
+        tråd.interrupt();
+        tråd.join(10_000);
+        assertThat(tråd.isAlive()).isFalse();
+        return fel.get();
+    }
+
+    @Test
+    void releasesPermitBeforeBackingOffAfterNetworkError() throws Exception {
+        Semaphore permits = new Semaphore(1);
+        List<Integer> ledigaUnderPaus = new CopyOnWriteArrayList<>();
+        ElpriserInstrumentation instrumentation = new ElpriserInstrumentation() {
+            @Override
+            public void fetchRetried(LocalDate datum, Prisklass prisklass, int attempt, long delayMillis) {
+                ledigaUnderPaus.add(permits.availablePermits());
+            }
+        };
+        HttpFetcher fetcher = new HttpFetcher(client(), closedPortUrl(), Duration.ofSeconds(5), 3, Duration.ofMillis(1),
+                new CircuitBreaker(10, Duration.ofSeconds(30), clock), permits, instrumentation);
+
+        assertThatThrownBy(() -> fetcher.fetch(DAY, Prisklass.SE3, Validators.NONE)).isInstanceOf(IOException.class);
+
+        assertThat(ledigaUnderPaus).containsExactly(1, 1);
+        assertThat(permits.availablePermits()).isEqualTo(1);
+    }
+
+    @Test
+    void recordsFetchEventForNetworkErrors() throws Exception {
+        HttpFetcher fetcher = fetcher(closedPortUrl(), 2, Duration.ofMillis(1), new CircuitBreaker(10, Duration.ofSeconds(30), clock));
+        Path fil = dir.resolve("fetch.jfr");
+
+        try (Recording recording = new Recording()) {
+            recording.enable("com.example.elpriser.Fetch").withoutThreshold();
+            recording.start();
+            assertThatThrownBy(() -> fetcher.fetch(DAY, Prisklass.SE3, Validators.NONE)).isInstanceOf(IOException.class);
+            recording.stop();
+            recording.dump(fil);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(fil);
+        assertThat(events).hasSize(2);
+        assertThat(events).allSatisfy(e -> {
+            assertThat(e.getInt("statusCode")).isZero();
+            assertThat(e.getString("datum")).isEqualTo(DAY.toString());
+            assertThat(e.getString("error")).isNotBlank();
+        });
+        assertThat(events).extracting(e -> e.getInt("attempt")).containsExactlyInAnyOrder(1, 2);
+    }
+
+    private HttpFetcher fetcher(String baseUrl, int maxAttempts, Duration baseBackoff, CircuitBreaker breaker) {
+        ElpriserInstrumentation instrumentation = new ElpriserInstrumentation() {
+            @Override
+            public void fetchRetried(LocalDate datum, Prisklass prisklass, int attempt, long delayMillis) {
+                delays.add(delayMillis);
+            }
+        };
+        return new HttpFetcher(client(), baseUrl, Duration.ofSeconds(5), maxAttempts, baseBackoff, breaker,
+                new Semaphore(4), instrumentation);
+    }
+
+    private static HttpClient client() {
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(2))
+                .build();
+    }
+
+    private String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/api/v1/prices";
+    }
+
+    // En port som nyss var ledig, så att anslutningen nekas direkt
+    private static String closedPortUrl() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return "http://127.0.0.1:" + socket.getLocalPort() + "/api/v1/prices";
+        }
+    }
+}
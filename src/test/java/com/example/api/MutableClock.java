@@ -0,0 +1,39 @@
+package com.example.api;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+
+/** En klocka i svensk tid som bara går när testet flyttar den. */
+final class MutableClock extends Clock {
+
+    private volatile Instant now;
+
+    MutableClock(Instant start) {
+        this.now = start;
+    }
+
+    void advance(Duration d) {
+        now = now.plus(d);
+    }
+
+    void set(Instant instant) {
+        now = instant;
+    }
+
+    @Override
+    public ZoneId getZone() {
+        return ElpriserAPI.STOCKHOLM;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+        return zone.equals(ElpriserAPI.STOCKHOLM) ? this : Clock.fixed(now, zone);
+    }
+
+    @Override
+    public Instant instant() {
+        return now;
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.api;
+
+import com.example.api.ElpriserAPI.Prisklass;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PrefetchSchedulerTest {
+
+    static final LocalDate TODAY = LocalDate.of(2025, 1, 15);
+    static final LocalDate TOMORROW = TODAY.plusDays(1);
+    static final Duration INITIAL = Duration.ofMinutes(1);
+    static final Duration MAX = Duration.ofMinutes(4);
+
+    final MutableClock clock = new MutableClock(at(TODAY, 10, 0).toInstant());
+    final Set<Prisklass> published = ConcurrentHashMap.newKeySet();
+    final List<Prisklass> calls = new CopyOnWriteArrayList<>();
+    ElpriserAPI api;
+    PrefetchScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        PriceSource source = (datum, prisklass, validators) -> {
+            calls.add(prisklass);
+            return published.contains(prisklass)
+                    ? PriceSource.Response.ok(DiskCacheTest.day(datum, prisklass.ordinal()))
+                    : PriceSource.Response.notPublished();
+        };
+        api = ElpriserAPI.builder().source(source).clock(clock).build();
+        scheduler = new PrefetchScheduler(api, clock, EnumSet.allOf(Prisklass.class), INITIAL, MAX);
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.close();
+        api.close();
+    }
+
+    @Test
+    void sleepsUntilPublicationWithoutFetching() {
+        assertThat(scheduler.runOnce()).isEqualTo(Duration.ofHours(3));
+        assertThat(calls).isEmpty();
+
+        clock.set(at(TODAY, 12, 59).toInstant());
+        assertThat(scheduler.runOnce()).isEqualTo(Duration.ofMinutes(1));
+        assertThat(calls).isEmpty();
+        assertThat(scheduler.warmedDay()).isEmpty();
+    }
+
+    @Test
+    void retriesMissingZonesWithGrowingBackoffUntilAllArePublished() {
+        clock.set(at(TODAY, 13, 0).toInstant());
+
+        // Inget publicerat än: alla fyra frågas, och väntan växer upp till taket
+        Duration första = scheduler.runOnce();
+        assertThat(calls).hasSize(4);
+        assertThat(första).isBetween(INITIAL.dividedBy(2), INITIAL);
+        clock.advance(första);
+        Duration andra = scheduler.runOnce();
+        assertThat(calls).hasSize(8);
+        assertThat(andra).isBetween(INITIAL, INITIAL.multipliedBy(2));
+        for (int i = 0; i < 3; i++) {
+            clock.advance(Duration.ofMinutes(1));
+            assertThat(scheduler.runOnce()).isBetween(MAX.dividedBy(2), MAX);
+        }
+
+        // Två zoner publiceras: de hämtas och frågas sedan inte efter igen
+        published.addAll(Set.of(Prisklass.SE1, Prisklass.SE2));
+        calls.clear();
+        clock.advance(Duration.ofMinutes(1));
+        scheduler.runOnce();
+        assertThat(calls).containsExactlyInAnyOrder(Prisklass.values());
+        calls.clear();
+        clock.advance(Duration.ofMinutes(1));
+        scheduler.runOnce();
+        assertThat(calls).containsExactlyInAnyOrder(Prisklass.SE3, Prisklass.SE4);
+        assertThat(scheduler.warmedDay()).isEmpty();
+
+        // Resten publiceras: klart, och nästa omgång väntar till nästa dags publicering
+        published.addAll(EnumSet.allOf(Prisklass.class));
+        calls.clear();
+        clock.set(at(TODAY, 14, 0).toInstant());
+        assertThat(scheduler.runOnce()).isEqualTo(Duration.ofHours(23));
+        assertThat(calls).containsExactlyInAnyOrder(Prisklass.SE3, Prisklass.SE4);
+        assertThat(scheduler.warmedDay()).contains(TOMORROW);
+        for (Prisklass zon : Prisklass.values()) {
+            assertThat(api.getCachedPriser(TOMORROW, zon)).hasSize(24);
+        }
+
+        calls.clear();
+        clock.set(at(TODAY, 20, 0).toInstant());
+        assertThat(scheduler.runOnce()).isEqualTo(Duration.ofHours(17));
+        assertThat(calls).isEmpty();
+    }
+
+    @Test
+    void startsOverWhenTheDayChanges() {
+        published.addAll(EnumSet.allOf(Prisklass.class));
+        clock.set(at(TODAY, 13, 30).toInstant());
+        scheduler.runOnce();
+        assertThat(scheduler.warmedDay()).contains(TOMORROW);
+
+        calls.clear();
+        clock.set(at(TOMORROW, 13, 0).toInstant());
+        scheduler.runOnce();
+        assertThat(calls).hasSize(4);
+        assertThat(scheduler.warmedDay()).contains(TOMORROW.plusDays(1));
+    }
+
+    private static ZonedDateTime at(LocalDate datum, int timme, int minut) {
+        return datum.atTime(timme, minut).atZone(ElpriserAPI.STOCKHOLM);
+    }
+}
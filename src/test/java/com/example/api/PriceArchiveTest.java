@@ -0,0 +1,113 @@
+package com.example.api;
+
+import com.example.api.ElpriserAPI.Elpris;
+import com.example.api.ElpriserAPI.Prisklass;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PriceArchiveTest {
+
+    @TempDir
+    Path dir;
+
+    // Som API:t: timpriser till och med september 2025, kvartspriser därefter
+    static final LocalDate QUARTERS_FROM = LocalDate.of(2025, 10, 1);
+
+    @Test
+    void addFromApiKeepsEveryDayAcrossMonths() {
+        AtomicInteger calls = new AtomicInteger();
+        ElpriserAPI api = ElpriserAPI.builder()
+                .source((datum, prisklass, validators) -> {
+                    calls.incrementAndGet();
+                    return PriceSource.Response.ok(day(datum, prisklass.ordinal()));
+                })
+                .build();
+        PriceArchive arkiv = new PriceArchive();
+
+        arkiv.addFromApi(api, new DateRange(LocalDate.of(2025, 9, 29), LocalDate.of(2025, 10, 2)),
+                EnumSet.of(Prisklass.SE1, Prisklass.SE3));
+
+        assertThat(calls.get()).isEqualTo(8);
+        assertThat(arkiv.zones()).containsExactly(Prisklass.SE1, Prisklass.SE3);
+        assertThat(arkiv.size(Prisklass.SE1)).isEqualTo(2 * 24 + 2 * 96);
+        assertThat(arkiv.size(Prisklass.SE3)).isEqualTo(2 * 24 + 2 * 96);
+        PriceSeries serie = arkiv.series(Prisklass.SE3);
+        assertThat(serie.startEpochSecond(0)).isEqualTo(day(LocalDate.of(2025, 9, 29), 0).get(0).timeStart().toEpochSecond());
+        assertThat(serie.endEpochSecond(serie.size() - 1))
+                .isEqualTo(day(LocalDate.of(2025, 10, 3), 0).get(0).timeStart().toEpochSecond());
+    }
+
+    @Test
+    void writeDiskCacheKeepsRowLengths() throws Exception {
+        LocalDate timdag = QUARTERS_FROM.minusDays(1);
+        PriceArchive arkiv = new PriceArchive();
+        arkiv.addAll(Prisklass.SE3, day(QUARTERS_FROM, 1));
+        arkiv.addAll(Prisklass.SE3, day(timdag, 0));
+
+        assertThat(arkiv.writeDiskCache(dir)).isEqualTo(2);
+
+        DiskCache cache = new DiskCache(dir);
+        assertThat(rows(cache.load(timdag, Prisklass.SE3))).isEqualTo(rows(day(timdag, 0)));
+        assertThat(rows(cache.load(QUARTERS_FROM, Prisklass.SE3))).isEqualTo(rows(day(QUARTERS_FROM, 1)));
+    }
+
+    @Test
+    void csvRoundTripsSmallAndNegativePricesWithoutExponent() throws Exception {
+        long start = QUARTERS_FROM.atStartOfDay(ElpriserAPI.STOCKHOLM).toEpochSecond();
+        double[][] värden = {{0.00012, 0.00001, 11.4321}, {-0.00003, -0.0000026, 11.4321}, {1.23456, 0.10851, 11.37709}};
+        PriceArchive arkiv = new PriceArchive();
+        for (int i = 0; i < värden.length; i++) {
+            arkiv.add(Prisklass.SE1, start + 900L * i, 900, värden[i][0], värden[i][1], värden[i][2]);
+        }
+        Path fil = dir.resolve("priser.csv");
+
+        arkiv.writeCsv(fil);
+
+        List<String> rader = Files.readAllLines(fil);
+        assertThat(rader).hasSize(1 + värden.length);
+        assertThat(rader.get(0)).isEqualTo("zone,start,end,sek_per_kwh,eur_per_kwh,exr");
+        assertThat(rader.get(1)).endsWith(",0.00012,0.00001,11.4321");
+        assertThat(rader.get(2)).endsWith(",-0.00003,-0.000003,11.4321");
+        for (int i = 0; i < värden.length; i++) {
+            String[] fält = rader.get(1 + i).split(",");
+            assertThat(fält[3] + fält[4] + fält[5]).doesNotContain("E");
+            assertThat(fält[0]).isEqualTo("SE1");
+            assertThat(OffsetDateTime.parse(fält[1]).toEpochSecond()).isEqualTo(start + 900L * i);
+            assertThat(OffsetDateTime.parse(fält[2]).toEpochSecond()).isEqualTo(start + 900L * (i + 1));
+            assertThat(Double.parseDouble(fält[3])).isEqualTo(värden[i][0]);
+            assertThat(Double.parseDouble(fält[5])).isEqualTo(värden[i][2]);
+        }
+    }
+
+    // Start, slut och priser, oberoende av om tiderna har zon eller bara offset
+    private static List<String> rows(List<Elpris> priser) {
+        return priser.stream()
+                .map(p -> p.timeStart().toEpochSecond() + "-" + p.timeEnd().toEpochSecond()
+                        + ":" + p.sekPerKWh() + "/" + p.eurPerKWh() + "/" + p.exr())
+                .toList();
+    }
+
+    // Timpriser före QUARTERS_FROM och kvartspriser från och med den dagen
+    static List<Elpris> day(LocalDate datum, int seed) {
+        ZonedDateTime start = datum.atStartOfDay(ElpriserAPI.STOCKHOLM).toOffsetDateTime().toZonedDateTime();
+        int minuter = datum.isBefore(QUARTERS_FROM) ? 60 : 15;
+        List<Elpris> priser = new ArrayList<>();
+        for (int m = 0; m < 24 * 60; m += minuter) {
+            double sek = 0.5 + seed * 0.1 + m * 0.0001;
+            priser.add(new Elpris(sek, sek / 11.5, 11.5, start.plusMinutes(m), start.plusMinutes(m + minuter)));
+        }
+        return priser;
+    }
+}
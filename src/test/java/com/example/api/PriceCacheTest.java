@@ -0,0 +1,115 @@
+package com.example.api;
+
+import com.example.api.ElpriserAPI.Prisklass;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PriceCacheTest {
+
+    static final LocalDate TODAY = LocalDate.of(2025, 1, 15);
+    static final Duration TTL = Duration.ofHours(1);
+
+    final MutableClock clock = new MutableClock(at(TODAY, 10, 0).toInstant());
+
+    @Test
+    void recentDaysExpireAfterTtlAndPastDaysNever() {
+        PriceCache cache = new PriceCache(100, TTL, clock);
+        LocalDate igår = TODAY.minusDays(1);
+        cache.put(TODAY, Prisklass.SE3, DiskCacheTest.day(TODAY, 0));
+        cache.put(igår, Prisklass.SE3, DiskCacheTest.day(igår, 1));
+
+        clock.advance(TTL.minusMillis(1));
+        assertThat(cache.get(TODAY, Prisklass.SE3)).isEqualTo(DiskCacheTest.day(TODAY, 0));
+
+        clock.advance(Duration.ofMillis(1));
+        assertThat(cache.get(TODAY, Prisklass.SE3)).isNull();
+        assertThat(cache.get(TODAY, Prisklass.SE3)).isNull();
+        // Den utgångna posten ligger kvar för omvalidering och räknas bara en gång
+        assertThat(cache.peek(TODAY, Prisklass.SE3).priser()).isEqualTo(DiskCacheTest.day(TODAY, 0));
+        assertThat(cache.stats().expirations()).isEqualTo(1);
+
+        clock.advance(Duration.ofDays(1000));
+        assertThat(cache.get(igår, Prisklass.SE3)).isEqualTo(DiskCacheTest.day(igår, 1));
+        assertThat(cache.stats()).isEqualTo(new CacheStats(2, 2, 0, 1, 2));
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedWhenFull() throws InterruptedException {
+        int max = 10;
+        PriceCache cache = new PriceCache(max, TTL, clock);
+        LocalDate först = TODAY.minusDays(100);
+        for (int d = 0; d < max; d++) {
+            cache.put(först.plusDays(d), Prisklass.SE1, DiskCacheTest.day(först.plusDays(d), d));
+        }
+        // Nanosekundsstämplar; vänta så att alla uppslag får senare stämplar än insättningarna
+        Thread.sleep(2);
+        for (int d = 0; d < max; d++) {
+            if (d != 3 && d != 7) {
+                assertThat(cache.get(först.plusDays(d), Prisklass.SE1)).isNotNull();
+            }
+        }
+
+        cache.put(först.plusDays(max), Prisklass.SE1, DiskCacheTest.day(först.plusDays(max), max));
+
+        // Ner till 90 %: de två som inte använts sedan de lades in trängs undan
+        assertThat(cache.stats().size()).isEqualTo(max - max / 10);
+        assertThat(cache.stats().evictions()).isEqualTo(2);
+        assertThat(cache.peek(först.plusDays(3), Prisklass.SE1)).isNull();
+        assertThat(cache.peek(först.plusDays(7), Prisklass.SE1)).isNull();
+        for (int d = 0; d <= max; d++) {
+            if (d != 3 && d != 7) {
+                assertThat(cache.peek(först.plusDays(d), Prisklass.SE1)).as("dag %d", d).isNotNull();
+            }
+        }
+    }
+
+    @Test
+    void evictionRemovesExpiredEntriesFirst() {
+        int max = 10;
+        PriceCache cache = new PriceCache(max, TTL, clock);
+        cache.put(TODAY, Prisklass.SE2, DiskCacheTest.day(TODAY, 0));
+        for (int d = 1; d < max; d++) {
+            cache.put(TODAY.minusDays(d), Prisklass.SE2, DiskCacheTest.day(TODAY.minusDays(d), d));
+        }
+        clock.advance(TTL);
+
+        cache.put(TODAY.minusDays(max), Prisklass.SE2, DiskCacheTest.day(TODAY.minusDays(max), max));
+
+        // Den utgångna posten räcker inte ner till 90 %, så en till trängs undan
+        assertThat(cache.peek(TODAY, Prisklass.SE2)).isNull();
+        assertThat(cache.stats().expirations()).isEqualTo(1);
+        assertThat(cache.stats().evictions()).isEqualTo(1);
+        assertThat(cache.stats().size()).isEqualTo(max - max / 10);
+    }
+
+    @Test
+    void unpublishedDayExpiresAtPublicationTime() {
+        PriceCache cache = new PriceCache(100, TTL, clock);
+        LocalDate imorgon = TODAY.plusDays(1);
+
+        long giltigTill = cache.unpublishedExpiry(imorgon);
+        cache.putUnpublished(imorgon, Prisklass.SE4, giltigTill);
+
+        assertThat(giltigTill).isEqualTo(at(TODAY, 13, 0).toInstant().toEpochMilli());
+        clock.set(at(TODAY, 12, 59).toInstant());
+        assertThat(cache.get(imorgon, Prisklass.SE4)).isEmpty();
+        clock.set(at(TODAY, 13, 0).toInstant());
+        assertThat(cache.get(imorgon, Prisklass.SE4)).isNull();
+
+        // Efter publiceringstiden frågas det igen med korta intervall
+        assertThat(cache.unpublishedExpiry(imorgon))
+                .isEqualTo(at(TODAY, 13, 0).plus(PriceCache.UNPUBLISHED_RETRY).toInstant().toEpochMilli());
+        // En passerad dag som saknas frågas efter som andra färska poster
+        assertThat(cache.unpublishedExpiry(TODAY.minusDays(1)))
+                .isEqualTo(at(TODAY, 13, 0).plus(TTL).toInstant().toEpochMilli());
+    }
+
+    static ZonedDateTime at(LocalDate datum, int timme, int minut) {
+        return datum.atTime(timme, minut).atZone(ElpriserAPI.STOCKHOLM);
+    }
+}
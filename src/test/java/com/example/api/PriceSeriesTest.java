@@ -0,0 +1,128 @@
+package com.example.api;
+
+import com.example.api.ElpriserAPI.Elpris;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class PriceSeriesTest {
+
+    static final int INSTANCES = 300;
+
+    @Test
+    void timeLookupsMatchLinearScan() {
+        SplittableRandom slump = new SplittableRandom(18);
+        for (int t = 0; t < INSTANCES; t++) {
+            PriceSeries serie = slice(series(slump), slump);
+            if (serie.isEmpty()) continue;
+            long t0 = serie.startEpochSecond(0);
+            long t1 = serie.endEpochSecond(serie.size() - 1);
+            for (long s = t0 - 1000; s <= t1 + 1000; s += 100 + slump.nextInt(300)) {
+                for (long tid : new long[] {s, s - 1, s + 1}) {
+                    String fall = "instans " + t + " tid " + tid;
+                    int ceiling = 0;
+                    while (ceiling < serie.size() && serie.startEpochSecond(ceiling) < tid) ceiling++;
+                    int at = -1;
+                    for (int i = 0; i < serie.size(); i++) {
+                        if (serie.startEpochSecond(i) <= tid && tid < serie.endEpochSecond(i)) at = i;
+                    }
+                    assertThat(serie.ceilingIndex(tid)).as(fall).isEqualTo(ceiling);
+                    assertThat(serie.indexAt(tid)).as(fall).isEqualTo(at);
+                    if (at < 0) {
+                        assertThat(serie.sekPerKWhAt(tid)).as(fall).isNaN();
+                    } else {
+                        assertThat(serie.sekPerKWhAt(tid)).as(fall).isEqualTo(serie.sekPerKWh(at));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void sumsAndContiguityMatchLoops() {
+        SplittableRandom slump = new SplittableRandom(19);
+        for (int t = 0; t < INSTANCES; t++) {
+            PriceSeries serie = slice(series(slump), slump);
+            String instans = "instans " + t;
+            for (int from = 0; from <= serie.size(); from++) {
+                double summa = 0;
+                boolean sammanhängande = true;
+                for (int to = from; to <= serie.size(); to++) {
+                    if (to > from) {
+                        summa += serie.sekPerKWh(to - 1);
+                        sammanhängande &= to - 1 == from || serie.startEpochSecond(to - 1) == serie.endEpochSecond(to - 2);
+                    }
+                    assertThat(serie.sumSek(from, to)).as("%s [%d, %d)", instans, from, to).isCloseTo(summa, within(1e-9));
+                    assertThat(serie.isContiguous(from, to)).as("%s [%d, %d)", instans, from, to).isEqualTo(sammanhängande);
+                }
+            }
+            if (serie.isEmpty()) continue;
+            long t0 = serie.startEpochSecond(0);
+            for (int n = 0; n < 50; n++) {
+                long a = t0 - 3600 + slump.nextLong(serie.size() * 900L + 7200);
+                long b = a + slump.nextLong(-3600, 6 * 3600);
+                double väntat = 0;
+                for (int i = 0; i < serie.size(); i++) {
+                    if (serie.startEpochSecond(i) >= a && serie.startEpochSecond(i) < b) väntat += serie.sekPerKWh(i);
+                }
+                assertThat(serie.sumSekBetween(a, b)).as("%s %d–%d", instans, a, b).isCloseTo(väntat, within(1e-9));
+            }
+        }
+    }
+
+    @Test
+    void coarserRowsAreSplitAndOrderDoesNotMatter() {
+        ZonedDateTime start = LocalDate.of(2025, 10, 1).atStartOfDay(ElpriserAPI.STOCKHOLM);
+        List<Elpris> priser = new ArrayList<>(List.of(
+                new Elpris(1.0, 0.1, 10, start, start.plusHours(1)),
+                new Elpris(2.0, 0.2, 10, start.plusHours(1), start.plusMinutes(75)),
+                new Elpris(3.0, 0.3, 10, start.plusHours(2), start.plusMinutes(150))));
+        Collections.reverse(priser);
+
+        PriceSeries serie = PriceSeries.of(priser);
+
+        assertThat(serie.intervalSeconds()).isEqualTo(900);
+        assertThat(serie.sekPerKWhArray()).containsExactly(1.0, 1.0, 1.0, 1.0, 2.0, 3.0, 3.0);
+        assertThat(serie.isContiguous(0, 5)).isTrue();
+        assertThat(serie.isContiguous(4, 6)).isFalse();
+        assertThat(serie.indexAt(start.plusMinutes(80).toEpochSecond())).isEqualTo(-1);
+        assertThat(serie.ceilingIndex(start.plusMinutes(80).toEpochSecond())).isEqualTo(5);
+        assertThat(serie.sumSekBetween(start.plusMinutes(30).toEpochSecond(), start.plusHours(3).toEpochSecond()))
+                .isEqualTo(1.0 + 1.0 + 2.0 + 3.0 + 3.0);
+    }
+
+    // Upp till 40 kvartsrader med inslag av timrader som delas upp, och ibland luckor
+    private static PriceSeries series(SplittableRandom slump) {
+        ZonedDateTime t = LocalDate.of(2025, 10, 1).atStartOfDay(ElpriserAPI.STOCKHOLM);
+        boolean luckor = slump.nextBoolean();
+        List<Elpris> priser = new ArrayList<>();
+        int rader = slump.nextInt(41);
+        for (int r = 0; r < rader; r++) {
+            if (luckor && slump.nextInt(6) == 0) {
+                t = t.plusMinutes(15L * (1 + slump.nextInt(8)));
+            }
+            int minuter = slump.nextInt(5) == 0 ? 60 : 15;
+            double sek = Math.round(slump.nextDouble(-0.5, 3.0) * 100_000) / 100_000.0;
+            priser.add(new Elpris(sek, sek / 11.5, 11.5, t, t.plusMinutes(minuter)));
+            t = t.plusMinutes(minuter);
+        }
+        return PriceSeries.of(priser);
+    }
+
+    // Ibland hela serien, ibland en vy över en del av den
+    private static PriceSeries slice(PriceSeries serie, SplittableRandom slump) {
+        if (serie.isEmpty() || slump.nextBoolean()) {
+            return serie;
+        }
+        int from = slump.nextInt(serie.size());
+        return serie.slice(from, from + slump.nextInt(serie.size() - from + 1));
+    }
+}
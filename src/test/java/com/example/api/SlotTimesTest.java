@@ -0,0 +1,32 @@
+package com.example.api;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SlotTimesTest {
+
+    @Test
+    void appendDateMatchesLocalDate() {
+        SlotTimes utc = new SlotTimes(ZoneOffset.UTC);
+        // 1600-01-01 till 2400-12-31: hela 400-årscykler, skottdagar och sekelår som inte är skottår
+        for (long dag = LocalDate.of(1600, 1, 1).toEpochDay(); dag <= LocalDate.of(2400, 12, 31).toEpochDay(); dag++) {
+            StringBuilder sb = new StringBuilder();
+            utc.appendDate(sb, dag * 86_400 + 43_200);
+            assertThat(sb.toString()).isEqualTo(LocalDate.ofEpochDay(dag).toString());
+        }
+    }
+
+    @Test
+    void appendDateUsesLocalDay() {
+        SlotTimes lokal = new SlotTimes(ZoneId.of("Europe/Stockholm"));
+        // 23:30 UTC den 31 december är 00:30 på nyårsdagen i Sverige
+        long nyår = LocalDate.of(2025, 1, 1).toEpochDay() * 86_400 - 1800;
+        assertThat(lokal.appendDate(new StringBuilder(), nyår).toString()).isEqualTo("2025-01-01");
+        assertThat(lokal.appendDate(new StringBuilder(), nyår - 3600).toString()).isEqualTo("2024-12-31");
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.server;
+
+import com.example.api.ElpriserAPI;
+import com.example.api.ElpriserAPI.Elpris;
+import com.example.api.PriceSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PriceServerTest {
+
+    static final LocalDate DAY = LocalDate.of(2025, 1, 15);
+    static final Clock CLOCK = Clock.fixed(DAY.atTime(9, 30).atZone(ElpriserAPI.STOCKHOLM).toInstant(),
+            ElpriserAPI.STOCKHOLM);
+
+    ElpriserAPI api;
+    PriceServer server;
+    final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+    @BeforeEach
+    void start() throws IOException {
+        PriceSource source = (datum, prisklass, validators) -> {
+            ZonedDateTime start = datum.atStartOfDay(ElpriserAPI.STOCKHOLM);
+            List<Elpris> priser = new ArrayList<>();
+            for (int h = 0; h < 24; h++) {
+                double sek = 1.0 + (h - 12) * (h - 12) * 0.01;
+                priser.add(new Elpris(sek, sek / 11.5, 11.5, start.plusHours(h), start.plusHours(h + 1)));
+            }
+            return PriceSource.Response.ok(priser);
+        };
+        api = ElpriserAPI.builder().source(source).clock(CLOCK).build();
+        server = new PriceServer(api, new InetSocketAddress("127.0.0.1", 0), CLOCK);
+        server.start();
+    }
+
+    @AfterEach
+    void stop() {
+        server.close();
+        api.close();
+    }
+
+    @Test
+    void malformedPercentEscapeIsBadRequest() {
+        // JDK:s HttpServer nekar redan sådana URI:er, men tolkningen ska inte ge 500 på egen hand
+        assertThatThrownBy(() -> PriceServer.query("zone=SE3&date=%zz"))
+                .isInstanceOf(PriceServer.BadRequest.class)
+                .hasMessageContaining("%zz");
+        assertThat(PriceServer.query("zone=se3&date=2025-01-15&x")).containsEntry("zone", "se3")
+                .containsEntry("date", "2025-01-15").containsEntry("x", "");
+    }
+
+    @Test
+    void unknownZoneIsBadRequest() throws Exception {
+        assertThat(get("/prices?zone=SE9").statusCode()).isEqualTo(400);
+        assertThat(get("/charging?zone=SE3&hours=0").statusCode()).isEqualTo(400);
+    }
+
+    @Test
+    void timestampsKeepZeroSeconds() throws Exception {
+        HttpResponse<String> prices = get("/prices?zone=SE3&date=2025-01-15");
+        assertThat(prices.statusCode()).isEqualTo(200);
+        assertThat(prices.body()).contains("{\"start\":\"2025-01-15T00:00:00+01:00\",\"end\":\"2025-01-15T01:00:00+01:00\"");
+
+        HttpResponse<String> stats = get("/stats?zone=SE3&date=2025-01-15");
+        assertThat(stats.body()).contains("\"minStart\":\"2025-01-15T12:00:00+01:00\"");
+
+        HttpResponse<String> charging = get("/charging?zone=SE3&hours=2");
+        assertThat(charging.body()).contains("\"start\":\"2025-01-15T11:00:00+01:00\",\"end\":\"2025-01-15T13:00:00+01:00\"");
+    }
+
+    private HttpResponse<String> get(String path) throws IOException, InterruptedException {
+        URI uri = URI.create("http://127.0.0.1:" + server.address().getPort() + path);
+        return client.send(HttpRequest.newBuilder(uri).GET().build(), HttpResponse.BodyHandlers.ofString());
+    }
+}